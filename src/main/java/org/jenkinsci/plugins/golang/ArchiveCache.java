@@ -0,0 +1,305 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Util;
+import hudson.model.TaskListener;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps a copy of each Go archive on the controller, so that each archive is only downloaded from upstream once,
+ * regardless of how many agents it is installed onto.
+ * <p>
+ * Once the total size of the cached archives exceeds the configured limit, the least recently used archives are
+ * deleted, other than those which are being downloaded, or which have been fetched and are still in use.
+ */
+final class ArchiveCache {
+
+    private static final Logger LOGGER = Logger.getLogger(ArchiveCache.class.getName());
+
+    /** Suffix of files which are still being downloaded. */
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    /**
+     * Per-file locks, so that concurrent requests for the same archive result in a single download, and counts of the
+     * archives in use; entries are removed once nobody is waiting for, downloading or using the archive.
+     */
+    private static final Map<String, Entry> ENTRIES = new HashMap<String, Entry>();
+
+    /** Partial downloads which haven't been resumed for this long are deleted. */
+    private static final long PARTIAL_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    private final File directory;
+    private final long maxSize;
+    private final int connections;
+
+    /**
+     * @param directory Directory in which to store archives.
+     * @param maxSize Total size, in bytes, which the cached archives should not exceed.
+     */
+    ArchiveCache(File directory, long maxSize) {
+        this(directory, maxSize, 1);
+    }
+
+    /**
+     * @param directory Directory in which to store archives.
+     * @param maxSize Total size, in bytes, which the cached archives should not exceed.
+     * @param connections Number of connections over which to download each archive in parallel.
+     */
+    ArchiveCache(File directory, long maxSize, int connections) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.connections = connections;
+    }
+
+    File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @param url URL of a Go archive.
+     * @return The cached copy of the archive, downloading it first if necessary, which won't be evicted until it has
+     * been closed.
+     */
+    CachedArchive fetch(URL url, TaskListener log) throws IOException, InterruptedException {
+        File file = getFile(url);
+        Entry entry = lock(file);
+        try {
+            if (file.isFile()) {
+                GolangMetrics.increment(GolangMetrics.ARCHIVE_CACHE_HITS);
+                // Record the access time, for the purposes of LRU eviction
+                if (!file.setLastModified(System.currentTimeMillis())) {
+                    LOGGER.fine("Could not update the timestamp of " + file);
+                }
+                return new CachedArchive(file, entry);
+            }
+
+            GolangMetrics.increment(GolangMetrics.ARCHIVE_CACHE_MISSES);
+            log.getLogger().println(Messages.DownloadingToArchiveCache(url));
+            download(url, file);
+            GolangMetrics.add(GolangMetrics.ARCHIVE_CACHE_BYTES, file.length());
+            CachedArchive archive = new CachedArchive(file, entry);
+            evict();
+            return archive;
+        } finally {
+            unlock(file, entry);
+        }
+    }
+
+    /** Removes the cached copy of the given archive, e.g. if it turned out to be corrupt. */
+    void invalidate(URL url) {
+        File file = getFile(url);
+        Entry entry;
+        synchronized (ENTRIES) {
+            entry = getEntry(file);
+            entry.users++;
+        }
+        // Not interruptible, as this is called while cleaning up after a failure
+        entry.lock.lock();
+        try {
+            if (file.exists() && !file.delete()) {
+                LOGGER.warning("Could not delete cached archive " + file);
+            }
+        } finally {
+            unlock(file, entry);
+        }
+    }
+
+    /** A cached archive, which is protected from eviction until it's closed. */
+    static final class CachedArchive implements Closeable {
+
+        private final File file;
+        private final Entry entry;
+        private boolean closed;
+
+        private CachedArchive(File file, Entry entry) {
+            this.file = file;
+            this.entry = entry;
+            synchronized (ENTRIES) {
+                entry.pins++;
+            }
+        }
+
+        File getFile() {
+            return file;
+        }
+
+        @Override
+        public void close() {
+            synchronized (ENTRIES) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                entry.pins--;
+                removeIfUnused(file, entry);
+            }
+        }
+
+    }
+
+    /** @return The location of the cached copy of the given archive. */
+    File getFile(URL url) {
+        String path = url.getPath();
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        // Prefix the filename to prevent archives with the same name, but from different locations, from clashing
+        return new File(directory, Util.getDigestOf(url.toExternalForm()).substring(0, 8) + "-" + name);
+    }
+
+    private void download(URL url, File file) throws IOException, InterruptedException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create directory " + directory);
+        }
+
+        // Any partial download is kept if this fails, so that the next attempt can resume it
+        File partial = new File(file.getPath() + PARTIAL_SUFFIX);
+        ResumableDownload.toFile(url, partial, ResumableDownload.PROXY, connections,
+                InstallScheduler.getBandwidthLimiter());
+        Files.move(partial.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Deletes the least recently used archives until the cache fits within its size limit. */
+    private void evict() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        List<Archive> archives = new ArrayList<Archive>();
+        long total = 0;
+        for (File f : files) {
+            if (isPartial(f)) {
+                if (f.lastModified() < System.currentTimeMillis() - PARTIAL_MAX_AGE_MILLIS && !f.delete()) {
+                    LOGGER.fine("Could not delete abandoned partial download " + f);
+                }
+            } else {
+                archives.add(new Archive(f));
+                total += f.length();
+            }
+        }
+        if (total <= maxSize) {
+            return;
+        }
+
+        // Sort by the times read above, as other builds may be fetching, and so touching, archives meanwhile
+        Collections.sort(archives, new Comparator<Archive>() {
+            public int compare(Archive a, Archive b) {
+                return Long.compare(a.lastModified, b.lastModified);
+            }
+        });
+        for (Archive archive : archives) {
+            File f = archive.file;
+            if (total <= maxSize) {
+                break;
+            }
+            // Skip archives which are being downloaded or used; as nobody can start to fetch an archive without first
+            // registering with the map, it's safe to delete it while holding the map's monitor
+            synchronized (ENTRIES) {
+                if (ENTRIES.containsKey(f.getAbsolutePath())) {
+                    continue;
+                }
+                long length = f.length();
+                if (f.delete()) {
+                    total -= length;
+                    LOGGER.log(Level.FINE, "Evicted {0} from the Go archive cache", f);
+                }
+            }
+        }
+    }
+
+    /** @return Whether the given file belongs to a download which is in progress, or was interrupted. */
+    private static boolean isPartial(File f) {
+        String name = f.getName();
+        return name.endsWith(PARTIAL_SUFFIX) || name.contains(PARTIAL_SUFFIX + ".");
+    }
+
+    /** Locks the given file, so that only one thread downloads it; waiting for the lock can be interrupted. */
+    private static Entry lock(File file) throws InterruptedException {
+        Entry entry;
+        synchronized (ENTRIES) {
+            entry = getEntry(file);
+            entry.users++;
+        }
+        try {
+            entry.lock.lockInterruptibly();
+        } catch (InterruptedException e) {
+            synchronized (ENTRIES) {
+                entry.users--;
+                removeIfUnused(file, entry);
+            }
+            throw e;
+        }
+        return entry;
+    }
+
+    private static void unlock(File file, Entry entry) {
+        entry.lock.unlock();
+        synchronized (ENTRIES) {
+            entry.users--;
+            removeIfUnused(file, entry);
+        }
+    }
+
+    /** Must be called while holding the {@link #ENTRIES} monitor. */
+    private static Entry getEntry(File file) {
+        String key = file.getAbsolutePath();
+        Entry entry = ENTRIES.get(key);
+        if (entry == null) {
+            entry = new Entry();
+            ENTRIES.put(key, entry);
+        }
+        return entry;
+    }
+
+    /** Must be called while holding the {@link #ENTRIES} monitor. */
+    private static void removeIfUnused(File file, Entry entry) {
+        if (entry.users == 0 && entry.pins == 0) {
+            ENTRIES.remove(file.getAbsolutePath());
+        }
+    }
+
+    /** @return The number of archives which are currently locked or in use; for testing. */
+    static int getEntryCount() {
+        synchronized (ENTRIES) {
+            return ENTRIES.size();
+        }
+    }
+
+    /** A cached archive, with when it was last used at the time the cache was checked. */
+    private static final class Archive {
+        final File file;
+        final long lastModified;
+
+        Archive(File file) {
+            this.file = file;
+            this.lastModified = file.lastModified();
+        }
+    }
+
+    /** Lock for an archive, and how many threads are waiting for or using it. */
+    private static final class Entry {
+        final ReentrantLock lock = new ReentrantLock();
+
+        /** Threads which hold, or are waiting for, the lock; guarded by {@link #ENTRIES}. */
+        int users;
+
+        /** Fetched copies of the archive which haven't yet been closed; guarded by {@link #ENTRIES}. */
+        int pins;
+    }
+
+}
@@ -0,0 +1,287 @@
+package org.jenkinsci.plugins.golang;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Unpacks Go archives from a stream, in a single pass.
+ * <p>
+ * Unlike {@link hudson.FilePath#untarFrom}, the given stream is neither closed nor read beyond the end of the
+ * archive, so that the caller can continue reading, e.g. to calculate a digest of the entire stream.
+ */
+final class ArchiveExtractor {
+
+    private static final boolean IS_WINDOWS = File.pathSeparatorChar == ';';
+
+    /** File mode given for archive entries which have no Unix permissions recorded. */
+    static final int NO_MODE = -1;
+
+    private ArchiveExtractor() {
+    }
+
+    /**
+     * Unpacks a gzip-compressed tar archive into the given directory.
+     *
+     * @param stripPrefix Leading path to remove from entries, so that they can be unpacked directly into place.
+     * @return {@code true} if any entries started with the given prefix.
+     */
+    static boolean untar(InputStream in, File dir, String stripPrefix) throws IOException {
+        return untar(in, dir, stripPrefix, PLAIN);
+    }
+
+    /**
+     * Unpacks a gzip-compressed tar archive into the given directory.
+     *
+     * @param stripPrefix Leading path to remove from entries, so that they can be unpacked directly into place.
+     * @param writer Writes regular files into the directory, or {@code null} to write them as-is.
+     * @return {@code true} if any entries started with the given prefix.
+     */
+    static boolean untar(InputStream in, File dir, String stripPrefix, EntryWriter writer) throws IOException {
+        if (writer == null) {
+            writer = PLAIN;
+        }
+        boolean stripped = false;
+        // Symbolic links created so far, through which no further entries may be written
+        Set<Path> symlinks = new HashSet<Path>();
+        try (TarArchiveInputStream tar =
+                     new TarArchiveInputStream(new GZIPInputStream(new NonClosingInputStream(in)))) {
+            TarArchiveEntry entry;
+            while ((entry = tar.getNextTarEntry()) != null) {
+                String name = strip(entry.getName(), stripPrefix);
+                stripped |= hasPrefix(entry.getName(), stripPrefix);
+                if (name.isEmpty()) {
+                    continue;
+                }
+
+                File f = resolve(dir, name);
+                checkNotThroughSymlink(symlinks, f.toPath(), name);
+                if (entry.isDirectory()) {
+                    mkdirs(f);
+                } else if (entry.isSymbolicLink()) {
+                    Path target = checkSymlinkTarget(dir, f, entry.getLinkName(), name);
+                    mkdirs(f.getParentFile());
+                    Files.deleteIfExists(f.toPath());
+                    Files.createSymbolicLink(f.toPath(), target);
+                    symlinks.add(f.toPath());
+                    writer.linked(f);
+                } else if (entry.isLink()) {
+                    String targetName = strip(entry.getLinkName(), stripPrefix);
+                    File target = resolve(dir, targetName);
+                    checkNotThroughSymlink(symlinks, target.toPath(), targetName);
+                    mkdirs(f.getParentFile());
+                    Files.deleteIfExists(f.toPath());
+                    Files.createLink(f.toPath(), target.toPath());
+                    writer.linked(f);
+                } else {
+                    writer.write(tar, f, entry.getMode());
+                }
+            }
+        }
+        return stripped;
+    }
+
+    /**
+     * Unpacks a zip archive into the given directory.
+     *
+     * @param stripPrefix Leading path to remove from entries, so that they can be unpacked directly into place.
+     * @return {@code true} if any entries started with the given prefix.
+     */
+    static boolean unzip(InputStream in, File dir, String stripPrefix) throws IOException {
+        return unzip(in, dir, stripPrefix, PLAIN);
+    }
+
+    /**
+     * Unpacks a zip archive into the given directory.
+     *
+     * @param stripPrefix Leading path to remove from entries, so that they can be unpacked directly into place.
+     * @param writer Writes files into the directory, or {@code null} to write them as-is.
+     * @return {@code true} if any entries started with the given prefix.
+     */
+    static boolean unzip(InputStream in, File dir, String stripPrefix, EntryWriter writer) throws IOException {
+        if (writer == null) {
+            writer = PLAIN;
+        }
+        boolean stripped = false;
+        try (ZipInputStream zip = new ZipInputStream(new NonClosingInputStream(in))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String name = strip(entry.getName(), stripPrefix);
+                stripped |= hasPrefix(entry.getName(), stripPrefix);
+                if (name.isEmpty()) {
+                    continue;
+                }
+
+                File f = resolve(dir, name);
+                if (entry.isDirectory()) {
+                    mkdirs(f);
+                } else {
+                    writer.write(zip, f, NO_MODE);
+                }
+            }
+        }
+        return stripped;
+    }
+
+    /** @return The given entry name, without a leading {@code ./} or the given prefix. */
+    private static String strip(String name, String prefix) {
+        name = name.startsWith("./") ? name.substring(2) : name;
+        return hasPrefix(name, prefix) ? name.substring(prefix.length()) : name;
+    }
+
+    private static boolean hasPrefix(String name, String prefix) {
+        return prefix != null && (name.startsWith(prefix) || name.startsWith("./" + prefix));
+    }
+
+    private static void writeFile(InputStream in, File f) throws IOException {
+        mkdirs(f.getParentFile());
+        try (OutputStream out = new FileOutputStream(f)) {
+            IOUtils.copy(in, out);
+        }
+    }
+
+    /** Writes regular files from an archive into place. */
+    interface EntryWriter {
+        /**
+         * Writes the given file.
+         *
+         * @param mode Unix permissions of the file, or {@link #NO_MODE} if the archive doesn't record them.
+         */
+        void write(InputStream in, File f, int mode) throws IOException;
+
+        /** @return Whether an existing file already has the permissions that {@link #write} would give it. */
+        boolean hasMode(File f, int mode) throws IOException;
+
+        /** Called when a symbolic or hard link has been created in place of any existing file. */
+        default void linked(File f) {
+        }
+
+        /** @return Whether an existing file may be kept as-is, instead of being written by this writer. */
+        default boolean canReuse(File f) throws IOException {
+            return true;
+        }
+    }
+
+    /** Writes files directly into the target directory. */
+    static final EntryWriter PLAIN = new EntryWriter() {
+        @Override
+        public void write(InputStream in, File f, int mode) throws IOException {
+            writeFile(in, f);
+            if (mode != NO_MODE) {
+                setMode(f, mode);
+            }
+        }
+
+        @Override
+        public boolean hasMode(File f, int mode) throws IOException {
+            if (mode == NO_MODE || IS_WINDOWS) {
+                return true;
+            }
+            try {
+                return Files.getPosixFilePermissions(f.toPath()).equals(toPermissions(mode));
+            } catch (UnsupportedOperationException e) {
+                return true;
+            }
+        }
+    };
+
+    /** @return The location of the given archive entry, ensuring that it does not escape the target directory. */
+    static File resolve(File dir, String name) throws IOException {
+        Path base = dir.toPath().toAbsolutePath().normalize();
+        Path path = base.resolve(name).normalize();
+        if (!path.startsWith(base)) {
+            throw new IOException("Archive entry is outside of the target directory: " + name);
+        }
+        return path.toFile();
+    }
+
+    /**
+     * @return The target of a symbolic link entry, if it's a relative path which stays within the target directory.
+     * @throws IOException If the link would point elsewhere, as later entries could then be written through it.
+     */
+    private static Path checkSymlinkTarget(File dir, File link, String target, String name) throws IOException {
+        Path path = Paths.get(target);
+        if (path.isAbsolute() || target.startsWith("/") || target.startsWith("\\")) {
+            throw new IOException("Archive entry is a link to an absolute path: " + name + " -> " + target);
+        }
+        Path base = dir.toPath().toAbsolutePath().normalize();
+        if (!link.toPath().getParent().resolve(path).normalize().startsWith(base)) {
+            throw new IOException("Archive entry is a link outside of the target directory: " + name + " -> " + target);
+        }
+        return path;
+    }
+
+    /**
+     * Ensures that the given entry would neither replace, nor be written via, a symbolic link which was unpacked from
+     * the same archive.
+     */
+    private static void checkNotThroughSymlink(Set<Path> symlinks, Path path, String name) throws IOException {
+        if (symlinks.isEmpty()) {
+            return;
+        }
+        for (Path p = path; p != null; p = p.getParent()) {
+            if (symlinks.contains(p)) {
+                throw new IOException("Archive entry would be written via a symbolic link: " + name);
+            }
+        }
+    }
+
+    static void mkdirs(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Could not create directory " + dir);
+        }
+    }
+
+    static void setMode(File f, int mode) throws IOException {
+        if (IS_WINDOWS) {
+            return;
+        }
+        try {
+            Files.setPosixFilePermissions(f.toPath(), toPermissions(mode));
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX filesystem; nothing to do
+        }
+    }
+
+    private static Set<PosixFilePermission> toPermissions(int mode) {
+        Set<PosixFilePermission> permissions = EnumSet.noneOf(PosixFilePermission.class);
+        PosixFilePermission[] values = PosixFilePermission.values();
+        // PosixFilePermission values are ordered from OWNER_READ (0400) down to OTHERS_EXECUTE (0001)
+        for (int i = 0; i < values.length; i++) {
+            if ((mode & (0400 >> i)) != 0) {
+                permissions.add(values[i]);
+            }
+        }
+        return permissions;
+    }
+
+    /** Prevents the archive streams from closing the underlying stream. */
+    static final class NonClosingInputStream extends FilterInputStream {
+        NonClosingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() {
+            // Leave the underlying stream open
+        }
+    }
+
+}
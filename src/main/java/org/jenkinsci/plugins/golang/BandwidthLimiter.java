@@ -0,0 +1,79 @@
+package org.jenkinsci.plugins.golang;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the combined rate of all transfers which share the same instance, via a token bucket which allows bursts of
+ * up to one second's worth of data.
+ * <p>
+ * Transfers may take more than is available, and then wait in proportion to the shortfall, so that concurrent
+ * transfers end up sharing the bandwidth roughly equally.
+ */
+final class BandwidthLimiter {
+
+    private final long bytesPerSecond;
+
+    /** Bytes which may currently be transferred without waiting; negative if transfers are waiting. */
+    private double available;
+
+    private long lastRefill = System.nanoTime();
+
+    BandwidthLimiter(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /** Blocks until the given number of bytes, which have been or are about to be transferred, are allowed. */
+    void acquire(long bytes) throws InterruptedIOException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            available = Math.min(bytesPerSecond, available + (now - lastRefill) * (bytesPerSecond / 1e9));
+            lastRefill = now;
+            available -= bytes;
+            if (available >= 0) {
+                return;
+            }
+            waitNanos = (long) (-available * 1e9 / bytesPerSecond);
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for download bandwidth");
+        }
+    }
+
+    /** @return A stream which reads the given stream no faster than this limit allows. */
+    InputStream wrap(InputStream in) {
+        // Read in small enough chunks that the rate stays smooth
+        final int maxChunk = (int) Math.max(1024, Math.min(65536, bytesPerSecond / 10));
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    acquire(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, Math.min(len, maxChunk));
+                if (n > 0) {
+                    acquire(n);
+                }
+                return n;
+            }
+        };
+    }
+
+}
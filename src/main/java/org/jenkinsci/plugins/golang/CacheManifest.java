@@ -0,0 +1,94 @@
+package org.jenkinsci.plugins.golang;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Lists the files in a snapshot of the Go caches, along with the SHA-256 digest of each file's content.
+ * <p>
+ * Stored as one line per file: {@code <sha256> <size> <x|-><lastModified> <path>}, where the path is relative to the
+ * cache root; the modification time is missing from manifests saved before it was recorded.
+ */
+final class CacheManifest implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Files in the snapshot, keyed by their path relative to the cache root. */
+    final Map<String, Entry> entries;
+
+    CacheManifest() {
+        this(new LinkedHashMap<String, Entry>());
+    }
+
+    CacheManifest(Map<String, Entry> entries) {
+        this.entries = entries;
+    }
+
+    static CacheManifest read(File file) throws IOException {
+        Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+        try (BufferedReader r = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                String[] parts = line.split(" ", 4);
+                if (parts.length != 4) {
+                    throw new IOException("Invalid line in " + file + ": " + line);
+                }
+                String flags = parts[2];
+                long lastModified = flags.length() > 1 ? Long.parseLong(flags.substring(1)) : 0;
+                entries.put(parts[3], new Entry(parts[0], Long.parseLong(parts[1]), flags.startsWith("x"),
+                        lastModified));
+            }
+        }
+        return new CacheManifest(entries);
+    }
+
+    void write(File file) throws IOException {
+        // A temporary file of its own, as builds of the same job on different nodes may save the snapshot together
+        File tmp = File.createTempFile(file.getName() + ".", ".tmp", file.getParentFile());
+        try {
+            try (BufferedWriter w = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                    Entry entry = e.getValue();
+                    w.write(entry.sha256 + ' ' + entry.size + ' ' + (entry.executable ? 'x' : '-')
+                            + entry.lastModified + ' ' + e.getKey());
+                    w.write('\n');
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    static final class Entry implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final String sha256;
+        final long size;
+        final boolean executable;
+
+        /** Modification time of the file when its digest was calculated, or zero if unknown. */
+        final long lastModified;
+
+        Entry(String sha256, long size, boolean executable) {
+            this(sha256, size, executable, 0);
+        }
+
+        Entry(String sha256, long size, boolean executable, long lastModified) {
+            this.sha256 = sha256;
+            this.size = size;
+            this.executable = executable;
+            this.lastModified = lastModified;
+        }
+    }
+
+}
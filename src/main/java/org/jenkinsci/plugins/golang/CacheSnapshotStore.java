@@ -0,0 +1,247 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.TaskListener;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-addressed store of Go cache snapshots on the controller.
+ * <p>
+ * Each distinct file is stored once as a blob, named by the SHA-256 digest of its content, and each snapshot is a
+ * {@link CacheManifest} listing which blob belongs at which path. Blobs are transferred to and from nodes as
+ * gzip-compressed tar streams, with each entry named by its digest.
+ * <p>
+ * Snapshots which haven't been restored or saved for a while are removed periodically, along with any blobs which no
+ * remaining snapshot refers to.
+ */
+final class CacheSnapshotStore {
+
+    /**
+     * Held for reading while snapshots are restored or saved, and for writing while removing unused snapshots and
+     * blobs, so that blobs aren't removed while a snapshot referring to them is being restored or written.
+     */
+    private static final ReadWriteLock LOCK = new ReentrantReadWriteLock();
+
+    private final File root;
+
+    CacheSnapshotStore(File root) {
+        this.root = root;
+    }
+
+    /** @return The lock which must be held while restoring or saving a snapshot. */
+    Lock getUseLock() {
+        return LOCK.readLock();
+    }
+
+    /** @return The manifest for the snapshot with the given key, or {@code null} if there is no such snapshot. */
+    CacheManifest readManifest(String key) throws IOException {
+        File file = getManifestFile(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        // Record when the snapshot was last used, so that it's kept
+        if (!file.setLastModified(System.currentTimeMillis())) {
+            throw new IOException("Could not update the timestamp of " + file);
+        }
+        return CacheManifest.read(file);
+    }
+
+    void writeManifest(String key, CacheManifest manifest) throws IOException {
+        File file = getManifestFile(key);
+        ArchiveExtractor.mkdirs(file.getParentFile());
+        manifest.write(file);
+    }
+
+    boolean hasBlob(String sha256) throws IOException {
+        return getBlobFile(sha256).isFile();
+    }
+
+    /** Writes a gzip-compressed tar stream containing the given blobs. */
+    void writeBlobs(Collection<String> digests, OutputStream out) throws IOException {
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GZIPOutputStream(out))) {
+            tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+            for (String sha256 : digests) {
+                File blob = getBlobFile(sha256);
+                TarArchiveEntry entry = new TarArchiveEntry(sha256);
+                entry.setSize(blob.length());
+                tar.putArchiveEntry(entry);
+                try (InputStream in = new FileInputStream(blob)) {
+                    IOUtils.copy(in, tar);
+                }
+                tar.closeArchiveEntry();
+            }
+        }
+    }
+
+    /**
+     * Adds the blobs from a gzip-compressed tar stream to the store. Blobs whose content does not match their digest
+     * are discarded.
+     */
+    void readBlobs(InputStream in) throws IOException {
+        try (TarArchiveInputStream tar = new TarArchiveInputStream(new GZIPInputStream(in))) {
+            TarArchiveEntry entry;
+            while ((entry = tar.getNextTarEntry()) != null) {
+                String sha256 = entry.getName();
+                File blob = getBlobFile(sha256);
+                if (blob.isFile()) {
+                    continue;
+                }
+
+                ArchiveExtractor.mkdirs(blob.getParentFile());
+                File tmp = File.createTempFile(sha256, ".tmp", blob.getParentFile());
+                try {
+                    MessageDigest digest = createDigest();
+                    try (OutputStream out = new DigestOutputStream(new FileOutputStream(tmp), digest)) {
+                        IOUtils.copy(tar, out);
+                    }
+                    if (!Util.toHexString(digest.digest()).equals(sha256)) {
+                        // The file changed while being sent; don't store it under the wrong digest
+                        continue;
+                    }
+                    Files.move(tmp.toPath(), blob.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(tmp.toPath());
+                }
+            }
+        }
+    }
+
+    /** @return A temporary file within the store, for staging transfers. */
+    File createTempFile() throws IOException {
+        File dir = new File(root, "tmp");
+        ArchiveExtractor.mkdirs(dir);
+        return File.createTempFile("transfer", ".tar.gz", dir);
+    }
+
+    /**
+     * Removes snapshots which have not been restored or saved within the given time, then any blobs which no
+     * remaining snapshot refers to, and any abandoned transfers.
+     *
+     * @return The number of bytes of blobs removed.
+     */
+    long collectGarbage(long maxAgeMillis) throws IOException, InterruptedException {
+        LOCK.writeLock().lockInterruptibly();
+        try {
+            long cutoff = System.currentTimeMillis() - maxAgeMillis;
+            Set<String> referenced = new HashSet<String>();
+            File[] manifests = new File(root, "manifests").listFiles();
+            if (manifests != null) {
+                for (File manifest : manifests) {
+                    if (manifest.lastModified() < cutoff || manifest.getName().endsWith(".tmp")) {
+                        Files.deleteIfExists(manifest.toPath());
+                        continue;
+                    }
+                    for (CacheManifest.Entry entry : CacheManifest.read(manifest).entries.values()) {
+                        referenced.add(entry.sha256);
+                    }
+                }
+            }
+
+            long removed = 0;
+            File[] prefixes = new File(root, "blobs").listFiles();
+            if (prefixes != null) {
+                for (File prefix : prefixes) {
+                    File[] blobs = prefix.listFiles();
+                    if (blobs == null) {
+                        continue;
+                    }
+                    for (File blob : blobs) {
+                        if (!referenced.contains(blob.getName())) {
+                            long length = blob.length();
+                            if (blob.delete()) {
+                                removed += length;
+                            }
+                        }
+                    }
+                }
+            }
+
+            // Nothing can be transferring while we hold the lock
+            File tmp = new File(root, "tmp");
+            if (tmp.exists()) {
+                Util.deleteContentsRecursive(tmp);
+            }
+            return removed;
+        } finally {
+            LOCK.writeLock().unlock();
+        }
+    }
+
+    File getManifestFile(String key) {
+        return new File(root, "manifests/" + key);
+    }
+
+    private File getBlobFile(String sha256) throws IOException {
+        if (!sha256.matches("[0-9a-f]{64}")) {
+            throw new IOException("Invalid digest: " + sha256);
+        }
+        return new File(root, "blobs/" + sha256.substring(0, 2) + "/" + sha256);
+    }
+
+    static MessageDigest createDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /** Periodically removes snapshots which are no longer being used from the controller. */
+    @Extension
+    public static final class GarbageCollector extends AsyncPeriodicWork {
+
+        public GarbageCollector() {
+            super("Go cache snapshot cleanup");
+        }
+
+        @Override
+        public long getRecurrencePeriod() {
+            return TimeUnit.HOURS.toMillis(6);
+        }
+
+        @Override
+        protected void execute(TaskListener listener) throws IOException, InterruptedException {
+            GolangConfiguration config = GolangConfiguration.get();
+            if (config == null) {
+                return;
+            }
+            CacheSnapshotStore store = config.getCacheSnapshotStore();
+            if (!store.root.isDirectory()) {
+                return;
+            }
+            long removed = store.collectGarbage(TimeUnit.DAYS.toMillis(config.getCacheSnapshotRetentionDays()));
+            if (removed > 0) {
+                listener.getLogger().printf("Removed %d MB of unused Go cache snapshots%n", removed / (1024 * 1024));
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,389 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.remoting.RemoteInputStream;
+import hudson.remoting.RemoteOutputStream;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.security.MasterToSlaveCallable;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Restores the Go caches on a node from a snapshot stored on the controller before a build, and saves any new cache
+ * entries back to the controller afterwards.
+ * <p>
+ * Snapshots are keyed by the job, the installed Go archive (and therefore Go version and platform), plus the content
+ * of the workspace's {@code go.sum} file, so that a job never restores cache content which another job saved. Only
+ * files which the node doesn't already have are sent to it, and only blobs which the controller doesn't already have
+ * are sent back.
+ */
+final class CacheSnapshots {
+
+    private CacheSnapshots() {
+    }
+
+    /** State of the caches on a node after a snapshot has been restored, from which new entries can be saved. */
+    static final class Snapshot {
+        final String key;
+        final String home;
+        final CacheManifest manifest;
+
+        Snapshot(String key, String home, CacheManifest manifest) {
+            this.key = key;
+            this.home = home;
+            this.manifest = manifest;
+        }
+    }
+
+    /**
+     * Restores the snapshot matching the given job, workspace and Go installation onto the node, if there is one.
+     *
+     * @param job Full name of the job whose snapshots may be used.
+     */
+    static Snapshot restore(CacheSnapshotStore store, String job, Node node, FilePath workspace, String home,
+            TaskListener log) throws IOException, InterruptedException {
+        FilePath root = node.createPath(GolangCachesProperty.getCacheRoot(home));
+        FilePath installation = node.createPath(home);
+        VirtualChannel channel = node.getChannel();
+        if (root == null || installation == null || channel == null) {
+            throw new GolangInstaller.InstallationFailedException(Messages.NodeOffline(node.getDisplayName()));
+        }
+
+        NodePlatform platform = NodePlatformCache.get(node);
+        String source = channel.call(new ReadSnapshotSource(workspace.child("go.sum").getRemote(),
+                installation.child(UnpackGoArchive.INSTALLED_FROM).getRemote()));
+        String key = getKey(job, source, platform);
+
+        Lock lock = store.getUseLock();
+        lock.lockInterruptibly();
+        try {
+            CacheManifest manifest = store.readManifest(key);
+            if (manifest == null) {
+                log.getLogger().println(Messages.NoCacheSnapshot());
+                return new Snapshot(key, home, new CacheManifest());
+            }
+
+            // Find out which files the node is missing, and send just those
+            Map<String, List<String>> missing = root.act(new FindMissingFiles(manifest));
+            if (!missing.isEmpty()) {
+                File transfer = store.createTempFile();
+                try {
+                    try (OutputStream out = new FileOutputStream(transfer)) {
+                        store.writeBlobs(missing.keySet(), out);
+                    }
+                    try (InputStream in = new FileInputStream(transfer)) {
+                        root.act(new WriteFiles(manifest, missing, in));
+                    }
+                    log.getLogger().println(Messages.RestoredCacheSnapshot(countFiles(missing),
+                            transfer.length() / 1024));
+                } finally {
+                    Files.deleteIfExists(transfer.toPath());
+                }
+            }
+            return new Snapshot(key, home, manifest);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return The key of the snapshot for the given job, Go installation and {@code go.sum}, and platform. */
+    static String getKey(String job, String source, NodePlatform platform) {
+        return Util.getDigestOf(job + '\n' + source + '\n' + platform.osName + '\n' + platform.osArch);
+    }
+
+    /** Saves the current state of the caches on the node, sending only those files not already on the controller. */
+    static void save(CacheSnapshotStore store, Node node, Snapshot snapshot, TaskListener log)
+            throws IOException, InterruptedException {
+        FilePath root = node.createPath(GolangCachesProperty.getCacheRoot(snapshot.home));
+        if (root == null) {
+            return;
+        }
+
+        CacheManifest current = root.act(new ScanFiles(snapshot.manifest));
+
+        // Blobs must not be removed between checking for them and writing the manifest which refers to them
+        Lock lock = store.getUseLock();
+        lock.lockInterruptibly();
+        try {
+            // Determine which content is new to the controller
+            Map<String, String> needed = new LinkedHashMap<String, String>();
+            for (Map.Entry<String, CacheManifest.Entry> e : current.entries.entrySet()) {
+                String sha256 = e.getValue().sha256;
+                if (!needed.containsKey(sha256) && !store.hasBlob(sha256)) {
+                    needed.put(sha256, e.getKey());
+                }
+            }
+
+            if (!needed.isEmpty()) {
+                File transfer = store.createTempFile();
+                try {
+                    try (OutputStream out = new FileOutputStream(transfer)) {
+                        root.act(new ReadFiles(needed, out));
+                    }
+                    try (InputStream in = new FileInputStream(transfer)) {
+                        store.readBlobs(in);
+                    }
+                    log.getLogger().println(Messages.SavedCacheSnapshot(needed.size(), transfer.length() / 1024));
+
+                    // Leave out any files which changed or disappeared while being sent
+                    for (Iterator<CacheManifest.Entry> it = current.entries.values().iterator(); it.hasNext(); ) {
+                        String sha256 = it.next().sha256;
+                        if (needed.containsKey(sha256) && !store.hasBlob(sha256)) {
+                            it.remove();
+                        }
+                    }
+                } finally {
+                    Files.deleteIfExists(transfer.toPath());
+                }
+            }
+            store.writeManifest(snapshot.key, current);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int countFiles(Map<String, List<String>> paths) {
+        int count = 0;
+        for (List<String> p : paths.values()) {
+            count += p.size();
+        }
+        return count;
+    }
+
+    /** Reads where the Go installation came from, plus the hash of {@code go.sum}, if any. */
+    private static final class ReadSnapshotSource extends MasterToSlaveCallable<String, IOException> {
+        private static final long serialVersionUID = 1L;
+
+        private final String goSum;
+        private final String installedFrom;
+
+        ReadSnapshotSource(String goSum, String installedFrom) {
+            this.goSum = goSum;
+            this.installedFrom = installedFrom;
+        }
+
+        public String call() throws IOException {
+            File installed = new File(installedFrom);
+            String source = installed.isFile()
+                    ? new String(Files.readAllBytes(installed.toPath()), StandardCharsets.UTF_8) : "";
+            File sum = new File(goSum);
+            String sumDigest = sum.isFile() ? Util.getDigestOf(sum) : "";
+            return source + '\n' + sumDigest;
+        }
+    }
+
+    /** @return Paths which are missing from the node, grouped by the digest of their expected content. */
+    private static final class FindMissingFiles extends MasterToSlaveFileCallable<Map<String, List<String>>> {
+        private static final long serialVersionUID = 1L;
+
+        private final CacheManifest manifest;
+
+        FindMissingFiles(CacheManifest manifest) {
+            this.manifest = manifest;
+        }
+
+        public Map<String, List<String>> invoke(File root, VirtualChannel channel) throws IOException {
+            Map<String, List<String>> missing = new LinkedHashMap<String, List<String>>();
+            for (Map.Entry<String, CacheManifest.Entry> e : manifest.entries.entrySet()) {
+                if (hasContent(new File(root, e.getKey()), e.getValue())) {
+                    continue;
+                }
+                List<String> paths = missing.get(e.getValue().sha256);
+                if (paths == null) {
+                    paths = new ArrayList<String>();
+                    missing.put(e.getValue().sha256, paths);
+                }
+                paths.add(e.getKey());
+            }
+            return missing;
+        }
+    }
+
+    /** Writes the files in a blob stream sent from the controller to each of the paths which need them. */
+    private static final class WriteFiles extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final CacheManifest manifest;
+        private final Map<String, List<String>> paths;
+        private final InputStream stream;
+
+        WriteFiles(CacheManifest manifest, Map<String, List<String>> paths, InputStream stream) {
+            this.manifest = manifest;
+            this.paths = paths;
+            this.stream = new RemoteInputStream(stream, RemoteInputStream.Flag.GREEDY);
+        }
+
+        public Void invoke(File root, VirtualChannel channel) throws IOException {
+            try (TarArchiveInputStream tar = new TarArchiveInputStream(new GZIPInputStream(stream))) {
+                TarArchiveEntry entry;
+                while ((entry = tar.getNextTarEntry()) != null) {
+                    List<String> targets = paths.get(entry.getName());
+                    if (targets == null || targets.isEmpty()) {
+                        continue;
+                    }
+
+                    File first = ArchiveExtractor.resolve(root, targets.get(0));
+                    ArchiveExtractor.mkdirs(first.getParentFile());
+                    try (OutputStream out = new FileOutputStream(first)) {
+                        IOUtils.copy(tar, out);
+                    }
+                    for (String path : targets) {
+                        File f = ArchiveExtractor.resolve(root, path);
+                        if (!f.equals(first)) {
+                            ArchiveExtractor.mkdirs(f.getParentFile());
+                            Files.copy(first.toPath(), f.toPath());
+                        }
+                        CacheManifest.Entry expected = manifest.entries.get(path);
+                        if (expected.executable && !f.setExecutable(true)) {
+                            throw new IOException("Could not make " + f + " executable");
+                        }
+                        // So that the file is known to be unchanged without reading it again; otherwise it's checked
+                        if (expected.lastModified != 0) {
+                            f.setLastModified(expected.lastModified);
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Lists all files in the caches, reusing digests from the restored manifest for files which are unchanged, and
+     * calculating the digests of all other files.
+     */
+    private static final class ScanFiles extends MasterToSlaveFileCallable<CacheManifest> {
+        private static final long serialVersionUID = 1L;
+
+        private final CacheManifest restored;
+
+        ScanFiles(CacheManifest restored) {
+            this.restored = restored;
+        }
+
+        public CacheManifest invoke(File root, VirtualChannel channel) throws IOException {
+            CacheManifest current = new CacheManifest();
+            scan(root, "", current);
+            return current;
+        }
+
+        private void scan(File dir, String prefix, CacheManifest current) throws IOException {
+            File[] children = dir.listFiles();
+            if (children == null) {
+                return;
+            }
+            for (File f : children) {
+                String path = prefix + f.getName();
+                if (f.isDirectory()) {
+                    scan(f, path + '/', current);
+                    continue;
+                }
+                // Go's lock files are not cache content
+                if (path.endsWith(".lock")) {
+                    continue;
+                }
+
+                // Read the timestamp first, so that a change while calculating the digest is noticed next time
+                long lastModified = f.lastModified();
+                CacheManifest.Entry known = restored.entries.get(path);
+                if (known != null && known.size == f.length() && known.lastModified != 0
+                        && known.lastModified == lastModified) {
+                    current.entries.put(path, known);
+                } else {
+                    current.entries.put(path,
+                            new CacheManifest.Entry(digest(f), f.length(), f.canExecute(), lastModified));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Whether the given file has the content described by the given entry; files of the right size are only
+     * read if their modification time differs, as a cache entry may be rewritten with different content of the same
+     * size.
+     */
+    private static boolean hasContent(File f, CacheManifest.Entry entry) throws IOException {
+        if (!f.isFile() || f.length() != entry.size) {
+            return false;
+        }
+        if (entry.lastModified != 0 && f.lastModified() == entry.lastModified) {
+            return true;
+        }
+        return digest(f).equals(entry.sha256);
+    }
+
+    private static String digest(File f) throws IOException {
+        MessageDigest digest = CacheSnapshotStore.createDigest();
+        try (InputStream in = new DigestInputStream(new FileInputStream(f), digest)) {
+            IOUtils.copy(in, new NullOutputStream());
+        }
+        return Util.toHexString(digest.digest());
+    }
+
+    /** Sends the given files back to the controller as a blob stream. */
+    private static final class ReadFiles extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+
+        /** Path of a file with the given digest. */
+        private final Map<String, String> paths;
+        private final OutputStream stream;
+
+        ReadFiles(Map<String, String> paths, OutputStream stream) {
+            this.paths = paths;
+            this.stream = new RemoteOutputStream(stream);
+        }
+
+        public Void invoke(File root, VirtualChannel channel) throws IOException {
+            try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GZIPOutputStream(stream))) {
+                tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+                for (Map.Entry<String, String> e : paths.entrySet()) {
+                    File f = ArchiveExtractor.resolve(root, e.getValue());
+                    try (InputStream in = new FileInputStream(f)) {
+                        // Copy exactly the expected size, in case the file has since been modified; the controller
+                        // will discard it if the digest no longer matches
+                        long size = f.length();
+                        TarArchiveEntry entry = new TarArchiveEntry(e.getKey());
+                        entry.setSize(size);
+                        tar.putArchiveEntry(entry);
+                        long copied = IOUtils.copyLarge(in, tar, 0, size);
+                        for (; copied < size; copied++) {
+                            tar.write(0);
+                        }
+                        tar.closeArchiveEntry();
+                    } catch (FileNotFoundException x) {
+                        // Removed since it was scanned; the controller will leave it out of the snapshot
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+}
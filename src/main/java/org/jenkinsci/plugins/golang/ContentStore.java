@@ -0,0 +1,243 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Util;
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Content-addressed store of files on a node, shared by all Go installations in the same tools directory.
+ * <p>
+ * Each distinct file is stored once, as a read-only blob named after its SHA-256 digest, and is hard-linked into every
+ * installation which contains it. As patch releases of Go have most of their files in common, this saves disk space.
+ * Small files which the store already has aren't written at all; larger files are still written to a temporary file
+ * while being hashed, and then discarded if the store already has them.
+ * <p>
+ * Blobs which are no longer linked from any installation are removed by {@link #collectGarbage()}. This relies on
+ * hard link counts, so only happens on filesystems which report them, i.e. on Unix.
+ */
+final class ContentStore implements ArchiveExtractor.EntryWriter {
+
+    /** Name of the store directory, within the directory containing the installations. */
+    static final String DIRECTORY_NAME = ".golang-store";
+
+    private static final boolean IS_WINDOWS = File.pathSeparatorChar == ';';
+
+    /** Files up to this size are hashed in memory before deciding whether they need to be written. */
+    private static final int IN_MEMORY_SIZE = 64 * 1024;
+
+    /** Temporary files which haven't been written to for this long were left behind by an interrupted install. */
+    private static final long STALE_TEMP_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /** Guards against blobs being removed while they are being linked into an installation within this JVM. */
+    private static final ConcurrentMap<String, ReadWriteLock> LOCKS = new ConcurrentHashMap<String, ReadWriteLock>();
+
+    private final File blobs;
+    private final File tmp;
+    private final ReadWriteLock lock;
+
+    ContentStore(File directory) {
+        File dir = directory.getAbsoluteFile();
+        this.blobs = new File(dir, "blobs");
+        this.tmp = new File(dir, "tmp");
+        ReadWriteLock newLock = new ReentrantReadWriteLock();
+        ReadWriteLock existing = LOCKS.putIfAbsent(dir.getPath(), newLock);
+        this.lock = existing == null ? newLock : existing;
+    }
+
+    /** @return The store shared by all installations which are siblings of the given installation directory. */
+    static ContentStore forInstallation(File dir) {
+        return new ContentStore(new File(dir.getAbsoluteFile().getParentFile(), DIRECTORY_NAME));
+    }
+
+    /**
+     * Writes the given content to the store, if it is not already present, and links it to the given location.
+     * <p>
+     * The linked file is read-only, as modifying it would modify every installation sharing it, and only the
+     * executable bit of the given mode is kept.
+     */
+    @Override
+    public void write(InputStream in, File target, int mode) throws IOException {
+        boolean executable = isExecutable(mode);
+        ArchiveExtractor.mkdirs(target.getAbsoluteFile().getParentFile());
+        Files.deleteIfExists(target.toPath());
+
+        // Small files are hashed in memory, so that they needn't be written at all if the store already has them
+        byte[] head = new byte[IN_MEMORY_SIZE];
+        int length = IOUtils.read(in, head);
+        if (length < head.length) {
+            MessageDigest digest = createDigest();
+            digest.update(head, 0, length);
+            File blob = getBlob(Util.toHexString(digest.digest()), executable);
+            lock.readLock().lock();
+            try {
+                if (link(blob, target)) {
+                    return;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // Hold the lock while writing, so that garbage collection can't remove the temporary file
+        lock.readLock().lock();
+        try {
+            ArchiveExtractor.mkdirs(tmp);
+            File temp = File.createTempFile("blob", ".tmp", tmp);
+            try {
+                MessageDigest digest = createDigest();
+                try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp.toPath()), digest)) {
+                    out.write(head, 0, length);
+                    IOUtils.copy(in, out);
+                }
+                ArchiveExtractor.setMode(temp, executable ? 0555 : 0444);
+
+                File blob = getBlob(Util.toHexString(digest.digest()), executable);
+                if (!link(blob, target)) {
+                    // New content; add it to the store, unless another installation just did
+                    ArchiveExtractor.mkdirs(blob.getParentFile());
+                    try {
+                        Files.move(temp.toPath(), blob.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                    } catch (FileAlreadyExistsException e) {
+                        // Identical content, so either copy will do
+                    }
+                    if (!link(blob, target)) {
+                        throw new NoSuchFileException(blob.getPath());
+                    }
+                }
+            } finally {
+                Files.deleteIfExists(temp.toPath());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes blobs which are no longer used by any installation, along with any temporary files left behind by
+     * installations which were interrupted.
+     *
+     * @return The number of blobs removed, or {@code -1} if this filesystem does not report hard link counts.
+     */
+    int collectGarbage() throws IOException {
+        if (!blobs.isDirectory()) {
+            return 0;
+        }
+        lock.writeLock().lock();
+        try {
+            // Only stale files, as another JVM, e.g. a second agent process, may be writing to the same store
+            File[] temps = tmp.listFiles();
+            if (temps != null) {
+                long cutoff = System.currentTimeMillis() - STALE_TEMP_MILLIS;
+                for (File temp : temps) {
+                    if (temp.lastModified() < cutoff) {
+                        Files.deleteIfExists(temp.toPath());
+                    }
+                }
+            }
+
+            int removed = 0;
+            try (DirectoryStream<Path> prefixes = Files.newDirectoryStream(blobs.toPath())) {
+                for (Path prefix : prefixes) {
+                    try (DirectoryStream<Path> entries = Files.newDirectoryStream(prefix)) {
+                        for (Path blob : entries) {
+                            Integer links;
+                            try {
+                                links = (Integer) Files.getAttribute(blob, "unix:nlink");
+                            } catch (UnsupportedOperationException e) {
+                                return -1;
+                            }
+                            // The store's own link is the only one left
+                            if (links <= 1) {
+                                Files.delete(blob);
+                                removed++;
+                            }
+                        }
+                    }
+                }
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean hasMode(File f, int mode) {
+        return IS_WINDOWS || f.canExecute() == isExecutable(mode);
+    }
+
+    /**
+     * Only files linked from a store can be reused, as any other file could be modified in place. Store blobs are
+     * recognised as being read-only and having more than one link; other files are rewritten, which adds them to the
+     * store.
+     */
+    @Override
+    public boolean canReuse(File f) throws IOException {
+        Path path = f.toPath();
+        try {
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(path, LinkOption.NOFOLLOW_LINKS);
+            Integer links = (Integer) Files.getAttribute(path, "unix:nlink", LinkOption.NOFOLLOW_LINKS);
+            return !permissions.contains(PosixFilePermission.OWNER_WRITE) && links > 1;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    private static boolean isExecutable(int mode) {
+        return mode != ArchiveExtractor.NO_MODE && (mode & 0100) != 0;
+    }
+
+    File getBlob(String sha256, boolean executable) {
+        String name = executable ? sha256 + "-x" : sha256;
+        return new File(new File(blobs, sha256.substring(0, 2)), name);
+    }
+
+    /** @return {@code false} if the blob does not exist. */
+    private static boolean link(File blob, File target) throws IOException {
+        try {
+            Files.createLink(target.toPath(), blob.toPath());
+        } catch (NoSuchFileException e) {
+            if (blob.exists()) {
+                throw e;
+            }
+            return false;
+        } catch (UnsupportedOperationException | IOException e) {
+            if (!blob.exists()) {
+                return false;
+            }
+            // Hard links aren't possible here, e.g. the limit on links was reached; fall back to a plain copy
+            Files.copy(blob.toPath(), target.toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+        }
+        return true;
+    }
+
+    private static MessageDigest createDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,248 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Util;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Upgrades an existing installation of Go to another patch release of the same minor version.
+ * <p>
+ * The new installation is first seeded with hard links to every file of the existing installation. As the new archive
+ * is unpacked, each file is compared with the seeded copy: identical files are left alone, while changed files are
+ * replaced by new files, so that the existing installation is never modified. Any seeded files which are not in the
+ * new archive are then removed. As patch releases differ in relatively few files, this avoids most of the disk writes
+ * of unpacking a full installation.
+ */
+final class DeltaUpgrade implements ArchiveExtractor.EntryWriter {
+
+    /** Matches official Go archive names, e.g. {@code go1.22.4.linux-amd64.tar.gz} or {@code go1.23rc1.src.tar.gz}. */
+    private static final Pattern ARCHIVE_NAME = Pattern.compile("go(\\d+\\.\\d+)(?:\\.\\d+|(?:rc|beta)\\d+)*\\.(.+)$");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ArchiveExtractor.EntryWriter delegate;
+    private final File root;
+
+    /** Seeded files which have not yet been seen in the new archive. */
+    private final Set<Path> unseen = new HashSet<Path>();
+
+    private DeltaUpgrade(ArchiveExtractor.EntryWriter delegate, File root) {
+        this.delegate = delegate;
+        this.root = root;
+    }
+
+    /**
+     * Finds an existing installation which can be used to seed the given installation.
+     *
+     * @param dir Directory into which Go will be installed; the version currently installed there is preferred.
+     * @param source URL of the archive which will be installed.
+     * @param includeSiblings Whether other installations in the same parent directory may also be used.
+     * @return An existing installation of the same minor version of Go, for the same platform, or {@code null}.
+     */
+    static File findSeed(File dir, String source, boolean includeSiblings) {
+        String release = getReleaseSeries(source);
+        if (release == null) {
+            return null;
+        }
+
+        List<File> candidates = new ArrayList<File>();
+        candidates.add(dir);
+        File[] siblings = includeSiblings ? dir.getAbsoluteFile().getParentFile().listFiles() : null;
+        if (siblings != null) {
+            // Prefer the most recently installed version, as it's likely to be the closest
+            Arrays.sort(siblings, new Comparator<File>() {
+                @Override
+                public int compare(File a, File b) {
+                    return Long.compare(b.lastModified(), a.lastModified());
+                }
+            });
+            for (File sibling : siblings) {
+                if (!sibling.getName().startsWith(".") && !sibling.equals(dir.getAbsoluteFile())) {
+                    candidates.add(sibling);
+                }
+            }
+        }
+
+        for (File candidate : candidates) {
+            File installedFrom = new File(candidate, UnpackGoArchive.INSTALLED_FROM);
+            if (!installedFrom.isFile()) {
+                continue;
+            }
+            try {
+                String url = new String(Files.readAllBytes(installedFrom.toPath()), StandardCharsets.UTF_8).trim();
+                if (release.equals(getReleaseSeries(url))) {
+                    return candidate;
+                }
+            } catch (IOException e) {
+                // Skip installations we can't read
+            }
+        }
+        return null;
+    }
+
+    /** @return The minor version and platform of the Go archive at the given URL, or {@code null} if unrecognised. */
+    static String getReleaseSeries(String url) {
+        String name = url.substring(url.lastIndexOf('/') + 1);
+        Matcher m = ARCHIVE_NAME.matcher(name);
+        return m.matches() ? m.group(1) + " " + m.group(2) : null;
+    }
+
+    /**
+     * Seeds the given empty directory with hard links to all files in the existing installation which the delegate
+     * can reuse, ignoring hidden directories such as those holding caches.
+     *
+     * @param delegate Writes files which have changed in the new archive.
+     * @return A writer which should be used to unpack the new archive, or {@code null} if the directory could not be
+     *         seeded, in which case it is left empty.
+     */
+    static DeltaUpgrade seed(File seed, File dir, final ArchiveExtractor.EntryWriter delegate) {
+        if (seed == null) {
+            return null;
+        }
+        final Path from = seed.toPath().toAbsolutePath().normalize();
+        final Path to = dir.toPath().toAbsolutePath().normalize();
+        final DeltaUpgrade upgrade = new DeltaUpgrade(delegate, to.toFile());
+        try {
+            Files.walkFileTree(from, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) throws IOException {
+                    if (!d.equals(from) && d.getFileName().toString().startsWith(".")) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    Files.createDirectories(to.resolve(from.relativize(d)));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    // Links are recreated from the archive, and the record of the old source is no longer valid
+                    if (!attrs.isRegularFile() || file.equals(from.resolve(UnpackGoArchive.INSTALLED_FROM))) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    // e.g. when deduplicating, files which aren't in the store are written to it afresh instead
+                    if (!delegate.canReuse(file.toFile())) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    Path target = to.resolve(from.relativize(file));
+                    try {
+                        Files.createLink(target, file);
+                    } catch (UnsupportedOperationException | IOException e) {
+                        Files.copy(file, target, StandardCopyOption.COPY_ATTRIBUTES);
+                    }
+                    upgrade.unseen.add(target);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            // The existing installation may have been removed in the meantime; fall back to a full installation
+            try {
+                Util.deleteContentsRecursive(dir);
+            } catch (IOException ignored) {
+                // The caller will fail to unpack into the directory, and clean it up
+            }
+            return null;
+        }
+        return upgrade;
+    }
+
+    @Override
+    public void write(InputStream in, File f, int mode) throws IOException {
+        Path path = f.toPath();
+        boolean seeded = unseen.remove(path) && Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS);
+        if (!seeded || !delegate.hasMode(f, mode)) {
+            // Never write through the link, as that would modify the existing installation
+            Files.deleteIfExists(path);
+            delegate.write(in, f, mode);
+            return;
+        }
+
+        // Compare the new content against the seeded file, until they differ
+        byte[] expected = new byte[BUFFER_SIZE];
+        byte[] actual = new byte[BUFFER_SIZE];
+        long matched = 0;
+        int n;
+        try (InputStream existing = new FileInputStream(f)) {
+            while (true) {
+                n = IOUtils.read(in, expected);
+                int m = IOUtils.read(existing, actual, 0, Math.max(n, 1));
+                if (n != m || !equals(expected, actual, n)) {
+                    break;
+                }
+                if (n == 0) {
+                    // Unchanged; keep the seeded file
+                    return;
+                }
+                matched += n;
+            }
+        }
+
+        // Write the new content alongside, reusing the part which matched, then replace the seeded link
+        File replacement = new File(f.getPath() + ".delta");
+        try (InputStream prefix = new BoundedInputStream(new FileInputStream(f), matched)) {
+            List<InputStream> parts = Arrays.asList(prefix, new ByteArrayInputStream(expected, 0, n),
+                    new ArchiveExtractor.NonClosingInputStream(in));
+            delegate.write(new SequenceInputStream(Collections.enumeration(parts)), replacement, mode);
+        }
+        Files.move(replacement.toPath(), path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public boolean hasMode(File f, int mode) throws IOException {
+        return delegate.hasMode(f, mode);
+    }
+
+    @Override
+    public void linked(File f) {
+        unseen.remove(f.toPath());
+    }
+
+    /** Removes seeded files which were not in the new archive, along with any directories left empty. */
+    void removeUnseen() throws IOException {
+        Path base = root.toPath();
+        for (Path path : unseen) {
+            Files.deleteIfExists(path);
+            for (Path parent = path.getParent(); parent != null && !parent.equals(base); parent = parent.getParent()) {
+                String[] children = parent.toFile().list();
+                if (children == null || children.length > 0) {
+                    break;
+                }
+                Files.delete(parent);
+            }
+        }
+        unseen.clear();
+    }
+
+    private static boolean equals(byte[] a, byte[] b, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,282 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the least recently used Go installations to remove from the directory in which Go is installed on a node, i.e.
+ * those which are no longer configured and have not been used for a while, and then, if the installations take up more
+ * than the given size, as many of the rest as needed.
+ * <p>
+ * The installations aren't removed here, but one at a time by the controller, using {@link Remove}, while it holds the
+ * installation's lock, so that no build can start to install or use it meanwhile; {@link CollectGarbage} then removes
+ * whatever the store no longer needs.
+ * <p>
+ * When each installation was last used is recorded by the modification time of a marker file within it, which is
+ * updated from the times known to the controller. Directories whose names start with a dot, such as the shared
+ * {@link ContentStore}, the shared caches and installations being unpacked, are left alone, other than the caches of
+ * removed installations.
+ * <p>
+ * As deduplicated installations share files via hard links, sizes are measured by counting each file only once, and a
+ * removed installation only counts as freeing the files which no remaining installation links to.
+ */
+final class EvictGoInstallations extends MasterToSlaveFileCallable<EvictGoInstallations.Result> {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Marker file whose modification time is when the installation was last used. */
+    static final String LAST_USED = ".lastUsed";
+
+    /** When each installation directory was last used, as known to the controller. */
+    private final Map<String, Long> lastUsed;
+
+    /** Names of the installation directories which are still configured. */
+    private final Set<String> configured;
+
+    /** Paths of installations which must not be removed, e.g. because builds are using them. */
+    private final Set<String> keep;
+
+    /** Time, according to the controller, before which an installation must have last been used to be removed. */
+    private final long unusedSince;
+
+    /** How long unconfigured installations are kept after they were last used; or zero if they're always kept. */
+    private final long unconfiguredRetentionMillis;
+
+    /** Current time, according to the controller. */
+    private final long now;
+
+    /** Total size, in bytes, which installations should not exceed; or zero if there is no limit. */
+    private final long maxSize;
+
+    EvictGoInstallations(Map<String, Long> lastUsed, Set<String> configured, Set<String> keep, long unusedSince,
+                         long unconfiguredRetentionMillis, long maxSize) {
+        this.lastUsed = new HashMap<String, Long>(lastUsed);
+        this.configured = new HashSet<String>(configured);
+        this.keep = new HashSet<String>(keep);
+        this.unusedSince = unusedSince;
+        this.unconfiguredRetentionMillis = unconfiguredRetentionMillis;
+        this.now = System.currentTimeMillis();
+        this.maxSize = maxSize;
+    }
+
+    /** The installations which should be removed. */
+    static final class Result implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Paths of the installations to remove, least recently used first, with the disk space in bytes that removing
+         * each frees once those before it have been removed, not counting files which are still linked from other
+         * installations; zero if there is no size limit.
+         */
+        final Map<String, Long> evictable = new LinkedHashMap<String, Long>();
+
+        /**
+         * Disk space used by the installations which would remain, in bytes; zero if there is no size limit.
+         */
+        long remainingBytes;
+    }
+
+    public Result invoke(File dir, VirtualChannel channel) throws IOException, InterruptedException {
+        Result result = new Result();
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return result;
+        }
+
+        // Only measure installations if there's a size limit, as it means reading every directory
+        Map<Object, Inode> inodes = maxSize > 0 ? new HashMap<Object, Inode>() : null;
+        List<Installation> installations = new ArrayList<Installation>();
+        for (File child : children) {
+            if (child.getName().startsWith(".") || !child.isDirectory()) {
+                continue;
+            }
+            installations.add(new Installation(child, getLastUsed(child), inodes));
+        }
+        if (inodes != null) {
+            for (Inode inode : inodes.values()) {
+                result.remainingBytes += inode.size;
+            }
+        }
+
+        // Oldest first
+        Collections.sort(installations, new Comparator<Installation>() {
+            public int compare(Installation a, Installation b) {
+                return Long.compare(a.lastUsed, b.lastUsed);
+            }
+        });
+        for (Installation installation : installations) {
+            if (keep.contains(installation.dir.getAbsolutePath()) || installation.lastUsed >= unusedSince) {
+                continue;
+            }
+            boolean unconfigured = !configured.contains(installation.dir.getName());
+            boolean expired = unconfigured && unconfiguredRetentionMillis > 0
+                    && now - installation.lastUsed > unconfiguredRetentionMillis;
+            boolean overBudget = maxSize > 0 && result.remainingBytes > maxSize;
+            if (!expired && !overBudget) {
+                continue;
+            }
+            long freed = installation.unlink(inodes);
+            result.evictable.put(installation.dir.getAbsolutePath(), freed);
+            result.remainingBytes -= freed;
+        }
+        return result;
+    }
+
+    /**
+     * @return When the given installation was last used, from the controller's records, the marker file, or failing
+     * that, when it was installed; updating the marker file if the controller knows of a later use.
+     */
+    private long getLastUsed(File installation) {
+        File marker = new File(installation, LAST_USED);
+        long time = Math.max(marker.lastModified(),
+                new File(installation, UnpackGoArchive.INSTALLED_FROM).lastModified());
+        Long recorded = lastUsed.get(installation.getAbsolutePath());
+        if (recorded != null && recorded > time) {
+            time = recorded;
+            try {
+                if (marker.exists() || marker.createNewFile()) {
+                    marker.setLastModified(recorded);
+                }
+            } catch (IOException e) {
+                // The time is still used for this check, and will be recorded again next time
+            }
+        }
+        return time == 0 ? installation.lastModified() : time;
+    }
+
+    /**
+     * Removes an installation, first moving it aside, so that nothing sees it while it's partially deleted, along with
+     * its shared caches, if any; returns whether it was removed.
+     */
+    static final class Remove extends MasterToSlaveFileCallable<Boolean> {
+        private static final long serialVersionUID = 1L;
+
+        public Boolean invoke(File installation, VirtualChannel channel) throws IOException, InterruptedException {
+            return remove(installation);
+        }
+    }
+
+    /**
+     * Removes the blobs which only the store in the given directory still links to, as files shared via the store are
+     * only freed once the store's own link to them is removed.
+     */
+    static final class CollectGarbage extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+
+        public Void invoke(File dir, VirtualChannel channel) throws IOException {
+            File store = new File(dir, ContentStore.DIRECTORY_NAME);
+            if (store.isDirectory()) {
+                new ContentStore(store).collectGarbage();
+            }
+            return null;
+        }
+    }
+
+    private static boolean remove(File installation) throws IOException, InterruptedException {
+        File staging = new File(installation.getParentFile(), "." + installation.getName() + ".tmp-evicted");
+        if (staging.exists()) {
+            Util.deleteRecursive(staging);
+        }
+        if (!installation.renameTo(staging)) {
+            return false;
+        }
+        Util.deleteRecursive(staging);
+        File caches = new File(new File(installation.getParentFile(), GolangCachesProperty.CACHE_DIRECTORY),
+                installation.getName());
+        if (caches.exists()) {
+            Util.deleteRecursive(caches);
+        }
+        return true;
+    }
+
+    /**
+     * Adds the files under the given directory, not following symbolic links, to the given files, each only once,
+     * counting the given directory's installation as linking to each of them.
+     */
+    private static void collect(File dir, Set<Object> linked, Map<Object, Inode> inodes) throws IOException {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File f : children) {
+            BasicFileAttributes attributes = Files.readAttributes(f.toPath(), BasicFileAttributes.class,
+                    LinkOption.NOFOLLOW_LINKS);
+            if (attributes.isDirectory()) {
+                collect(f, linked, inodes);
+            } else if (attributes.isRegularFile()) {
+                // Hard links to the same file share a key, where the filesystem provides one
+                Object key = attributes.fileKey() == null ? f.getAbsolutePath() : attributes.fileKey();
+                if (!linked.add(key)) {
+                    continue;
+                }
+                Inode inode = inodes.get(key);
+                if (inode == null) {
+                    inode = new Inode(attributes.size());
+                    inodes.put(key, inode);
+                }
+                inode.installations++;
+            }
+        }
+    }
+
+    private static final class Installation {
+        final File dir;
+        final long lastUsed;
+
+        /** Keys of the files in the installation, if measured. */
+        final Set<Object> linked = new HashSet<Object>();
+
+        Installation(File dir, long lastUsed, Map<Object, Inode> inodes) throws IOException {
+            this.dir = dir;
+            this.lastUsed = lastUsed;
+            if (inodes != null) {
+                collect(dir, linked, inodes);
+            }
+        }
+
+        /** @return The size of the files which no other installation links to, now that this one has been removed. */
+        long unlink(Map<Object, Inode> inodes) {
+            if (inodes == null) {
+                return 0;
+            }
+            long freed = 0;
+            for (Object key : linked) {
+                Inode inode = inodes.get(key);
+                if (--inode.installations == 0) {
+                    freed += inode.size;
+                }
+            }
+            return freed;
+        }
+    }
+
+    /** A file, which may be linked from several installations. */
+    private static final class Inode {
+        final long size;
+
+        /** Number of remaining installations which link to the file. */
+        int installations;
+
+        Inode(long size) {
+            this.size = size;
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.model.Action;
+import hudson.model.Run;
+import jenkins.model.RunAction2;
+import jenkins.tasks.SimpleBuildStep;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Go benchmark results recorded for a build.
+ * <p>
+ * The results are kept in a compact file in the build directory, with one tab-separated line per benchmark, rather
+ * than in {@code build.xml}, so that loading a build doesn't load its results until they're needed.
+ */
+public class GoBenchmarkAction implements RunAction2, SimpleBuildStep.LastBuildAction {
+
+    private static final Logger LOGGER = Logger.getLogger(GoBenchmarkAction.class.getName());
+
+    static final String FILE_NAME = "golang-benchmarks.tsv";
+
+    private static final String HEADER = "# name\tns/op\tB/op\tallocs/op";
+
+    private static final String MISSING = "-";
+
+    /**
+     * Maximum number of earlier builds to look through for results, so that a job which has stopped recording
+     * benchmarks doesn't have its whole history loaded.
+     */
+    static final int MAX_LOOKBACK = 50;
+
+    private transient Run<?, ?> run;
+
+    /** Results by benchmark name, loaded from {@link #FILE_NAME} when first needed. */
+    private transient volatile Map<String, GoBenchmarkResult> results;
+
+    GoBenchmarkAction(Run<?, ?> run, Map<String, GoBenchmarkResult> results) {
+        this.run = run;
+        this.results = Collections.unmodifiableMap(new LinkedHashMap<String, GoBenchmarkResult>(results));
+    }
+
+    @Override
+    public void onAttached(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "graph.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.GoBenchmarksDisplayName();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "goBenchmarks";
+    }
+
+    @Override
+    public Collection<? extends Action> getProjectActions() {
+        return Collections.singletonList(new GoBenchmarkProjectAction(run.getParent()));
+    }
+
+    public Collection<GoBenchmarkResult> getResults() {
+        return getResultMap().values();
+    }
+
+    /** @return The result for the given benchmark, or {@code null} if it wasn't run in this build. */
+    public GoBenchmarkResult getResult(String name) {
+        return getResultMap().get(name);
+    }
+
+    Map<String, GoBenchmarkResult> getResultMap() {
+        Map<String, GoBenchmarkResult> loaded = results;
+        if (loaded == null) {
+            try {
+                loaded = Collections.unmodifiableMap(read(new File(run.getRootDir(), FILE_NAME)));
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not read Go benchmark results for " + run, e);
+                loaded = Collections.emptyMap();
+            }
+            results = loaded;
+        }
+        return loaded;
+    }
+
+    /**
+     * @return The results of the closest earlier build which recorded any, within the last {@link #MAX_LOOKBACK}
+     * builds; or {@code null} if there are none.
+     */
+    public GoBenchmarkAction getPrevious() {
+        int searched = 0;
+        for (Run<?, ?> r = run.getPreviousBuild(); r != null && searched < MAX_LOOKBACK;
+             r = r.getPreviousBuild(), searched++) {
+            GoBenchmarkAction action = r.getAction(GoBenchmarkAction.class);
+            if (action != null) {
+                return action;
+            }
+        }
+        return null;
+    }
+
+    /** Saves the results to the build directory; must be called before the action is added to the build. */
+    void save() throws IOException {
+        File file = new File(run.getRootDir(), FILE_NAME);
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (GoBenchmarkResult result : results.values()) {
+                writer.write(result.getName() + '\t' + format(result.getNsPerOp()) + '\t'
+                        + format(result.getBytesPerOp()) + '\t' + format(result.getAllocsPerOp()));
+                writer.newLine();
+            }
+        }
+    }
+
+    static Map<String, GoBenchmarkResult> read(File file) throws IOException {
+        Map<String, GoBenchmarkResult> results = new LinkedHashMap<String, GoBenchmarkResult>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                if (line.startsWith("#") || fields.length != 4) {
+                    continue;
+                }
+                try {
+                    results.put(fields[0], new GoBenchmarkResult(fields[0], parse(fields[1]), parse(fields[2]),
+                            parse(fields[3])));
+                } catch (NumberFormatException e) {
+                    LOGGER.fine("Ignoring invalid Go benchmark result: " + line);
+                }
+            }
+        }
+        return results;
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return MISSING;
+        }
+        // Most measurements are whole numbers
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value)
+                : Double.toString(value);
+    }
+
+    private static double parse(String value) {
+        return value.equals(MISSING) ? Double.NaN : Double.parseDouble(value);
+    }
+
+}
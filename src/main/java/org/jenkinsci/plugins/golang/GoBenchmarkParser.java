@@ -0,0 +1,182 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.console.ConsoleNote;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts benchmark measurements from the output of {@code go test -bench}, either as plain text, or as the events
+ * written by {@code go test -json}, one line at a time, so that large outputs never need to be held in memory.
+ */
+final class GoBenchmarkParser {
+
+    /**
+     * Finds a benchmark result line, e.g. {@code BenchmarkParse-8  1000000  1234 ns/op  128 B/op  2 allocs/op},
+     * capturing the name without the GOMAXPROCS suffix, so that results from machines with different numbers of CPUs
+     * can be compared, and the measurements. The line may be prefixed, e.g. with a timestamp in the build log.
+     */
+    private static final Pattern RESULT = Pattern.compile(
+            "(?:^|\\s)(Benchmark\\S*?)(?:-\\d+)?\\s+\\d+((?:\\s+[0-9.]+(?:[eE][-+]?\\d+)?\\s+\\S+)+)\\s*$");
+
+    private static final Pattern MEASUREMENT = Pattern.compile("([0-9.]+(?:[eE][-+]?\\d+)?)\\s+(\\S+)");
+
+    /** Finds the line printed by {@code go test} before the benchmarks of each package, which may also be prefixed. */
+    private static final Pattern PACKAGE = Pattern.compile("(?:^|\\s)pkg: (\\S+)\\s*$");
+
+    /** Longest partial line to keep from {@code -json} output events, to bound memory use. */
+    private static final int MAX_PARTIAL_LINE = 64 * 1024;
+
+    /** Package of the benchmarks being reported in plain text output, if known. */
+    private String currentPackage;
+
+    /** Output not yet ending with a newline, for each package, from {@code -json} output events. */
+    private final Map<String, StringBuilder> partialLines = new HashMap<String, StringBuilder>();
+
+    private final Map<String, Sum> sums = new LinkedHashMap<String, Sum>();
+
+    /** @return Results for all the benchmarks in the given output. */
+    static Map<String, GoBenchmarkResult> parse(Reader output) throws IOException {
+        GoBenchmarkParser parser = new GoBenchmarkParser();
+        parser.read(output);
+        return parser.getResults();
+    }
+
+    /**
+     * Adds the benchmarks in the given output, e.g. from one of several files, to those already read; results for the
+     * same benchmark are combined, as if they had been run several times.
+     */
+    void read(Reader output) throws IOException {
+        // Each output starts afresh
+        currentPackage = null;
+        partialLines.clear();
+        BufferedReader reader = new BufferedReader(output);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            add(line);
+        }
+    }
+
+    /** Handles one line of output, in either format. */
+    void add(String line) {
+        if (line.startsWith("{")) {
+            JSONObject event;
+            try {
+                event = JSONObject.fromObject(line);
+            } catch (JSONException e) {
+                addText(null, line);
+                return;
+            }
+            if ("output".equals(event.optString("Action"))) {
+                addOutput(event.optString("Package", null), event.optString("Output", ""));
+            }
+            return;
+        }
+        addText(null, line);
+    }
+
+    /** Benchmark results may be split over several output events, so join them back into lines first. */
+    private void addOutput(String pkg, String output) {
+        String key = pkg == null ? "" : pkg;
+        StringBuilder partial = partialLines.get(key);
+        if (partial == null) {
+            partial = new StringBuilder();
+            partialLines.put(key, partial);
+        }
+        partial.append(output);
+
+        int start = 0;
+        int newline;
+        while ((newline = partial.indexOf("\n", start)) >= 0) {
+            addText(pkg, partial.substring(start, newline));
+            start = newline + 1;
+        }
+        partial.delete(0, start);
+        if (partial.length() > MAX_PARTIAL_LINE) {
+            partial.setLength(0);
+        }
+    }
+
+    private void addText(String pkg, String line) {
+        // The build log may contain hidden console annotations
+        line = ConsoleNote.removeNotes(line);
+        Matcher m = PACKAGE.matcher(line);
+        if (m.find()) {
+            currentPackage = m.group(1);
+            return;
+        }
+        m = RESULT.matcher(line);
+        if (!m.find()) {
+            return;
+        }
+        if (pkg == null) {
+            pkg = currentPackage;
+        }
+        String name = pkg == null ? m.group(1) : pkg + "." + m.group(1);
+        Sum sum = sums.get(name);
+        if (sum == null) {
+            sum = new Sum();
+            sums.put(name, sum);
+        }
+        sum.add(m.group(2));
+    }
+
+    Map<String, GoBenchmarkResult> getResults() {
+        Map<String, GoBenchmarkResult> results = new LinkedHashMap<String, GoBenchmarkResult>();
+        for (Map.Entry<String, Sum> e : sums.entrySet()) {
+            results.put(e.getKey(), e.getValue().toResult(e.getKey()));
+        }
+        return results;
+    }
+
+    /** Running totals of each measurement for one benchmark, which may be run several times, e.g. with -count. */
+    private static final class Sum {
+        double ns;
+        int nsCount;
+        double bytes;
+        int bytesCount;
+        double allocs;
+        int allocsCount;
+
+        void add(String measurements) {
+            Matcher m = MEASUREMENT.matcher(measurements);
+            while (m.find()) {
+                double value;
+                try {
+                    value = Double.parseDouble(m.group(1));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                String unit = m.group(2);
+                if (unit.equals("ns/op")) {
+                    ns += value;
+                    nsCount++;
+                } else if (unit.equals("B/op")) {
+                    bytes += value;
+                    bytesCount++;
+                } else if (unit.equals("allocs/op")) {
+                    allocs += value;
+                    allocsCount++;
+                }
+            }
+        }
+
+        GoBenchmarkResult toResult(String name) {
+            return new GoBenchmarkResult(name, average(ns, nsCount), average(bytes, bytesCount),
+                    average(allocs, allocsCount));
+        }
+
+        private static double average(double total, int count) {
+            return count == 0 ? Double.NaN : total / count;
+        }
+    }
+
+}
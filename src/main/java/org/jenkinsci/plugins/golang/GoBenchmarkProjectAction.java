@@ -0,0 +1,161 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.model.Action;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.util.ChartUtil;
+import hudson.util.DataSetBuilder;
+import hudson.util.Graph;
+import hudson.util.ShiftedCategoryAxis;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.CategoryAxis;
+import org.jfree.chart.axis.CategoryLabelPositions;
+import org.jfree.chart.plot.CategoryPlot;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.category.CategoryDataset;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/** Shows how each Go benchmark's measurements have changed over the recent builds of a job. */
+public class GoBenchmarkProjectAction implements Action {
+
+    /** Maximum number of builds to show in each graph. */
+    private static final int MAX_BUILDS = 50;
+
+    private final Job<?, ?> job;
+
+    GoBenchmarkProjectAction(Job<?, ?> job) {
+        this.job = job;
+    }
+
+    public Job<?, ?> getJob() {
+        return job;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "graph.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.GoBenchmarkTrendsDisplayName();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "goBenchmarks";
+    }
+
+    /** @return The benchmarks recorded by the most recent build with results, whose trends can be shown. */
+    public Collection<String> getBenchmarkNames() {
+        GoBenchmarkAction last = getLastAction();
+        return last == null ? Collections.<String>emptyList() : last.getResultMap().keySet();
+    }
+
+    /** @return The results of the most recent build which recorded any, looking back as far as the graphs do. */
+    private GoBenchmarkAction getLastAction() {
+        int searched = 0;
+        for (Run<?, ?> r = job.getLastCompletedBuild(); r != null && searched < MAX_BUILDS;
+             r = r.getPreviousCompletedBuild(), searched++) {
+            GoBenchmarkAction action = r.getAction(GoBenchmarkAction.class);
+            if (action != null) {
+                return action;
+            }
+        }
+        return null;
+    }
+
+    /** Draws the trend of the given measurement, i.e. {@code ns}, {@code bytes} or {@code allocs}, for a benchmark. */
+    public void doTrend(StaplerRequest req, StaplerResponse rsp, @QueryParameter String name,
+                        @QueryParameter String metric) throws IOException {
+        final Metric m = Metric.fromParameter(metric);
+        final DataSetBuilder<String, ChartUtil.NumberOnlyBuildLabel> data =
+                new DataSetBuilder<String, ChartUtil.NumberOnlyBuildLabel>();
+        List<Run<?, ?>> builds = new ArrayList<Run<?, ?>>();
+        for (Run<?, ?> r = job.getLastCompletedBuild(); r != null && builds.size() < MAX_BUILDS;
+             r = r.getPreviousCompletedBuild()) {
+            builds.add(r);
+        }
+        for (Run<?, ?> r : builds) {
+            GoBenchmarkAction action = r.getAction(GoBenchmarkAction.class);
+            GoBenchmarkResult result = action == null ? null : action.getResult(name);
+            if (result != null && !Double.isNaN(m.get(result))) {
+                data.add(m.get(result), m.unit, new ChartUtil.NumberOnlyBuildLabel(r));
+            }
+        }
+
+        Run<?, ?> last = builds.isEmpty() ? null : builds.get(0);
+        new Graph(last == null ? -1 : last.getTimestamp().getTimeInMillis(), 500, 200) {
+            @Override
+            protected JFreeChart createGraph() {
+                return createChart(data.build(), m.unit);
+            }
+        }.doPng(req, rsp);
+    }
+
+    private static JFreeChart createChart(CategoryDataset dataset, String unit) {
+        JFreeChart chart = ChartFactory.createLineChart(null, null, unit, dataset, PlotOrientation.VERTICAL, false,
+                true, false);
+        chart.setBackgroundPaint(Color.WHITE);
+        CategoryPlot plot = chart.getCategoryPlot();
+        plot.setBackgroundPaint(Color.WHITE);
+        plot.setRangeGridlinePaint(Color.LIGHT_GRAY);
+        CategoryAxis domainAxis = new ShiftedCategoryAxis(null);
+        domainAxis.setCategoryLabelPositions(CategoryLabelPositions.UP_90);
+        domainAxis.setLowerMargin(0.0);
+        domainAxis.setUpperMargin(0.0);
+        domainAxis.setCategoryMargin(0.0);
+        plot.setDomainAxis(domainAxis);
+        return chart;
+    }
+
+    /** Measurements which can be graphed. */
+    enum Metric {
+        NS("ns/op") {
+            @Override
+            double get(GoBenchmarkResult result) {
+                return result.getNsPerOp();
+            }
+        },
+        BYTES("B/op") {
+            @Override
+            double get(GoBenchmarkResult result) {
+                return result.getBytesPerOp();
+            }
+        },
+        ALLOCS("allocs/op") {
+            @Override
+            double get(GoBenchmarkResult result) {
+                return result.getAllocsPerOp();
+            }
+        };
+
+        final String unit;
+
+        Metric(String unit) {
+            this.unit = unit;
+        }
+
+        abstract double get(GoBenchmarkResult result);
+
+        static Metric fromParameter(String metric) {
+            for (Metric m : values()) {
+                if (m.name().equalsIgnoreCase(metric)) {
+                    return m;
+                }
+            }
+            return NS;
+        }
+    }
+
+}
@@ -0,0 +1,180 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Util;
+import hudson.model.AbstractProject;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.tasks.BuildStepDescriptor;
+import hudson.tasks.BuildStepMonitor;
+import hudson.tasks.Publisher;
+import hudson.tasks.Recorder;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.tasks.SimpleBuildStep;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Records the results of Go benchmarks, from the output of {@code go test -bench}, in plain text or {@code -json}
+ * format, so that their trends can be seen across builds, and optionally marks the build as unstable or failed if any
+ * benchmark has become slower.
+ */
+public class GoBenchmarkPublisher extends Recorder implements SimpleBuildStep {
+
+    /** Files containing benchmark output, relative to the workspace; or {@code null} to read the build log. */
+    private String results;
+
+    /** Percentage by which ns/op may increase from the previous results before the build is marked; 0 to disable. */
+    private double regressionThresholdPercent;
+
+    private boolean failOnRegression;
+
+    @DataBoundConstructor
+    public GoBenchmarkPublisher() {
+    }
+
+    public String getResults() {
+        return results;
+    }
+
+    @DataBoundSetter
+    public void setResults(String results) {
+        this.results = Util.fixEmptyAndTrim(results);
+    }
+
+    public double getRegressionThresholdPercent() {
+        return regressionThresholdPercent;
+    }
+
+    @DataBoundSetter
+    public void setRegressionThresholdPercent(double regressionThresholdPercent) {
+        this.regressionThresholdPercent = Math.max(0, regressionThresholdPercent);
+    }
+
+    /** @return Whether regressions should fail the build, rather than marking it as unstable. */
+    public boolean isFailOnRegression() {
+        return failOnRegression;
+    }
+
+    @DataBoundSetter
+    public void setFailOnRegression(boolean failOnRegression) {
+        this.failOnRegression = failOnRegression;
+    }
+
+    @Override
+    public BuildStepMonitor getRequiredMonitorService() {
+        return BuildStepMonitor.NONE;
+    }
+
+    @Override
+    public void perform(Run<?, ?> run, FilePath workspace, Launcher launcher, TaskListener listener)
+            throws InterruptedException, IOException {
+        Map<String, GoBenchmarkResult> parsed;
+        if (results == null) {
+            // The log is only read up to this point, and may still be being written to
+            try (Reader log = run.getLogReader()) {
+                parsed = GoBenchmarkParser.parse(log);
+            }
+        } else {
+            // Parse on the agent, so that only the results are sent back
+            parsed = workspace.act(new ParseFiles(results));
+        }
+        String source = results == null ? Messages.BuildLog() : results;
+        if (parsed.isEmpty()) {
+            listener.getLogger().println(Messages.NoGoBenchmarkResults(source));
+            return;
+        }
+
+        GoBenchmarkAction action = new GoBenchmarkAction(run, parsed);
+        GoBenchmarkAction previous = action.getPrevious();
+        action.save();
+        run.addAction(action);
+        listener.getLogger().println(Messages.RecordedGoBenchmarks(parsed.size(), source));
+
+        if (regressionThresholdPercent > 0 && previous != null) {
+            checkRegressions(run, parsed, previous, listener);
+        }
+    }
+
+    private void checkRegressions(Run<?, ?> run, Map<String, GoBenchmarkResult> current, GoBenchmarkAction previous,
+                                  TaskListener listener) {
+        List<String> regressed = new ArrayList<String>();
+        for (GoBenchmarkResult result : current.values()) {
+            GoBenchmarkResult before = previous.getResult(result.getName());
+            double change = result.getNsPerOpChangePercent(before);
+            if (change > regressionThresholdPercent) {
+                regressed.add(result.getName());
+                listener.getLogger().println(Messages.GoBenchmarkRegressed(result.getName(),
+                        formatNumber(before.getNsPerOp()), formatNumber(result.getNsPerOp()), formatNumber(change)));
+            }
+        }
+        if (!regressed.isEmpty()) {
+            listener.getLogger().println(Messages.GoBenchmarksRegressed(regressed.size(),
+                    formatNumber(regressionThresholdPercent), previous.getRun().getDisplayName()));
+            run.setResult(failOnRegression ? Result.FAILURE : Result.UNSTABLE);
+        }
+    }
+
+    private static String formatNumber(double value) {
+        return String.format(Locale.ENGLISH, "%.1f", value);
+    }
+
+    /** Parses each file matching a pattern, one line at a time, combining the results. */
+    private static final class ParseFiles extends MasterToSlaveFileCallable<Map<String, GoBenchmarkResult>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String includes;
+
+        ParseFiles(String includes) {
+            this.includes = includes;
+        }
+
+        public Map<String, GoBenchmarkResult> invoke(File dir, VirtualChannel channel) throws IOException {
+            // Benchmarks which appear in several files are combined, rather than the last file's results winning
+            GoBenchmarkParser parser = new GoBenchmarkParser();
+            String[] files = Util.createFileSet(dir, includes).getDirectoryScanner().getIncludedFiles();
+            for (String name : files) {
+                try (Reader in = new InputStreamReader(new FileInputStream(new File(dir, name)),
+                        StandardCharsets.UTF_8)) {
+                    parser.read(in);
+                }
+            }
+            return parser.getResults();
+        }
+
+    }
+
+    @Extension
+    @Symbol("goBenchmarks")
+    public static class DescriptorImpl extends BuildStepDescriptor<Publisher> {
+
+        @Override
+        public String getDisplayName() {
+            return Messages.PublishGoBenchmarks();
+        }
+
+        @Override
+        public boolean isApplicable(Class<? extends AbstractProject> jobType) {
+            return true;
+        }
+
+    }
+
+}
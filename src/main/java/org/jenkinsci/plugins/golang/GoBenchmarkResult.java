@@ -0,0 +1,50 @@
+package org.jenkinsci.plugins.golang;
+
+import java.io.Serializable;
+
+/** Measurements for one Go benchmark in one build, averaged over however many times the benchmark was run. */
+public final class GoBenchmarkResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+    private final double nsPerOp;
+    private final double bytesPerOp;
+    private final double allocsPerOp;
+
+    GoBenchmarkResult(String name, double nsPerOp, double bytesPerOp, double allocsPerOp) {
+        this.name = name;
+        this.nsPerOp = nsPerOp;
+        this.bytesPerOp = bytesPerOp;
+        this.allocsPerOp = allocsPerOp;
+    }
+
+    /** @return The benchmark name, prefixed by its package if known, e.g. {@code example.com/app.BenchmarkParse}. */
+    public String getName() {
+        return name;
+    }
+
+    /** @return Nanoseconds per operation, or {@link Double#NaN} if not reported. */
+    public double getNsPerOp() {
+        return nsPerOp;
+    }
+
+    /** @return Bytes allocated per operation, or {@link Double#NaN} if not reported, i.e. without {@code -benchmem}. */
+    public double getBytesPerOp() {
+        return bytesPerOp;
+    }
+
+    /** @return Allocations per operation, or {@link Double#NaN} if not reported, i.e. without {@code -benchmem}. */
+    public double getAllocsPerOp() {
+        return allocsPerOp;
+    }
+
+    /** @return The change in ns/op from the given earlier result, as a percentage; or NaN if not known. */
+    public double getNsPerOpChangePercent(GoBenchmarkResult previous) {
+        if (previous == null || !(previous.nsPerOp > 0)) {
+            return Double.NaN;
+        }
+        return (nsPerOp - previous.nsPerOp) * 100 / previous.nsPerOp;
+    }
+
+}
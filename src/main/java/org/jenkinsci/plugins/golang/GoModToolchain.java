@@ -0,0 +1,205 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.FilePath;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.tools.InstallSourceProperty;
+import hudson.tools.ToolProperty;
+import hudson.util.VersionNumber;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.jenkinsci.plugins.golang.GolangInstaller.GolangRelease;
+import static org.jenkinsci.plugins.golang.GolangInstaller.ReleaseCatalogue;
+
+/**
+ * Provides the Go version required by the {@code go} and {@code toolchain} directives of a workspace's {@code go.mod}
+ * as a managed Go installation, so that the {@code go} command doesn't download it by itself, as it does with
+ * {@code GOTOOLCHAIN=auto} in Go 1.21 and later, into the module cache of every workspace.
+ */
+final class GoModToolchain {
+
+    /** Value of {@code GOTOOLCHAIN} which stops the {@code go} command from switching to another toolchain. */
+    static final String LOCAL = "local";
+
+    private static final String VERSION = "(\\d+\\.\\d+(?:\\.\\d+)?(?:(?:rc|beta)\\d+)?)";
+
+    /** Matches the {@code go} directive, e.g. {@code go 1.21} or {@code go 1.22.5}. */
+    private static final Pattern GO_DIRECTIVE = Pattern.compile("go\\s+" + VERSION + "\\s*(?://.*)?");
+
+    /** Matches the {@code toolchain} directive, e.g. {@code toolchain go1.22.5}, ignoring any custom suffix. */
+    private static final Pattern TOOLCHAIN_DIRECTIVE =
+            Pattern.compile("toolchain\\s+go" + VERSION + "(?:[-+]\\S*)?\\s*(?://.*)?");
+
+    private static final Pattern MINOR_VERSION = Pattern.compile("(\\d+\\.\\d+).*");
+
+    /** Installations created for releases required by {@code go.mod} files, by release and replaced installation. */
+    private static final ConcurrentMap<String, GolangInstallation> INSTALLATIONS =
+            new ConcurrentHashMap<String, GolangInstallation>();
+
+    private GoModToolchain() {
+    }
+
+    /**
+     * @return The Go installation which the {@code go.mod} in the given workspace requires: either the given
+     * installation, if it's recent enough, or one which installs the required release; or {@code null} if there is no
+     * {@code go.mod}, it doesn't require a particular version, or no suitable release is known, in which case the
+     * {@code go} command should be left to choose its toolchain itself.
+     */
+    static GolangInstallation select(GolangInstallation installation, Node node, FilePath workspace,
+                                     TaskListener log) throws IOException, InterruptedException {
+        // Read both go.mod and the installed version in a single call to the node
+        String[] versions = workspace.act(new ReadVersions(installation.getHome()));
+        String required = versions[0] == null ? null : getRequiredVersion(versions[0]);
+        if (required == null) {
+            return null;
+        }
+
+        String installed = versions[1];
+        if (installed != null && new VersionNumber(installed).compareTo(new VersionNumber(required)) >= 0) {
+            return installation;
+        }
+
+        String id = findRelease(required);
+        if (id == null) {
+            log.getLogger().println(Messages.GoModToolchainUnavailable(required));
+            return null;
+        }
+        log.getLogger().println(Messages.UsingGoModToolchain(id, installation.getName()));
+        return TranslatedInstallations.forNode(getInstallation(installation, id), node, log);
+    }
+
+    /**
+     * @return The minimum Go version required by the given {@code go.mod} content, i.e. the later of its {@code go}
+     * and {@code toolchain} directives; or {@code null} if it has neither.
+     */
+    static String getRequiredVersion(String goMod) {
+        String go = null;
+        String toolchain = null;
+        for (String line : goMod.split("\n")) {
+            line = line.trim();
+            Matcher m = GO_DIRECTIVE.matcher(line);
+            if (m.matches()) {
+                go = m.group(1);
+                continue;
+            }
+            m = TOOLCHAIN_DIRECTIVE.matcher(line);
+            if (m.matches()) {
+                toolchain = m.group(1);
+            }
+        }
+        if (go == null || toolchain == null) {
+            return go == null ? toolchain : go;
+        }
+        return new VersionNumber(toolchain).compareTo(new VersionNumber(go)) >= 0 ? toolchain : go;
+    }
+
+    /**
+     * @return The ID of the release to install for the given required version: that exact release, if known;
+     * otherwise the latest stable release with the same minor version, if it's recent enough; or {@code null}.
+     */
+    static String findRelease(String required) {
+        ReleaseCatalogue catalogue = GolangReleaseSource.getActiveCatalogue();
+        if (catalogue == null) {
+            return null;
+        }
+        if (catalogue.getRelease(required) != null) {
+            return required;
+        }
+        // The `go` directive may only give the minor version, e.g. `go 1.21`, whose first release was 1.21.0
+        Matcher m = MINOR_VERSION.matcher(required);
+        if (!m.matches()) {
+            return null;
+        }
+        String alias = m.group(1) + ReleaseAliases.MINOR_SUFFIX;
+        GolangRelease latest = catalogue.resolveAlias(alias);
+        if (latest == null || new VersionNumber(latest.id).compareTo(new VersionNumber(required)) < 0) {
+            return null;
+        }
+        // Use the alias, so that this follows the same release as other installations using it
+        return alias;
+    }
+
+    /**
+     * Reads the {@code go.mod} in the workspace, and the Go version installed at the given location on the same node,
+     * returning each, or {@code null} if not found.
+     */
+    private static final class ReadVersions extends MasterToSlaveFileCallable<String[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final String home;
+
+        ReadVersions(String home) {
+            this.home = home;
+        }
+
+        public String[] invoke(File workspace, VirtualChannel channel) throws IOException {
+            File goMod = new File(workspace, "go.mod");
+            if (!goMod.isFile()) {
+                return new String[2];
+            }
+            return new String[] {read(goMod), getInstalledVersion(home)};
+        }
+
+        /** @return The Go version installed at the given location, or {@code null} if it isn't known. */
+        private static String getInstalledVersion(String home) throws IOException {
+            File file = home == null ? null : new File(home, "VERSION");
+            if (file == null || !file.isFile()) {
+                return null;
+            }
+            // e.g. "go1.22.5", followed by the build time on later versions
+            String version = read(file).trim().split("\\s+", 2)[0];
+            return version.matches("go" + VERSION) ? version.substring(2) : null;
+        }
+
+        private static String read(File file) throws IOException {
+            return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * @return An installation of the given release, which otherwise has the same properties, e.g. for sharing caches,
+     * as the given installation.
+     */
+    private static GolangInstallation getInstallation(GolangInstallation replaced, String id) {
+        String key = id + '\t' + replaced.getName();
+        GolangInstallation installation = INSTALLATIONS.get(key);
+        if (installation != null) {
+            return installation;
+        }
+
+        List<ToolProperty<?>> properties = new ArrayList<ToolProperty<?>>();
+        for (ToolProperty<?> property : replaced.getProperties()) {
+            if (!(property instanceof InstallSourceProperty)) {
+                properties.add(property);
+            }
+        }
+        try {
+            properties.add(new InstallSourceProperty(Collections.singletonList(new GolangInstaller(id))));
+        } catch (IOException e) {
+            // Not thrown when creating a property
+            throw new IllegalStateException(e);
+        }
+        installation = new GolangInstallation("go" + id + "-toolchain", null, properties);
+        GolangInstallation existing = INSTALLATIONS.putIfAbsent(key, installation);
+        return existing == null ? installation : existing;
+    }
+
+    /** Forgets the installations created for {@code go.mod} files, e.g. because the Go installations have changed. */
+    static void clear() {
+        INSTALLATIONS.clear();
+    }
+
+}
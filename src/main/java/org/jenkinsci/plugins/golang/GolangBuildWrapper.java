@@ -9,54 +9,159 @@ import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
 import hudson.model.BuildListener;
 import hudson.model.Computer;
+import hudson.model.Node;
 import hudson.tasks.BuildWrapper;
 import hudson.tasks.BuildWrapperDescriptor;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
 
 public class GolangBuildWrapper extends BuildWrapper {
 
     private final String goVersion;
 
+    private boolean cacheSnapshots;
+
+    private boolean toolchainFromGoMod;
+
     @DataBoundConstructor
     public GolangBuildWrapper(String goVersion) {
         this.goVersion = goVersion;
     }
 
+    /** @return Whether the Go caches should be restored from, and saved to, the controller around each build. */
+    public boolean isCacheSnapshots() {
+        return cacheSnapshots;
+    }
+
+    @DataBoundSetter
+    public void setCacheSnapshots(boolean cacheSnapshots) {
+        this.cacheSnapshots = cacheSnapshots;
+    }
+
+    /** @return Whether the Go version required by the workspace's {@code go.mod} should be installed, if different. */
+    public boolean isToolchainFromGoMod() {
+        return toolchainFromGoMod;
+    }
+
+    @DataBoundSetter
+    public void setToolchainFromGoMod(boolean toolchainFromGoMod) {
+        this.toolchainFromGoMod = toolchainFromGoMod;
+    }
+
     @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
     public Environment setUp(AbstractBuild build, Launcher launcher, BuildListener listener) throws IOException, InterruptedException {
+        long started = System.nanoTime();
         GolangInstallation installation = getGoInstallation();
+        final Node node = Computer.currentComputer().getNode();
         if (installation != null) {
-            EnvVars env = build.getEnvironment(listener);
-            env.overrideAll(build.getBuildVariables());
-
             // Get the Go version for this node, installing it if necessary
-            installation = installation.forNode(Computer.currentComputer().getNode(), listener).forEnvironment(env);
+            installation = TranslatedInstallations.forNode(installation, node, listener);
+
+            // The build's environment is only needed if the installation's location refers to it
+            if (installation.requiresEnvironment()) {
+                EnvVars env = build.getEnvironment(listener);
+                env.overrideAll(build.getBuildVariables());
+                installation = installation.forEnvironment(env);
+            }
+        }
+
+        // Provide the Go version required by go.mod, so that the go command doesn't need to download it itself
+        boolean localToolchain = false;
+        if (installation != null && toolchainFromGoMod && build.getWorkspace() != null) {
+            GolangInstallation required = GoModToolchain.select(installation, node, build.getWorkspace(), listener);
+            if (required != null) {
+                installation = required;
+                localToolchain = true;
+            }
+        }
+
+        // Register our use of the shared Go caches, if enabled, so that they won't be trimmed during the build
+        final GolangCachesProperty caches = installation == null ? null
+                : installation.getProperties().get(GolangCachesProperty.class);
+        if (caches != null) {
+            SharedCaches.acquire(node, installation.getHome());
+        }
+
+        // Restore the Go caches from the controller, if enabled; if anything fails from here on, such as the build
+        // being aborted, the caches must be released again, or they'd never be trimmed
+        final GolangConfiguration config = GolangConfiguration.get();
+        CacheSnapshots.Snapshot restored = null;
+        boolean setUp = false;
+        try {
+            if (cacheSnapshots && installation != null && config != null && build.getWorkspace() != null) {
+                try {
+                    restored = CacheSnapshots.restore(config.getCacheSnapshotStore(), build.getParent().getFullName(),
+                            node, build.getWorkspace(), installation.getHome(), listener);
+                } catch (IOException e) {
+                    listener.getLogger().println(Messages.CouldNotRestoreCacheSnapshot(e.getMessage()));
+                }
+            }
+
+            if (installation != null) {
+                long elapsed = System.nanoTime() - started;
+                GolangMetrics.time(GolangMetrics.BUILD_SETUP, elapsed);
+                listener.getLogger().println(Messages.SetUpGoInBuild(installation.getName(),
+                        InstallationTimings.formatDuration(elapsed)));
+
+                // Stop the installation from being removed from the node while the build is using it
+                InstallationUsage.acquire(node, installation.getHome());
+            }
+            setUp = true;
+        } finally {
+            if (caches != null && !setUp) {
+                SharedCaches.release(node, installation.getHome(), caches.getMaxSizeMb(), listener);
+            }
         }
 
         // Apply the GOROOT and go binaries to PATH
         final GolangInstallation install = installation;
+        final CacheSnapshots.Snapshot snapshot = restored;
+        final boolean pinToolchain = localToolchain;
         return new Environment() {
             @Override
             public void buildEnvVars(Map<String, String> env) {
                 if (install != null) {
                     EnvVars envVars = new EnvVars();
                     install.buildEnvVars(envVars);
+                    if (snapshot != null) {
+                        envVars.put("GOCACHE", GolangCachesProperty.getBuildCache(install.getHome()));
+                        envVars.put("GOMODCACHE", GolangCachesProperty.getModuleCache(install.getHome()));
+                    }
+                    if (pinToolchain) {
+                        envVars.put("GOTOOLCHAIN", GoModToolchain.LOCAL);
+                    }
                     env.putAll(envVars);
                 }
             }
+
+            @Override
+            public boolean tearDown(AbstractBuild build, BuildListener listener) throws IOException,
+                    InterruptedException {
+                try {
+                    if (snapshot != null) {
+                        CacheSnapshots.save(config.getCacheSnapshotStore(), node, snapshot, listener);
+                    }
+                } catch (IOException e) {
+                    listener.getLogger().println(Messages.CouldNotSaveCacheSnapshot(e.getMessage()));
+                } finally {
+                    if (install != null) {
+                        InstallationUsage.release(node, install.getHome());
+                    }
+                    if (caches != null) {
+                        SharedCaches.release(node, install.getHome(), caches.getMaxSizeMb(), listener);
+                    }
+                }
+                return true;
+            }
         };
     }
 
     private GolangInstallation getGoInstallation() {
-        for (GolangInstallation i : ((DescriptorImpl) getDescriptor()).getInstallations()) {
-            if (i.getName().equals(goVersion)) {
-                return i;
-            }
-        }
-        return null;
+        return ((DescriptorImpl) getDescriptor()).getInstallation(goVersion);
     }
 
     @Extension
@@ -65,6 +170,9 @@ public class GolangBuildWrapper extends BuildWrapper {
         @CopyOnWrite
         private volatile GolangInstallation[] installations = new GolangInstallation[0];
 
+        /** The first of {@link #installations} with each name; rebuilt whenever the installations change. */
+        private transient volatile Map<String, GolangInstallation> installationsByName;
+
         public DescriptorImpl() {
             load();
         }
@@ -86,9 +194,33 @@ public class GolangBuildWrapper extends BuildWrapper {
 
         public void setInstallations(GolangInstallation... installations) {
             this.installations = installations;
+            this.installationsByName = index(installations);
+            TranslatedInstallations.clear();
+            GoModToolchain.clear();
             save();
         }
 
+        /** @return The installation with the given name, or {@code null} if there is none. */
+        GolangInstallation getInstallation(String name) {
+            Map<String, GolangInstallation> byName = installationsByName;
+            if (byName == null) {
+                // Installations were loaded from disk
+                byName = index(installations);
+                installationsByName = byName;
+            }
+            return name == null ? null : byName.get(name);
+        }
+
+        private static Map<String, GolangInstallation> index(GolangInstallation[] installations) {
+            Map<String, GolangInstallation> byName = new HashMap<String, GolangInstallation>();
+            for (GolangInstallation i : installations) {
+                if (!byName.containsKey(i.getName())) {
+                    byName.put(i.getName(), i);
+                }
+            }
+            return byName;
+        }
+
     }
 
 }
@@ -0,0 +1,90 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Extension;
+import hudson.tools.ToolInstallation;
+import hudson.tools.ToolProperty;
+import hudson.tools.ToolPropertyDescriptor;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * Gives builds using a Go installation a module cache ({@code GOMODCACHE}) and build cache ({@code GOCACHE}) which are
+ * shared between all builds on the same node which use the same Go installation.
+ * <p>
+ * The caches live alongside the installation directory, rather than within it, so that each installed Go version on
+ * each node has its own caches, which survive the installation being upgraded, replaced or removed while builds may
+ * still be using them.
+ */
+public class GolangCachesProperty extends ToolProperty<GolangInstallation> {
+
+    static final long DEFAULT_MAX_SIZE_MB = 10240;
+
+    /**
+     * Directory alongside the Go installations in which their caches are kept, in a subdirectory named after each
+     * installation directory; its name starts with a dot so that it isn't mistaken for an installation.
+     */
+    static final String CACHE_DIRECTORY = ".golang-caches";
+
+    private final long maxSizeMb;
+
+    @DataBoundConstructor
+    public GolangCachesProperty(long maxSizeMb) {
+        this.maxSizeMb = maxSizeMb;
+    }
+
+    /** @return Size, in megabytes, which the caches may grow to before being trimmed; zero if unlimited. */
+    public long getMaxSizeMb() {
+        return maxSizeMb;
+    }
+
+    @Override
+    public Class<GolangInstallation> type() {
+        return GolangInstallation.class;
+    }
+
+    /**
+     * Paths are on the node, whose platform may differ from the controller's, so they're built using the separator
+     * the given path uses, as {@link hudson.FilePath} does, rather than with {@link java.io.File}.
+     *
+     * @return The directory containing the caches for the Go installation at the given location.
+     */
+    static String getCacheRoot(String home) {
+        String dir = home;
+        while (dir.length() > 1 && (dir.endsWith("/") || dir.endsWith("\\"))) {
+            dir = dir.substring(0, dir.length() - 1);
+        }
+        int end = Math.max(dir.lastIndexOf('/'), dir.lastIndexOf('\\'));
+        String parent = dir.substring(0, end + 1);
+        return child(parent + CACHE_DIRECTORY, dir.substring(end + 1));
+    }
+
+    /** @return The {@code GOCACHE} directory for the Go installation at the given location. */
+    static String getBuildCache(String home) {
+        return child(getCacheRoot(home), "build");
+    }
+
+    /** @return The {@code GOMODCACHE} directory for the Go installation at the given location. */
+    static String getModuleCache(String home) {
+        return child(getCacheRoot(home), "mod");
+    }
+
+    /** @return The given path on the node, with the given name appended using the path's own separator. */
+    private static String child(String path, String name) {
+        return path + (path.indexOf('\\') >= 0 ? '\\' : '/') + name;
+    }
+
+    @Extension
+    public static class DescriptorImpl extends ToolPropertyDescriptor {
+
+        @Override
+        public String getDisplayName() {
+            return Messages.ShareGoCaches();
+        }
+
+        @Override
+        public boolean isApplicable(Class<? extends ToolInstallation> toolType) {
+            return toolType == GolangInstallation.class;
+        }
+
+    }
+
+}
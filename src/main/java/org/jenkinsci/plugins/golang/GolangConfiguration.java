@@ -0,0 +1,280 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Extension;
+import hudson.Util;
+import jenkins.model.GlobalConfiguration;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.StaplerRequest;
+
+import java.io.File;
+
+/** Global settings which control how Go is installed onto nodes. */
+@Extension
+@Symbol("golang")
+public class GolangConfiguration extends GlobalConfiguration {
+
+    static final long DEFAULT_ARCHIVE_CACHE_SIZE_MB = 2048;
+    static final long DEFAULT_INSTALLATION_CHECK_INTERVAL_MINUTES = 5;
+    static final long DEFAULT_CACHE_SNAPSHOT_RETENTION_DAYS = 14;
+
+    private boolean archiveCacheEnabled;
+    private String archiveCacheDirectory;
+    private long archiveCacheSizeMb = DEFAULT_ARCHIVE_CACHE_SIZE_MB;
+    private boolean archiveCacheSharedWithAgents;
+    private long installationCheckIntervalMinutes = DEFAULT_INSTALLATION_CHECK_INTERVAL_MINUTES;
+    private String cacheSnapshotDirectory;
+    private long cacheSnapshotRetentionDays = DEFAULT_CACHE_SNAPSHOT_RETENTION_DAYS;
+    private int provisioningParallelism = GolangProvisioner.DEFAULT_PARALLELISM;
+    private String provisioningInstallations;
+    private String provisioningLabel;
+    private long provisioningIntervalMinutes;
+    private boolean provisionOnConnect;
+    private boolean deduplicateInstallations;
+    private int archiveDownloadConnections = 1;
+    private String mirrorDirectory;
+    private int maxConcurrentInstallations;
+    private long downloadRateLimitMbPerSecond;
+    private long installationDiskBudgetMb;
+    private long unusedInstallationRetentionDays;
+
+    private transient volatile ArchiveCache archiveCache;
+
+    public GolangConfiguration() {
+        load();
+    }
+
+    /** @return The global Go configuration, or {@code null} if Jenkins is not running. */
+    static GolangConfiguration get() {
+        return GlobalConfiguration.all().get(GolangConfiguration.class);
+    }
+
+    public boolean isArchiveCacheEnabled() {
+        return archiveCacheEnabled;
+    }
+
+    @DataBoundSetter
+    public void setArchiveCacheEnabled(boolean archiveCacheEnabled) {
+        this.archiveCacheEnabled = archiveCacheEnabled;
+        archiveCache = null;
+    }
+
+    public String getArchiveCacheDirectory() {
+        return archiveCacheDirectory;
+    }
+
+    @DataBoundSetter
+    public void setArchiveCacheDirectory(String archiveCacheDirectory) {
+        this.archiveCacheDirectory = Util.fixEmptyAndTrim(archiveCacheDirectory);
+        archiveCache = null;
+    }
+
+    public long getArchiveCacheSizeMb() {
+        return archiveCacheSizeMb;
+    }
+
+    @DataBoundSetter
+    public void setArchiveCacheSizeMb(long archiveCacheSizeMb) {
+        this.archiveCacheSizeMb = archiveCacheSizeMb > 0 ? archiveCacheSizeMb : DEFAULT_ARCHIVE_CACHE_SIZE_MB;
+        archiveCache = null;
+    }
+
+    /** @return Number of connections over which each archive is downloaded into the archive cache in parallel. */
+    public int getArchiveDownloadConnections() {
+        return archiveDownloadConnections;
+    }
+
+    @DataBoundSetter
+    public void setArchiveDownloadConnections(int archiveDownloadConnections) {
+        this.archiveDownloadConnections = Math.max(1, archiveDownloadConnections);
+        archiveCache = null;
+    }
+
+    public boolean isArchiveCacheSharedWithAgents() {
+        return archiveCacheSharedWithAgents;
+    }
+
+    @DataBoundSetter
+    public void setArchiveCacheSharedWithAgents(boolean archiveCacheSharedWithAgents) {
+        this.archiveCacheSharedWithAgents = archiveCacheSharedWithAgents;
+    }
+
+    /** @return How long an installation may be assumed to be up-to-date, before checking the node again. */
+    public long getInstallationCheckIntervalMinutes() {
+        return installationCheckIntervalMinutes;
+    }
+
+    @DataBoundSetter
+    public void setInstallationCheckIntervalMinutes(long installationCheckIntervalMinutes) {
+        this.installationCheckIntervalMinutes = Math.max(0, installationCheckIntervalMinutes);
+    }
+
+    public String getCacheSnapshotDirectory() {
+        return cacheSnapshotDirectory;
+    }
+
+    @DataBoundSetter
+    public void setCacheSnapshotDirectory(String cacheSnapshotDirectory) {
+        this.cacheSnapshotDirectory = Util.fixEmptyAndTrim(cacheSnapshotDirectory);
+    }
+
+    /** @return How long cache snapshots are kept on the controller after they were last restored or saved. */
+    public long getCacheSnapshotRetentionDays() {
+        return cacheSnapshotRetentionDays;
+    }
+
+    @DataBoundSetter
+    public void setCacheSnapshotRetentionDays(long cacheSnapshotRetentionDays) {
+        this.cacheSnapshotRetentionDays = cacheSnapshotRetentionDays > 0 ? cacheSnapshotRetentionDays
+                : DEFAULT_CACHE_SNAPSHOT_RETENTION_DAYS;
+    }
+
+    /** @return The maximum number of installations to carry out at once when installing Go ahead of time. */
+    public int getProvisioningParallelism() {
+        return provisioningParallelism;
+    }
+
+    @DataBoundSetter
+    public void setProvisioningParallelism(int provisioningParallelism) {
+        this.provisioningParallelism = provisioningParallelism > 0 ? provisioningParallelism
+                : GolangProvisioner.DEFAULT_PARALLELISM;
+    }
+
+    /** @return Names of the installations to install ahead of time, or {@code null} for all installations. */
+    public String getProvisioningInstallations() {
+        return provisioningInstallations;
+    }
+
+    @DataBoundSetter
+    public void setProvisioningInstallations(String provisioningInstallations) {
+        this.provisioningInstallations = Util.fixEmptyAndTrim(provisioningInstallations);
+    }
+
+    /** @return Label expression for the nodes to install Go on ahead of time, or {@code null} for all nodes. */
+    public String getProvisioningLabel() {
+        return provisioningLabel;
+    }
+
+    @DataBoundSetter
+    public void setProvisioningLabel(String provisioningLabel) {
+        this.provisioningLabel = Util.fixEmptyAndTrim(provisioningLabel);
+    }
+
+    /** @return How often to install Go onto all matching nodes; zero if this should not happen periodically. */
+    public long getProvisioningIntervalMinutes() {
+        return provisioningIntervalMinutes;
+    }
+
+    @DataBoundSetter
+    public void setProvisioningIntervalMinutes(long provisioningIntervalMinutes) {
+        this.provisioningIntervalMinutes = Math.max(0, provisioningIntervalMinutes);
+    }
+
+    /** @return Whether Go should be installed onto matching nodes as soon as they connect. */
+    public boolean isProvisionOnConnect() {
+        return provisionOnConnect;
+    }
+
+    @DataBoundSetter
+    public void setProvisionOnConnect(boolean provisionOnConnect) {
+        this.provisionOnConnect = provisionOnConnect;
+    }
+
+    /** @return Whether files which are identical between Go installations on a node should be stored only once. */
+    public boolean isDeduplicateInstallations() {
+        return deduplicateInstallations;
+    }
+
+    @DataBoundSetter
+    public void setDeduplicateInstallations(boolean deduplicateInstallations) {
+        this.deduplicateInstallations = deduplicateInstallations;
+    }
+
+    /** @return Directory on the controller containing Go archives to install from, or {@code null} if not used. */
+    public String getMirrorDirectory() {
+        return mirrorDirectory;
+    }
+
+    @DataBoundSetter
+    public void setMirrorDirectory(String mirrorDirectory) {
+        this.mirrorDirectory = Util.fixEmptyAndTrim(mirrorDirectory);
+    }
+
+    /** @return The maximum number of installations to carry out at once across all nodes; zero if unlimited. */
+    public int getMaxConcurrentInstallations() {
+        return maxConcurrentInstallations;
+    }
+
+    @DataBoundSetter
+    public void setMaxConcurrentInstallations(int maxConcurrentInstallations) {
+        this.maxConcurrentInstallations = Math.max(0, maxConcurrentInstallations);
+    }
+
+    /** @return The maximum combined rate at which Go archives are downloaded, in MB per second; zero if unlimited. */
+    public long getDownloadRateLimitMbPerSecond() {
+        return downloadRateLimitMbPerSecond;
+    }
+
+    @DataBoundSetter
+    public void setDownloadRateLimitMbPerSecond(long downloadRateLimitMbPerSecond) {
+        this.downloadRateLimitMbPerSecond = Math.max(0, downloadRateLimitMbPerSecond);
+    }
+
+    /** @return Disk space which Go installations on each node should not exceed, in MB; zero if unlimited. */
+    public long getInstallationDiskBudgetMb() {
+        return installationDiskBudgetMb;
+    }
+
+    @DataBoundSetter
+    public void setInstallationDiskBudgetMb(long installationDiskBudgetMb) {
+        this.installationDiskBudgetMb = Math.max(0, installationDiskBudgetMb);
+    }
+
+    /** @return How long to keep installations which are no longer configured after their last use; zero if forever. */
+    public long getUnusedInstallationRetentionDays() {
+        return unusedInstallationRetentionDays;
+    }
+
+    @DataBoundSetter
+    public void setUnusedInstallationRetentionDays(long unusedInstallationRetentionDays) {
+        this.unusedInstallationRetentionDays = Math.max(0, unusedInstallationRetentionDays);
+    }
+
+    /** @return Whether Go installations should ever be removed from nodes. */
+    boolean isInstallationEvictionEnabled() {
+        return installationDiskBudgetMb > 0 || unusedInstallationRetentionDays > 0;
+    }
+
+    /** @return The store in which snapshots of Go caches from builds are kept. */
+    CacheSnapshotStore getCacheSnapshotStore() {
+        return new CacheSnapshotStore(cacheSnapshotDirectory == null
+                ? new File(Jenkins.getActiveInstance().getRootDir(), "caches/golang-snapshots")
+                : new File(cacheSnapshotDirectory));
+    }
+
+    /** @return The controller-side cache of Go archives, or {@code null} if archives should not be cached. */
+    ArchiveCache getArchiveCache() {
+        if (!archiveCacheEnabled) {
+            return null;
+        }
+        ArchiveCache cache = archiveCache;
+        if (cache == null) {
+            File directory = archiveCacheDirectory == null
+                    ? new File(Jenkins.getActiveInstance().getRootDir(), "caches/golang-archives")
+                    : new File(archiveCacheDirectory);
+            cache = new ArchiveCache(directory, archiveCacheSizeMb * 1024 * 1024, archiveDownloadConnections);
+            archiveCache = cache;
+        }
+        return cache;
+    }
+
+    @Override
+    public boolean configure(StaplerRequest req, JSONObject json) {
+        req.bindJSON(this, json);
+        save();
+        return true;
+    }
+
+}
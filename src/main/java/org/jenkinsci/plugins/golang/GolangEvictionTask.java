@@ -0,0 +1,209 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Computer;
+import hudson.model.Executor;
+import hudson.model.Job;
+import hudson.model.Node;
+import hudson.model.Queue;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import jenkins.model.Jenkins;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Periodically removes Go installations from nodes which are no longer configured, or which exceed the configured disk
+ * space budget, least recently used first, if enabled.
+ */
+@Extension
+public class GolangEvictionTask extends AsyncPeriodicWork {
+
+    /** How recently an installation must not have been used for it to be removed, in case a build is about to. */
+    static final long MIN_IDLE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /** How many of a job's most recent builds are checked to find which are running. */
+    private static final int MAX_BUILDS_CHECKED = 50;
+
+    public GolangEvictionTask() {
+        super("Go installation eviction");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return TimeUnit.HOURS.toMillis(1);
+    }
+
+    @Override
+    protected void execute(TaskListener listener) throws InterruptedException {
+        GolangConfiguration config = GolangConfiguration.get();
+        if (config == null || !config.isInstallationEvictionEnabled()) {
+            return;
+        }
+        Set<String> configured = getConfiguredDirectoryNames();
+        List<Node> nodes = new ArrayList<Node>();
+        nodes.add(Jenkins.getActiveInstance());
+        nodes.addAll(Jenkins.getActiveInstance().getNodes());
+        for (Node node : nodes) {
+            try {
+                evict(node, configured, config, listener);
+            } catch (IOException e) {
+                listener.error("Could not remove unused Go installations from " + node.getDisplayName() + ": " + e);
+            }
+        }
+    }
+
+    static void evict(Node node, Set<String> configured, GolangConfiguration config, TaskListener listener)
+            throws IOException, InterruptedException {
+        FilePath dir = getInstallationsDirectory(node);
+        Computer computer = node.toComputer();
+        if (dir == null || computer == null || computer.isOffline() || !dir.exists()) {
+            return;
+        }
+
+        // Not every build takes a lease, e.g. those using the `tool` step, so keep whatever running builds may be using
+        long oldestBuild = getOldestBuildStart(computer);
+        if (oldestBuild < InstallationUsage.STARTED) {
+            // Builds which resumed after a restart may be using installations whose use before then wasn't recorded
+            listener.getLogger().println("Not removing Go installations from " + node.getDisplayName()
+                    + " while builds started before Jenkins was restarted are running");
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long unusedSince = Math.min(now - MIN_IDLE_MILLIS, oldestBuild);
+        EvictGoInstallations.Result result = dir.act(new EvictGoInstallations(InstallationUsage.getLastUsed(node),
+                configured, InstallationUsage.getInUse(node), unusedSince,
+                TimeUnit.DAYS.toMillis(config.getUnusedInstallationRetentionDays()),
+                config.getInstallationDiskBudgetMb() * 1024 * 1024));
+
+        List<String> evicted = new ArrayList<String>();
+        long freedBytes = 0;
+        for (Map.Entry<String, Long> candidate : result.evictable.entrySet()) {
+            if (remove(node, new FilePath(dir, candidate.getKey()), unusedSince)) {
+                evicted.add(candidate.getKey());
+                freedBytes += candidate.getValue();
+            }
+        }
+        if (evicted.isEmpty()) {
+            return;
+        }
+
+        try {
+            dir.act(new EvictGoInstallations.CollectGarbage());
+        } catch (IOException e) {
+            listener.error("Could not remove unused files from the Go installation store on " + node.getDisplayName()
+                    + ": " + e);
+        }
+        listener.getLogger().printf("Removed %d Go installations (%d MB) from %s: %s%n", evicted.size(),
+                freedBytes / (1024 * 1024), node.getDisplayName(), evicted);
+    }
+
+    /**
+     * Removes the given installation from the node, unless a build is installing it, or has started using it since it
+     * was found to be unused.
+     *
+     * @return Whether the installation was removed.
+     */
+    private static boolean remove(Node node, FilePath installation, long unusedSince)
+            throws IOException, InterruptedException {
+        // Builds hold this lock while installing, and while recording their use of an installation
+        Lock lock = InstallationLocks.get(node, installation);
+        if (!lock.tryLock()) {
+            return false;
+        }
+        try {
+            String path = installation.getRemote();
+            Long lastUsed = InstallationUsage.getLastUsed(node).get(path);
+            if (InstallationUsage.getInUse(node).contains(path) || lastUsed != null && lastUsed >= unusedSince) {
+                return false;
+            }
+            if (!installation.act(new EvictGoInstallations.Remove())) {
+                return false;
+            }
+
+            // Make sure that the next build using it checks the node, and so installs it again
+            InstallationRecords.invalidate(node, installation);
+            Computer computer = node.toComputer();
+            if (computer != null) {
+                TranslatedInstallations.forget(computer);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return When the oldest build running on the given computer started, or {@link Long#MAX_VALUE} if there are
+     * none; for Pipeline builds, this is the start of the build, rather than of the {@code node} block.
+     */
+    static long getOldestBuildStart(Computer computer) {
+        long oldest = Long.MAX_VALUE;
+        for (Executor executor : computer.getAllExecutors()) {
+            Queue.Executable executable = executor.getCurrentExecutable();
+            if (executable == null) {
+                continue;
+            }
+            long start = getStart(executable);
+            if (start < 0) {
+                start = System.currentTimeMillis() - executor.getElapsedTime();
+            }
+            oldest = Math.min(oldest, start);
+        }
+        return oldest;
+    }
+
+    /** @return When the build to which the given executable belongs started, or {@code -1} if that's not known. */
+    private static long getStart(Queue.Executable executable) {
+        if (executable instanceof Run) {
+            return ((Run<?, ?>) executable).getStartTimeInMillis();
+        }
+        // e.g. a Pipeline `node` block, which belongs to whichever of the job's running builds requested it
+        Queue.Task owner = executable.getParent().getOwnerTask();
+        if (!(owner instanceof Job)) {
+            return -1;
+        }
+        long oldest = -1;
+        Run<?, ?> run = ((Job<?, ?>) owner).getLastBuild();
+        for (int i = 0; run != null && i < MAX_BUILDS_CHECKED; i++, run = run.getPreviousBuild()) {
+            if (run.isBuilding()) {
+                oldest = run.getStartTimeInMillis();
+            }
+        }
+        return oldest;
+    }
+
+    /**
+     * @return The directory into which Go installations are installed on the given node by default, as per
+     * {@link hudson.tools.ToolInstaller#preferredLocation}; or {@code null} if the node is offline.
+     */
+    static FilePath getInstallationsDirectory(Node node) {
+        FilePath root = node.getRootPath();
+        return root == null ? null : root.child("tools").child(sanitize(GolangInstallation.class.getName()));
+    }
+
+    /** @return The names of the installation directories of the installations which are currently configured. */
+    static Set<String> getConfiguredDirectoryNames() {
+        Set<String> names = new HashSet<String>();
+        for (GolangInstallation installation : Jenkins.getActiveInstance()
+                .getDescriptorByType(GolangBuildWrapper.DescriptorImpl.class).getInstallations()) {
+            names.add(sanitize(installation.getName()));
+        }
+        return names;
+    }
+
+    /** Makes the given name safe to use as a directory name, in the same way as {@code ToolInstaller} does. */
+    static String sanitize(String name) {
+        return name.replaceAll("[^A-Za-z0-9_.-]+", "_");
+    }
+
+}
@@ -33,15 +33,32 @@ public class GolangInstallation extends ToolInstallation implements EnvironmentS
         if (root != null) {
             env.put("GOROOT", root);
             env.put("PATH+GOROOT_BIN", new File(root, "bin").toString());
+            if (getProperties().get(GolangCachesProperty.class) != null) {
+                env.put("GOCACHE", GolangCachesProperty.getBuildCache(root));
+                env.put("GOMODCACHE", GolangCachesProperty.getModuleCache(root));
+            }
         }
     }
 
     public GolangInstallation forEnvironment(EnvVars environment) {
+        if (!requiresEnvironment()) {
+            return this;
+        }
         return new GolangInstallation(getName(), environment.expand(getHome()), getProperties().toList());
     }
 
+    /** @return Whether the home directory refers to any variables, i.e. whether {@link #forEnvironment} is needed. */
+    boolean requiresEnvironment() {
+        String home = getHome();
+        return home != null && home.indexOf('$') >= 0;
+    }
+
     public GolangInstallation forNode(Node node, TaskListener log) throws IOException, InterruptedException {
-        return new GolangInstallation(getName(), translateFor(node, log), getProperties().toList());
+        String home = translateFor(node, log);
+        if (home != null && home.equals(getHome())) {
+            return this;
+        }
+        return new GolangInstallation(getName(), home, getProperties().toList());
     }
 
     @Extension
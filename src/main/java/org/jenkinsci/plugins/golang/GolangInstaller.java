@@ -10,36 +10,63 @@ import hudson.model.TaskListener;
 import hudson.tools.DownloadFromUrlInstaller;
 import hudson.tools.ToolInstallation;
 import hudson.tools.ToolInstallerDescriptor;
+import hudson.util.ListBoxModel;
 import hudson.util.VersionNumber;
 import jenkins.security.MasterToSlaveCallable;
 import net.sf.json.JSONObject;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
 import java.net.URL;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
 
 /** Installs the Go programming language tools by downloading the archive for the detected OS/architecture combo. */
 public class GolangInstaller extends DownloadFromUrlInstaller {
 
+    /** Which releases to offer in the configuration UI; only affects which versions can be chosen. */
+    private ReleaseFilter releaseFilter;
+
     @DataBoundConstructor
     public GolangInstaller(String id) {
         super(id);
     }
 
+    public ReleaseFilter getReleaseFilter() {
+        return releaseFilter == null ? ReleaseFilter.STABLE : releaseFilter;
+    }
+
+    @DataBoundSetter
+    public void setReleaseFilter(ReleaseFilter releaseFilter) {
+        this.releaseFilter = releaseFilter;
+    }
+
     // This is essentially the parent implementation, but we override it so we can pass Node into getInstallable()
     public FilePath performInstallation(ToolInstallation tool, Node node, TaskListener log) throws IOException,
             InterruptedException {
         FilePath expectedPath = preferredLocation(tool, node);
+        InstallationUsage.startUsing(node, expectedPath.getRemote(), log);
+        InstallationTimings timings = new InstallationTimings();
 
-        Installable installable;
+        GolangInstallable installable;
+        long started = System.nanoTime();
         try {
-            installable = getInstallable(node);
+            installable = getInstallable(node, log);
+            timings.add(InstallationTimings.RESOLVE, System.nanoTime() - started);
         } catch (InstallationFailedException e) {
             throw new InstallationFailedException(Messages.CouldNotInstallGo(e.getMessage()));
         }
@@ -49,74 +76,273 @@ public class GolangInstaller extends DownloadFromUrlInstaller {
             return expectedPath;
         }
 
-        if (isUpToDate(expectedPath, installable)) {
+        // Avoid checking the node, if we already know that this installation is up-to-date
+        if (InstallationRecords.isVerified(node, expectedPath, installable.url)) {
             return expectedPath;
         }
 
-        String message = Messages.InstallingGoOnNode(installable.url, expectedPath, node.getDisplayName());
-        if (expectedPath.installIfNecessaryFrom(new URL(installable.url), log, message)) {
-            expectedPath.child(".timestamp").delete(); // we don't use the timestamp
-            FilePath base = findPullUpDirectory(expectedPath);
-            if (base != null && base != expectedPath)
-                base.moveAllChildrenTo(expectedPath);
-            // leave a record for the next up-to-date check
-            expectedPath.child(".installedFrom").write(installable.url, "UTF-8");
+        // When the node downloads the archive itself, it checks whether the installation is up-to-date as part of
+        // installing, saving a round trip; otherwise, check first so that we don't fetch the archive needlessly
+        GolangConfiguration config = GolangConfiguration.get();
+        boolean checkWhileInstalling = isLocal(installable)
+                ? isReadableOn(node, expectedPath, new URL(installable.url))
+                : (config == null || config.getArchiveCache() == null) && !InstallScheduler.isRateLimitedByController();
+        if (!checkWhileInstalling && isUpToDate(expectedPath, installable, timings)) {
+            InstallationRecords.verified(node, expectedPath, installable.url);
+            return expectedPath;
         }
 
+        // Only one build at a time may install into this location; any others wait for it to finish, and then find
+        // that the installation is already up-to-date
+        Lock lock = InstallationLocks.get(node, expectedPath);
+        if (!lock.tryLock()) {
+            log.getLogger().println(Messages.WaitingForInstallation(expectedPath, node.getDisplayName()));
+            lock.lockInterruptibly();
+        }
+        try {
+            // When an alias moves, running builds may still be using the previous release in this location
+            boolean inUse = ReleaseAliases.isAlias(id)
+                    && InstallationUsage.getInUse(node).contains(expectedPath.getRemote());
+            // If we'd have to queue for an installation slot, check first, rather than queueing needlessly
+            boolean checkFirst = !checkWhileInstalling || InstallScheduler.isBusy() || inUse;
+            if (!checkFirst || !isUpToDate(expectedPath, installable, timings)) {
+                if (inUse && expectedPath.child(UnpackGoArchive.INSTALLED_FROM).exists()) {
+                    // Keep using the previous release, rather than replacing it under the running builds
+                    log.getLogger().println(Messages.DeferredAliasUpgrade(installable.url, expectedPath,
+                            node.getDisplayName()));
+                    return expectedPath;
+                }
+                InstallationRecords.invalidate(node, expectedPath);
+                long queued = System.nanoTime();
+                InstallScheduler.Permit permit = InstallScheduler.acquire(node, log);
+                if (permit.wasQueued()) {
+                    timings.add(InstallationTimings.QUEUE, System.nanoTime() - queued);
+                }
+                try {
+                    install(installable, node, expectedPath, log, timings, !checkFirst);
+                } finally {
+                    permit.release();
+                }
+            }
+            InstallationRecords.verified(node, expectedPath, installable.url);
+        } finally {
+            lock.unlock();
+        }
+
+        report(node, timings, log);
         return expectedPath;
     }
 
+    private boolean isUpToDate(FilePath expectedPath, GolangInstallable installable, InstallationTimings timings)
+            throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        try {
+            return isUpToDate(expectedPath, installable);
+        } finally {
+            timings.add(InstallationTimings.UP_TO_DATE_CHECK, System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Logs how long each phase of the installation took, and keeps that summary for the Go management page; nothing
+     * is logged if the installation turned out to be up-to-date, though the time taken is still in the metrics.
+     */
+    private static void report(Node node, InstallationTimings timings, TaskListener log) {
+        if (!timings.isInstalled()) {
+            return;
+        }
+        String summary = Messages.GoInstallationTimings(node.getDisplayName(),
+                InstallationTimings.formatDuration(timings.getTotalNanos()), timings.getSummary());
+        log.getLogger().println(summary);
+        GolangMetrics.recordInstallation(node.getDisplayName(), summary);
+    }
+
+    private static void install(GolangInstallable installable, Node node, FilePath expectedPath, TaskListener log,
+                                InstallationTimings timings, boolean onlyIfOutdated)
+            throws IOException, InterruptedException {
+        String message = Messages.InstallingGoOnNode(installable.url, expectedPath, node.getDisplayName());
+        GolangConfiguration config = GolangConfiguration.get();
+        // Archives which are already on the controller, e.g. in a local mirror, don't need caching
+        ArchiveCache cache = config == null || isLocal(installable) ? null : config.getArchiveCache();
+        boolean deduplicate = config != null && config.isDeduplicateInstallations();
+        try {
+            if (cache == null) {
+                installFromUrl(installable, deduplicate, onlyIfOutdated, node, expectedPath, log, message, timings);
+            } else {
+                installFromCache(cache, config.isArchiveCacheSharedWithAgents(), installable, deduplicate, node,
+                        expectedPath, log, message, timings);
+            }
+        } catch (ChecksumMismatchException e) {
+            throw new InstallationFailedException(Messages.CouldNotInstallGo(e.getMessage()));
+        }
+    }
+
+    /**
+     * Unpacks the given archive onto the node, downloading it on the node itself if possible.
+     *
+     * @param onlyIfOutdated Whether the node should leave the installation alone if it's already up-to-date.
+     */
+    private static void installFromUrl(GolangInstallable installable, boolean deduplicate, boolean onlyIfOutdated,
+                                       Node node, FilePath expectedPath, TaskListener log, String message,
+                                       InstallationTimings timings) throws IOException, InterruptedException {
+        URL url = new URL(installable.url);
+        // An archive on the controller's filesystem can only be read by agents which can see the same path, and the
+        // download rate limit may only be kept by the controller
+        boolean viaController = isLocal(installable)
+                ? !isReadableOn(node, expectedPath, url) : InstallScheduler.isRateLimitedByController();
+        if (viaController) {
+            log.getLogger().println(message);
+        } else {
+            UnpackGoArchive direct = new UnpackGoArchive(installable, url).deduplicate(deduplicate)
+                    .limitRate(InstallScheduler.getRateLimitPerNode());
+            if (onlyIfOutdated) {
+                direct.onlyIfOutdated(log, message);
+            } else {
+                log.getLogger().println(message);
+            }
+            try {
+                unpack(expectedPath, direct, timings);
+                return;
+            } catch (ChecksumMismatchException e) {
+                throw e;
+            } catch (IOException e) {
+                if (!expectedPath.isRemote()) {
+                    throw e;
+                }
+                // The agent may not have direct internet access, so try again via the controller
+                log.getLogger().println(Messages.DownloadOnAgentFailed(e.getMessage()));
+            }
+        }
+
+        InputStream archive = isLocal(installable)
+                ? url.openStream() : ResumableDownload.open(url, ResumableDownload.PROXY);
+        try (InputStream in = throttle(archive)) {
+            unpack(expectedPath, new UnpackGoArchive(installable, in).deduplicate(deduplicate), timings);
+        }
+    }
+
+    /** Unpacks the given archive onto the node from the controller's archive cache, downloading it if necessary. */
+    private static void installFromCache(ArchiveCache cache, boolean sharedWithAgents, GolangInstallable installable,
+                                         boolean deduplicate, Node node, FilePath expectedPath, TaskListener log,
+                                         String message, InstallationTimings timings)
+            throws IOException, InterruptedException {
+        URL url = new URL(installable.url);
+        long started = System.nanoTime();
+        try (ArchiveCache.CachedArchive cached = cache.fetch(url, log)) {
+            timings.add(InstallationTimings.DOWNLOAD, System.nanoTime() - started);
+            log.getLogger().println(message);
+            File archive = cached.getFile();
+
+            // If the agent can see the cache directory itself, it can unpack the archive without our help
+            if (sharedWithAgents && !InstallScheduler.isRateLimitedByController()) {
+                FilePath shared = node.createPath(archive.getAbsolutePath());
+                if (shared != null && shared.exists()) {
+                    UnpackGoArchive unpack = new UnpackGoArchive(installable, archive.toURI().toURL())
+                            .limitRate(InstallScheduler.getRateLimitPerNode());
+                    unpack(expectedPath, unpack.deduplicate(deduplicate), timings);
+                    return;
+                }
+            }
+
+            // Otherwise, stream the archive to the agent
+            try (InputStream in = throttle(new FileInputStream(archive))) {
+                unpack(expectedPath, new UnpackGoArchive(installable, in).deduplicate(deduplicate), timings);
+            }
+        } catch (ChecksumMismatchException e) {
+            // Don't keep the corrupt archive around
+            cache.invalidate(url);
+            throw e;
+        }
+    }
+
+    /** @return The given stream, limited to the configured download rate, if any, as it's sent from the controller. */
+    private static InputStream throttle(InputStream in) {
+        BandwidthLimiter limiter = InstallScheduler.getBandwidthLimiter();
+        return limiter == null ? in : limiter.wrap(in);
+    }
+
+    /** @return Whether the given {@code file:} URL refers to a file which the node can also read at the same path. */
+    private static boolean isReadableOn(Node node, FilePath expectedPath, URL url)
+            throws IOException, InterruptedException {
+        if (!expectedPath.isRemote()) {
+            return true;
+        }
+        File file;
+        try {
+            file = new File(url.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return false;
+        }
+        FilePath path = node.createPath(file.getAbsolutePath());
+        return path != null && path.exists();
+    }
+
+    /** @return Whether the given archive is on the controller's filesystem, rather than on a server. */
+    static boolean isLocal(GolangInstallable installable) {
+        return installable.url.startsWith("file:");
+    }
+
+    /** Unpacks the archive on the node, recording how long each phase took. */
+    private static void unpack(FilePath expectedPath, UnpackGoArchive unpack, InstallationTimings timings)
+            throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        UnpackGoArchive.Result result = expectedPath.act(unpack);
+        timings.add(result, System.nanoTime() - started);
+    }
+
     @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
-    private Installable getInstallable(Node node) throws IOException, InterruptedException {
+    private GolangInstallable getInstallable(Node node, TaskListener log) throws IOException, InterruptedException {
         // Get the Go release that we want to install
         GolangRelease release = getConfiguredRelease();
         if (release == null) {
             return null;
         }
-
-        // Gather properties for the node to install on
-        String[] properties = node.getChannel().call(new GetSystemProperties("os.name", "os.arch", "os.version"));
+        if (!release.id.equals(id)) {
+            log.getLogger().println(Messages.ResolvedReleaseAlias(id, release.name));
+        }
 
         // Get the best matching install candidate for this node
-        return getInstallCandidate(release, properties[0], properties[1], properties[2]);
+        return getInstallCandidate(release, NodePlatformCache.get(node));
     }
 
     @VisibleForTesting
     static GolangInstallable getInstallCandidate(GolangRelease release, String osName, String osArch, String osVersion)
             throws InstallationFailedException {
-        String platform = getPlatform(osName);
-        String architecture = getArchitecture(osArch);
-
-        // Sort and search for an appropriate variant
-        List<GolangInstallable> variants = Arrays.asList(release.variants);
-        Collections.sort(variants);
-        for (GolangInstallable i : variants) {
-            if (i.os.equals(platform) && i.arch.equals(architecture)) {
-                if (i.osxversion == null) {
+        return getInstallCandidate(release, new NodePlatform(osName, osArch, osVersion));
+    }
+
+    static GolangInstallable getInstallCandidate(GolangRelease release, NodePlatform node)
+            throws InstallationFailedException {
+        String platform = node.getPlatform();
+        String architecture = node.getArchitecture();
+
+        // Pick the first variant, in order of preference, which is compatible with this OS version
+        GolangInstallable[] candidates = release.getCandidates(platform, architecture);
+        if (candidates != null) {
+            for (GolangInstallable i : candidates) {
+                VersionNumber minimumVersion = i.getMinimumOsVersion();
+                if (minimumVersion == null) {
                     return i;
                 }
-                if (new VersionNumber(osVersion).compareTo(new VersionNumber(i.osxversion)) >= 0) {
+                VersionNumber version = node.getOsVersion();
+                if (version != null && version.compareTo(minimumVersion) >= 0) {
                     return i;
                 }
             }
         }
 
-        String osWithVersion = osVersion == null ? osName : String.format("%s %s", osName, osVersion);
-        throw new InstallationFailedException(Messages.NoInstallerForOs(release.name, osWithVersion, osArch));
+        String osWithVersion = node.osVersion == null ? node.osName
+                : String.format("%s %s", node.osName, node.osVersion);
+        throw new InstallationFailedException(Messages.NoInstallerForOs(release.name, osWithVersion, node.osArch));
     }
 
     private GolangRelease getConfiguredRelease() {
-        List<GolangRelease> releases = ((DescriptorImpl) getDescriptor()).getInstallableReleases();
-        if (releases == null) {
+        ReleaseCatalogue catalogue = GolangReleaseSource.getActiveCatalogue();
+        if (catalogue == null) {
             return null;
         }
-
-        for (GolangRelease r : releases) {
-            if (r.id.equals(id)) {
-                return r;
-            }
-        }
-        return null;
+        GolangRelease release = catalogue.getRelease(id);
+        return release != null ? release : ReleaseAliases.resolve(id, catalogue);
     }
 
     @Extension
@@ -125,10 +351,61 @@ public class GolangInstaller extends DownloadFromUrlInstaller {
             return Messages.InstallFromWebsite();
         }
 
-        // Used by config.groovy to show a human-readable list of releases
-        @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
         public List<GolangRelease> getInstallableReleases()  {
-            return GolangReleaseList.all().get(GolangReleaseList.class).toList();
+            ReleaseCatalogue catalogue = GolangReleaseSource.getActiveCatalogue();
+            return catalogue == null ? null : catalogue.releases;
+        }
+
+        // Used by config.groovy to decide whether to show the list of releases
+        public boolean isReleaseListAvailable() {
+            return GolangReleaseSource.getActiveCatalogue() != null;
+        }
+
+        /**
+         * Lists the releases matching the given filter, which is loaded once the configuration page has been shown,
+         * rather than rendering the full list of releases for every installer on the page.
+         *
+         * @param currentId The currently configured release, which is always listed, so that it remains selected.
+         */
+        public ListBoxModel doFillIdItems(@QueryParameter String releaseFilter, @QueryParameter String currentId) {
+            ListBoxModel items = new ListBoxModel();
+            ReleaseCatalogue catalogue = GolangReleaseSource.getActiveCatalogue();
+            if (catalogue == null) {
+                return items;
+            }
+
+            // Offer aliases for the latest releases first, which are updated automatically as new releases come out
+            boolean currentListed = false;
+            List<String> aliases = new ArrayList<String>();
+            aliases.add(ReleaseAliases.LATEST_STABLE);
+            for (GolangRelease release : catalogue.getReleases(ReleaseFilter.RECENT_MINORS)) {
+                String alias = ReleaseFilter.getStableMinorVersion(release) + ReleaseAliases.MINOR_SUFFIX;
+                if (!aliases.contains(alias)) {
+                    aliases.add(alias);
+                }
+            }
+            if (ReleaseAliases.isAlias(currentId) && !aliases.contains(currentId)) {
+                aliases.add(currentId);
+            }
+            for (String alias : aliases) {
+                GolangRelease latest = catalogue.resolveAlias(alias);
+                if (latest != null) {
+                    boolean current = alias.equals(currentId);
+                    currentListed |= current;
+                    items.add(new ListBoxModel.Option(Messages.ReleaseAlias(alias, latest.name), alias, current));
+                }
+            }
+
+            for (GolangRelease release : catalogue.getReleases(ReleaseFilter.of(releaseFilter))) {
+                boolean current = release.id != null && release.id.equals(currentId);
+                currentListed |= current;
+                items.add(new ListBoxModel.Option(release.name, release.id, current));
+            }
+            GolangRelease current = catalogue.getRelease(currentId);
+            if (!currentListed && current != null) {
+                items.add(0, new ListBoxModel.Option(current.name, current.id, true));
+            }
+            return items;
         }
 
         @Override
@@ -147,24 +424,106 @@ public class GolangInstaller extends DownloadFromUrlInstaller {
             super(GolangInstaller.class);
         }
 
-        /** @return A list of available Go releases, obtained by parsing the JSON received from the update centre. */
+        /** @return A list of available Go releases, from the first {@link GolangReleaseSource} which has any. */
         public List<GolangRelease> toList() {
-            JSONObject root;
-            try {
-                root = getData();
-                if (root == null) {
-                    // JSON file has not yet been downloaded by Jenkins
-                    return null;
+            ReleaseCatalogue c = GolangReleaseSource.getActiveCatalogue();
+            return c == null ? null : c.releases;
+        }
+
+        /** @return The release with the given ID, or {@code null} if no such release is known. */
+        public GolangRelease getRelease(String id) {
+            ReleaseCatalogue c = GolangReleaseSource.getActiveCatalogue();
+            return c == null ? null : c.getRelease(id);
+        }
+
+    }
+
+    /** Immutable snapshot of the Go releases available in a given version of the release data. */
+    static final class ReleaseCatalogue {
+
+        /** Modification time of the release data from which this snapshot was parsed. */
+        final long timestamp;
+
+        final List<GolangRelease> releases;
+
+        private final Map<String, GolangRelease> releasesById;
+
+        /** Release which each alias refers to, calculated on demand. */
+        private volatile Map<String, GolangRelease> aliases;
+
+        /** Releases matching each filter, calculated on demand. */
+        private final ConcurrentMap<ReleaseFilter, List<GolangRelease>> filtered =
+                new ConcurrentHashMap<ReleaseFilter, List<GolangRelease>>();
+
+        private ReleaseCatalogue(long timestamp, List<GolangRelease> releases) {
+            this.timestamp = timestamp;
+            this.releases = Collections.unmodifiableList(releases);
+
+            Map<String, GolangRelease> byId = new HashMap<String, GolangRelease>(releases.size() * 2);
+            for (GolangRelease r : releases) {
+                if (r.id != null && !byId.containsKey(r.id)) {
+                    byId.put(r.id, r);
                 }
-            } catch (IOException e) {
-                // JSON parsing exception occurred
-                return null;
             }
+            this.releasesById = byId;
+        }
+
+        GolangRelease getRelease(String id) {
+            return id == null ? null : releasesById.get(id);
+        }
+
+        /**
+         * @return The latest stable release which the given alias, e.g. {@code 1.16.x} or {@code stable}, refers to;
+         * or {@code null} if it's not an alias, or no release matches it.
+         */
+        GolangRelease resolveAlias(String alias) {
+            Map<String, GolangRelease> index = aliases;
+            if (index == null) {
+                index = indexAliases(releases);
+                aliases = index;
+            }
+            return alias == null ? null : index.get(alias);
+        }
 
+        private static Map<String, GolangRelease> indexAliases(List<GolangRelease> releases) {
+            // Releases are usually listed newest first, but don't rely on that
+            Map<String, GolangRelease> index = new HashMap<String, GolangRelease>();
+            Map<String, VersionNumber> versions = new HashMap<String, VersionNumber>();
+            for (GolangRelease release : releases) {
+                String minor = ReleaseFilter.getStableMinorVersion(release);
+                if (minor == null) {
+                    continue;
+                }
+                VersionNumber version = new VersionNumber(release.id);
+                for (String alias : ReleaseAliases.aliasesOf(minor)) {
+                    VersionNumber latest = versions.get(alias);
+                    if (latest == null || version.compareTo(latest) > 0) {
+                        versions.put(alias, version);
+                        index.put(alias, release);
+                    }
+                }
+            }
+            return index;
+        }
+
+        /** @return The releases matching the given filter, in their original order. */
+        List<GolangRelease> getReleases(ReleaseFilter filter) {
+            List<GolangRelease> matches = filtered.get(filter);
+            if (matches == null) {
+                matches = Collections.unmodifiableList(filter.apply(releases));
+                filtered.putIfAbsent(filter, matches);
+            }
+            return matches;
+        }
+
+        static ReleaseCatalogue parse(JSONObject root, long timestamp) {
             Map<String, Class> classMap = new HashMap<String, Class>();
             classMap.put("releases", GolangRelease.class);
             classMap.put("variants", GolangInstallable.class);
-            return ((GolangReleaseList) JSONObject.toBean(root, GolangReleaseList.class, classMap)).releases;
+            List<GolangRelease> releases =
+                    ((GolangReleaseList) JSONObject.toBean(root, GolangReleaseList.class, classMap)).releases;
+            return new ReleaseCatalogue(timestamp,
+                    releases == null ? new ArrayList<GolangRelease>() : new ArrayList<GolangRelease>(releases));
         }
     }
 
@@ -173,6 +532,67 @@ public class GolangInstaller extends DownloadFromUrlInstaller {
         public String id;
         public String name;
         public GolangInstallable[] variants;
+
+        /** Variants of this release, grouped by OS and then CPU architecture, in order of preference. */
+        private transient volatile Map<String, Map<String, GolangInstallable[]>> candidates;
+
+        /**
+         * @return The variants of this release for the given OS and CPU architecture, ordered by preference, or
+         * {@code null} if there are none. The returned array must not be modified.
+         */
+        GolangInstallable[] getCandidates(String os, String arch) {
+            Map<String, Map<String, GolangInstallable[]>> index = candidates;
+            if (index == null) {
+                index = indexVariants(variants);
+                candidates = index;
+            }
+            Map<String, GolangInstallable[]> byArch = index.get(os);
+            return byArch == null ? null : byArch.get(arch);
+        }
+
+        private static Map<String, Map<String, GolangInstallable[]>> indexVariants(GolangInstallable[] variants) {
+            Map<String, Map<String, List<GolangInstallable>>> grouped =
+                    new HashMap<String, Map<String, List<GolangInstallable>>>();
+            if (variants != null) {
+                for (GolangInstallable i : variants) {
+                    Map<String, List<GolangInstallable>> byArch = grouped.get(i.os);
+                    if (byArch == null) {
+                        byArch = new HashMap<String, List<GolangInstallable>>();
+                        grouped.put(i.os, byArch);
+                    }
+                    List<GolangInstallable> list = byArch.get(i.arch);
+                    if (list == null) {
+                        list = new ArrayList<GolangInstallable>();
+                        byArch.put(i.arch, list);
+                    }
+                    list.add(i);
+                }
+            }
+
+            Map<String, Map<String, GolangInstallable[]>> index = new HashMap<String, Map<String, GolangInstallable[]>>();
+            for (Map.Entry<String, Map<String, List<GolangInstallable>>> os : grouped.entrySet()) {
+                Map<String, GolangInstallable[]> byArch = new HashMap<String, GolangInstallable[]>();
+                for (Map.Entry<String, List<GolangInstallable>> arch : os.getValue().entrySet()) {
+                    List<GolangInstallable> list = arch.getValue();
+                    Collections.sort(list, PREFERENCE_ORDER);
+                    byArch.put(arch.getKey(), list.toArray(new GolangInstallable[0]));
+                }
+                index.put(os.getKey(), byArch);
+            }
+            return index;
+        }
+
+        /** Variants for newer OS X versions come first, followed by those with no minimum OS version. */
+        private static final Comparator<GolangInstallable> PREFERENCE_ORDER = new Comparator<GolangInstallable>() {
+            public int compare(GolangInstallable a, GolangInstallable b) {
+                VersionNumber va = a.getMinimumOsVersion();
+                VersionNumber vb = b.getMinimumOsVersion();
+                if (va == null || vb == null) {
+                    return va == null ? (vb == null ? 0 : 1) : -1;
+                }
+                return vb.compareTo(va);
+            }
+        };
     }
 
     // Needs to be public for JSON deserialisation
@@ -180,12 +600,29 @@ public class GolangInstaller extends DownloadFromUrlInstaller {
         public String os;
         public String osxversion;
         public String arch;
+        /** SHA-256 digest of the archive, in hex format; may be {@code null} if unknown. */
+        public String sha256;
+
+        private transient VersionNumber minimumOsVersion;
+
+        /** @return The parsed {@link #osxversion}, or {@code null} if this variant has no minimum OS version. */
+        VersionNumber getMinimumOsVersion() {
+            if (osxversion == null) {
+                return null;
+            }
+            VersionNumber version = minimumOsVersion;
+            if (version == null) {
+                version = new VersionNumber(osxversion);
+                minimumOsVersion = version;
+            }
+            return version;
+        }
 
         @SuppressFBWarnings("EQ_COMPARETO_USE_OBJECT_EQUALS")
         public int compareTo(GolangInstallable o) {
             // Sort by OS X version, descending
             if (osxversion != null && o.osxversion != null) {
-                return new VersionNumber(o.osxversion).compareTo(new VersionNumber(osxversion));
+                return o.getMinimumOsVersion().compareTo(getMinimumOsVersion());
             }
             // Otherwise we don't really care; sort by OS name
             return os.compareTo(o.os);
@@ -198,7 +635,7 @@ public class GolangInstaller extends DownloadFromUrlInstaller {
     }
 
     /** @return The OS value used in a Go archive filename, for the given {@code os.name} value. */
-    private static String getPlatform(String os) throws InstallationFailedException {
+    static String getPlatform(String os) throws InstallationFailedException {
         String value = os.toLowerCase(Locale.ENGLISH);
         if (value.contains("freebsd")) {
             return "freebsd";
@@ -216,7 +653,7 @@ public class GolangInstaller extends DownloadFromUrlInstaller {
     }
 
     /** @return The CPU architecture value used in a Go archive filename, for the given {@code os.arch} value. */
-    private static String getArchitecture(String arch) throws InstallationFailedException {
+    static String getArchitecture(String arch) throws InstallationFailedException {
         String value = arch.toLowerCase(Locale.ENGLISH);
         if (value.contains("amd64") || value.contains("86_64")) {
             return "amd64";
@@ -240,7 +677,7 @@ public class GolangInstaller extends DownloadFromUrlInstaller {
     }
 
     /** Returns the values of the given Java system properties. */
-    private static class GetSystemProperties extends MasterToSlaveCallable<String[], InterruptedException> {
+    static class GetSystemProperties extends MasterToSlaveCallable<String[], InterruptedException> {
         private static final long serialVersionUID = 1L;
 
         private final String[] properties;
@@ -265,4 +702,11 @@ public class GolangInstaller extends DownloadFromUrlInstaller {
         }
     }
 
+    // Thrown if a downloaded archive does not have the expected content
+    static class ChecksumMismatchException extends InstallationFailedException {
+        ChecksumMismatchException(String message) {
+            super(message);
+        }
+    }
+
 }
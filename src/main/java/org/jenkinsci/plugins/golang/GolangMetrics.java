@@ -0,0 +1,160 @@
+package org.jenkinsci.plugins.golang;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Controller-wide counters and timers describing the behaviour of Go installations. */
+final class GolangMetrics {
+
+    /** Number of times an installation was known to be up-to-date, without having to check on the node. */
+    static final String INSTALL_RECORD_HITS = "install.record.hits";
+
+    /** Number of times an installation had to be checked on the node. */
+    static final String INSTALL_RECORD_MISSES = "install.record.misses";
+
+    /** Number of times an archive was already in the controller's archive cache. */
+    static final String ARCHIVE_CACHE_HITS = "archive.cache.hits";
+
+    /** Number of times an archive had to be downloaded into the controller's archive cache. */
+    static final String ARCHIVE_CACHE_MISSES = "archive.cache.misses";
+
+    /** Bytes downloaded into the controller's archive cache. */
+    static final String ARCHIVE_CACHE_BYTES = "archive.cache.bytes";
+
+    /** Bytes of Go archives read by nodes while installing. */
+    static final String DOWNLOAD_BYTES = "download.bytes";
+
+    /** Prefix of the timers for each phase of installation; see {@link InstallationTimings}. */
+    static final String INSTALL_PHASE_PREFIX = "install.";
+
+    /** Time taken to set up Go for each freestyle build. */
+    static final String BUILD_SETUP = "build.setup";
+
+    /** Maximum number of nodes for which the most recent installation is remembered. */
+    private static final int MAX_RECENT_INSTALLATIONS = 100;
+
+    private static final ConcurrentMap<String, AtomicLong> COUNTERS = new ConcurrentHashMap<String, AtomicLong>();
+
+    private static final ConcurrentMap<String, Timer> TIMERS = new ConcurrentHashMap<String, Timer>();
+
+    private static final Map<String, String> RECENT_INSTALLATIONS = Collections.synchronizedMap(
+            new LinkedHashMap<String, String>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > MAX_RECENT_INSTALLATIONS;
+                }
+            });
+
+    private GolangMetrics() {
+    }
+
+    static void increment(String name) {
+        add(name, 1);
+    }
+
+    static void add(String name, long delta) {
+        AtomicLong counter = COUNTERS.get(name);
+        if (counter == null) {
+            AtomicLong newCounter = new AtomicLong();
+            counter = COUNTERS.putIfAbsent(name, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        counter.addAndGet(delta);
+    }
+
+    static long get(String name) {
+        AtomicLong counter = COUNTERS.get(name);
+        return counter == null ? 0 : counter.get();
+    }
+
+    /** @return A snapshot of all counter values, sorted by name. */
+    static Map<String, Long> getCounters() {
+        Map<String, Long> values = new TreeMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> e : COUNTERS.entrySet()) {
+            values.put(e.getKey(), e.getValue().get());
+        }
+        return values;
+    }
+
+    /** Records that something took the given amount of time. */
+    static void time(String name, long nanos) {
+        Timer timer = TIMERS.get(name);
+        if (timer == null) {
+            Timer newTimer = new Timer();
+            timer = TIMERS.putIfAbsent(name, newTimer);
+            if (timer == null) {
+                timer = newTimer;
+            }
+        }
+        timer.record(nanos);
+    }
+
+    /** @return A snapshot of all timers, sorted by name. */
+    static Map<String, Timer> getTimers() {
+        Map<String, Timer> values = new TreeMap<String, Timer>();
+        for (Map.Entry<String, Timer> e : TIMERS.entrySet()) {
+            values.put(e.getKey(), e.getValue().copy());
+        }
+        return values;
+    }
+
+    /** Remembers the summary of the most recent installation onto the given node. */
+    static void recordInstallation(String nodeName, String summary) {
+        RECENT_INSTALLATIONS.put(nodeName, summary);
+    }
+
+    /** @return Summaries of the most recent installation onto each node, sorted by node name. */
+    static Map<String, String> getRecentInstallations() {
+        synchronized (RECENT_INSTALLATIONS) {
+            return new TreeMap<String, String>(RECENT_INSTALLATIONS);
+        }
+    }
+
+    /** Summary of how long something took, over a number of occurrences. */
+    public static final class Timer {
+
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        synchronized void record(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        synchronized Timer copy() {
+            Timer copy = new Timer();
+            copy.count = count;
+            copy.totalNanos = totalNanos;
+            copy.maxNanos = maxNanos;
+            return copy;
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized long getTotalMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(totalNanos);
+        }
+
+        public synchronized long getMeanMillis() {
+            return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalNanos / count);
+        }
+
+        public synchronized long getMaxMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxNanos);
+        }
+
+    }
+
+}
@@ -0,0 +1,288 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.LogTaskListener;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Installs Go onto nodes ahead of time, so that builds don't have to wait for the installation to happen.
+ * <p>
+ * Installations are carried out in the background, with a bounded number in progress at once, and the latest status
+ * of each node is kept for display until the node is removed. Each installation is queued at most once per node at a
+ * time. Installations which were queued as a node connected hold back builds on that node until they have finished.
+ */
+public final class GolangProvisioner {
+
+    private static final Logger LOGGER = Logger.getLogger(GolangProvisioner.class.getName());
+
+    static final int DEFAULT_PARALLELISM = 4;
+
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(DEFAULT_PARALLELISM,
+            DEFAULT_PARALLELISM, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<Runnable>(),
+            new NamingThreadFactory(new DaemonThreadFactory(), "Go provisioning"));
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    /** Latest status of each node, keyed by node name, then installation name. */
+    private static final Map<String, Map<String, Status>> STATUSES = new TreeMap<String, Map<String, Status>>();
+
+    /** Installations which have been queued or are in progress, keyed by node name; guarded by {@link #STATUSES}. */
+    private static final Map<String, Set<String>> PENDING = new HashMap<String, Set<String>>();
+
+    private GolangProvisioner() {
+    }
+
+    /** Current state of installing a particular Go installation onto a particular node. */
+    public static final class Status {
+        final String nodeName;
+        final String installationName;
+        final State state;
+        final String message;
+        final long timestamp;
+
+        /** Whether builds should not start on the node until this installation has finished. */
+        final boolean blocking;
+
+        Status(String nodeName, String installationName, State state, String message, boolean blocking) {
+            this.nodeName = nodeName;
+            this.installationName = installationName;
+            this.state = state;
+            this.message = message;
+            this.blocking = blocking;
+            this.timestamp = System.currentTimeMillis();
+        }
+
+        public String getNodeName() {
+            return nodeName;
+        }
+
+        public String getInstallationName() {
+            return installationName;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public String getAge() {
+            return Util.getPastTimeString(System.currentTimeMillis() - timestamp);
+        }
+    }
+
+    public enum State {
+        QUEUED, INSTALLING, INSTALLED, FAILED
+    }
+
+    /**
+     * Queues installation of the given Go installations onto every online node matching the label expression.
+     *
+     * @param labelExpression Label expression which nodes must match, or {@code null} to provision all online nodes.
+     * @return The number of nodes which installations were queued for.
+     */
+    static int provision(Collection<GolangInstallation> installations, String labelExpression) {
+        Label label = Util.fixEmptyAndTrim(labelExpression) == null ? null
+                : Jenkins.getActiveInstance().getLabel(labelExpression);
+        int count = 0;
+        for (Computer computer : Jenkins.getActiveInstance().getComputers()) {
+            Node node = computer.getNode();
+            if (node == null || !computer.isOnline() || (label != null && !label.matches(node))) {
+                continue;
+            }
+            provision(installations, node, false);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Queues installation of the given Go installations onto the given node, other than any which are already queued
+     * or in progress there.
+     *
+     * @param blocking Whether builds should not start on the node until the installations have finished.
+     * @return The number of installations which were queued.
+     */
+    static int provision(Collection<GolangInstallation> installations, final Node node, final boolean blocking) {
+        updateParallelism();
+        int count = 0;
+        for (final GolangInstallation installation : installations) {
+            synchronized (STATUSES) {
+                Set<String> pending = PENDING.get(node.getNodeName());
+                if (pending == null) {
+                    pending = new HashSet<String>();
+                    PENDING.put(node.getNodeName(), pending);
+                }
+                if (!pending.add(installation.getName())) {
+                    continue;
+                }
+                setStatus(node, installation, State.QUEUED, null, blocking);
+            }
+            EXECUTOR.execute(new Runnable() {
+                public void run() {
+                    install(installation, node, blocking);
+                }
+            });
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Marks the given installations as queued for a node which is about to come online, so that no builds start on
+     * it before {@link #provision} has been called for them.
+     */
+    static void reserve(Collection<GolangInstallation> installations, Node node) {
+        synchronized (STATUSES) {
+            for (GolangInstallation installation : installations) {
+                setStatus(node, installation, State.QUEUED, null, true);
+            }
+        }
+    }
+
+    /** Forgets any reserved installations for the given node which were never actually queued. */
+    static void cancelReservations(Node node) {
+        synchronized (STATUSES) {
+            Map<String, Status> byInstallation = STATUSES.get(node.getNodeName());
+            if (byInstallation == null) {
+                return;
+            }
+            Set<String> pending = PENDING.get(node.getNodeName());
+            for (Iterator<Status> it = byInstallation.values().iterator(); it.hasNext(); ) {
+                Status status = it.next();
+                if (status.state == State.QUEUED
+                        && (pending == null || !pending.contains(status.installationName))) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /** @return Whether builds should not start on the given node yet, as Go is still being installed onto it. */
+    static boolean isBlocked(Node node) {
+        synchronized (STATUSES) {
+            Map<String, Status> byInstallation = STATUSES.get(node.getNodeName());
+            if (byInstallation == null) {
+                return false;
+            }
+            for (Status status : byInstallation.values()) {
+                if (status.blocking && (status.state == State.QUEUED || status.state == State.INSTALLING)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /** Forgets everything about the given node, once it has been removed. */
+    static void remove(String nodeName) {
+        synchronized (STATUSES) {
+            STATUSES.remove(nodeName);
+        }
+    }
+
+    private static void install(GolangInstallation installation, Node node, boolean blocking) {
+        setStatus(node, installation, State.INSTALLING, null, blocking);
+        try {
+            installation.forNode(node, new LogTaskListener(LOGGER, Level.FINE));
+            setStatus(node, installation, State.INSTALLED, null, false);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to install " + installation.getName() + " on " + node.getDisplayName(),
+                    e);
+            setStatus(node, installation, State.FAILED, e.getMessage(), false);
+        } finally {
+            synchronized (STATUSES) {
+                Set<String> pending = PENDING.get(node.getNodeName());
+                if (pending != null && pending.remove(installation.getName()) && pending.isEmpty()) {
+                    PENDING.remove(node.getNodeName());
+                }
+            }
+        }
+    }
+
+    /** @return The latest installation status for each node and installation. */
+    static List<Status> getStatuses() {
+        List<Status> statuses = new ArrayList<Status>();
+        synchronized (STATUSES) {
+            for (Map<String, Status> byInstallation : STATUSES.values()) {
+                statuses.addAll(byInstallation.values());
+            }
+        }
+        return Collections.unmodifiableList(statuses);
+    }
+
+    /** @return The installations with the given names; or all installations, if no names are given. */
+    static List<GolangInstallation> getInstallations(Collection<String> names) {
+        List<GolangInstallation> installations = new ArrayList<GolangInstallation>();
+        GolangInstallation[] all = Jenkins.getActiveInstance()
+                .getDescriptorByType(GolangInstallation.DescriptorImpl.class).getInstallations();
+        for (GolangInstallation i : all) {
+            if (names == null || names.isEmpty() || names.contains(i.getName())) {
+                installations.add(i);
+            }
+        }
+        return installations;
+    }
+
+    private static void setStatus(Node node, GolangInstallation installation, State state, String message,
+            boolean blocking) {
+        synchronized (STATUSES) {
+            Map<String, Status> byInstallation = STATUSES.get(node.getNodeName());
+            if (byInstallation == null) {
+                // Don't resurrect a node which was removed while its installation was in progress
+                if (state != State.QUEUED) {
+                    return;
+                }
+                byInstallation = new TreeMap<String, Status>();
+                STATUSES.put(node.getNodeName(), byInstallation);
+            }
+            byInstallation.put(installation.getName(),
+                    new Status(node.getDisplayName(), installation.getName(), state, message, blocking));
+        }
+    }
+
+    /** @return The installations which should be pre-provisioned automatically, according to the configuration. */
+    static List<GolangInstallation> getConfiguredInstallations(GolangConfiguration config) {
+        String names = Util.fixEmptyAndTrim(config.getProvisioningInstallations());
+        return getInstallations(names == null ? null : Arrays.asList(names.split("[\\s,]+")));
+    }
+
+    private static void updateParallelism() {
+        GolangConfiguration config = GolangConfiguration.get();
+        int parallelism = config == null ? DEFAULT_PARALLELISM : config.getProvisioningParallelism();
+        if (parallelism > EXECUTOR.getMaximumPoolSize()) {
+            EXECUTOR.setMaximumPoolSize(parallelism);
+            EXECUTOR.setCorePoolSize(parallelism);
+        } else if (parallelism < EXECUTOR.getMaximumPoolSize()) {
+            EXECUTOR.setCorePoolSize(parallelism);
+            EXECUTOR.setMaximumPoolSize(parallelism);
+        }
+    }
+
+}
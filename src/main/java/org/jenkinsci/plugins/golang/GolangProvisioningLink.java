@@ -0,0 +1,105 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Extension;
+import hudson.Functions;
+import hudson.model.ManagementLink;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Page from which administrators can install Go onto nodes ahead of time, see the progress of doing so, and see how
+ * long installations have been taking.
+ */
+@Extension
+public class GolangProvisioningLink extends ManagementLink {
+
+    @Override
+    public String getIconFileName() {
+        return "setting.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.InstallGoOnNodes();
+    }
+
+    @Override
+    public String getDescription() {
+        return Messages.InstallGoOnNodesDescription();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "golang";
+    }
+
+    public GolangInstallation[] getInstallations() {
+        return Jenkins.getActiveInstance().getDescriptorByType(GolangInstallation.DescriptorImpl.class)
+                .getInstallations();
+    }
+
+    public List<GolangProvisioner.Status> getStatuses() {
+        return GolangProvisioner.getStatuses();
+    }
+
+    public Map<String, Long> getCounters() {
+        return GolangMetrics.getCounters();
+    }
+
+    public Map<String, GolangMetrics.Timer> getTimers() {
+        return GolangMetrics.getTimers();
+    }
+
+    /** @return Most recent installation summary for each node. */
+    public Map<String, String> getRecentInstallations() {
+        return GolangMetrics.getRecentInstallations();
+    }
+
+    /** @return Hit rates and throughput derived from the counters and timers, as human-readable values. */
+    public Map<String, String> getRates() {
+        Map<String, String> rates = new LinkedHashMap<String, String>();
+        rates.put(Messages.InstallationRecordHitRate(), hitRate(GolangMetrics.INSTALL_RECORD_HITS,
+                GolangMetrics.INSTALL_RECORD_MISSES));
+        rates.put(Messages.ArchiveCacheHitRate(), hitRate(GolangMetrics.ARCHIVE_CACHE_HITS,
+                GolangMetrics.ARCHIVE_CACHE_MISSES));
+
+        GolangMetrics.Timer download = GolangMetrics.getTimers().get(
+                GolangMetrics.INSTALL_PHASE_PREFIX + InstallationTimings.DOWNLOAD);
+        long bytes = GolangMetrics.get(GolangMetrics.DOWNLOAD_BYTES);
+        if (download != null && download.getTotalMillis() > 0) {
+            rates.put(Messages.DownloadThroughput(), Functions.humanReadableByteSize(
+                    bytes * 1000 / download.getTotalMillis()) + "/s");
+        }
+        return rates;
+    }
+
+    private static String hitRate(String hits, String misses) {
+        long h = GolangMetrics.get(hits);
+        long total = h + GolangMetrics.get(misses);
+        return total == 0 ? "-" : String.format(Locale.ENGLISH, "%.1f%% (%d/%d)", 100.0 * h / total, h, total);
+    }
+
+    @RequirePOST
+    public HttpResponse doProvision(StaplerRequest req, @QueryParameter String label) {
+        Jenkins.getActiveInstance().checkPermission(Jenkins.ADMINISTER);
+
+        String[] names = req.getParameterValues("installation");
+        List<String> selected = names == null ? Collections.<String>emptyList() : Arrays.asList(names);
+        if (!selected.isEmpty()) {
+            GolangProvisioner.provision(GolangProvisioner.getInstallations(selected), label);
+        }
+        return HttpResponses.redirectToDot();
+    }
+
+}
@@ -0,0 +1,135 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Computer;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.Queue;
+import hudson.model.TaskListener;
+import hudson.model.queue.CauseOfBlockage;
+import hudson.model.queue.QueueTaskDispatcher;
+import hudson.remoting.Channel;
+import hudson.slaves.ComputerListener;
+import hudson.slaves.OfflineCause;
+import jenkins.model.Jenkins;
+import jenkins.model.NodeListener;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically installs the configured Go installations onto all matching nodes, if enabled, and checks whether any
+ * release aliases have moved.
+ */
+@Extension
+public class GolangProvisioningTask extends AsyncPeriodicWork {
+
+    private long lastRun;
+
+    public GolangProvisioningTask() {
+        super("Go provisioning");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return TimeUnit.MINUTES.toMillis(1);
+    }
+
+    @Override
+    protected void execute(TaskListener listener) {
+        // Pick up any releases which aliases now refer to, so they can be prefetched before builds need them
+        ReleaseAliases.refresh();
+
+        GolangConfiguration config = GolangConfiguration.get();
+        if (config == null || config.getProvisioningIntervalMinutes() == 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastRun < TimeUnit.MINUTES.toMillis(config.getProvisioningIntervalMinutes())) {
+            return;
+        }
+        lastRun = now;
+
+        int nodes = GolangProvisioner.provision(GolangProvisioner.getConfiguredInstallations(config),
+                config.getProvisioningLabel());
+        listener.getLogger().printf("Queued Go installation on %d nodes%n", nodes);
+    }
+
+    /**
+     * Installs Go onto matching nodes as soon as they come online, if enabled; the installations are reserved before
+     * the node comes online, so that no build can start on it first.
+     */
+    @Extension
+    public static class OnConnect extends ComputerListener {
+        @Override
+        public void preOnline(Computer c, Channel channel, FilePath root, TaskListener listener) {
+            Node node = c.getNode();
+            if (node != null) {
+                GolangProvisioner.reserve(getInstallations(node), node);
+            }
+        }
+
+        @Override
+        public void onOnline(Computer c, TaskListener listener) {
+            Node node = c.getNode();
+            if (node == null) {
+                return;
+            }
+            GolangProvisioner.provision(getInstallations(node), node, true);
+            // In case the configuration changed since the installations were reserved
+            GolangProvisioner.cancelReservations(node);
+        }
+
+        @Override
+        public void onOffline(Computer c, OfflineCause cause) {
+            Node node = c.getNode();
+            if (node != null) {
+                GolangProvisioner.cancelReservations(node);
+            }
+        }
+
+        /** @return The installations to install onto the given node as it connects. */
+        private static List<GolangInstallation> getInstallations(Node node) {
+            GolangConfiguration config = GolangConfiguration.get();
+            if (config == null || !config.isProvisionOnConnect()) {
+                return Collections.emptyList();
+            }
+            String expression = config.getProvisioningLabel();
+            Label label = expression == null ? null : Jenkins.getActiveInstance().getLabel(expression);
+            if (label != null && !label.matches(node)) {
+                return Collections.emptyList();
+            }
+            return GolangProvisioner.getConfiguredInstallations(config);
+        }
+    }
+
+    /** Holds back builds on nodes which Go is still being installed onto, after they connected. */
+    @Extension
+    public static class WaitForProvisioning extends QueueTaskDispatcher {
+        @Override
+        public CauseOfBlockage canTake(final Node node, Queue.BuildableItem item) {
+            if (item.task instanceof Queue.FlyweightTask || !GolangProvisioner.isBlocked(node)) {
+                return null;
+            }
+            return new CauseOfBlockage() {
+                @Override
+                public String getShortDescription() {
+                    return Messages.WaitingForProvisioning(node.getDisplayName());
+                }
+            };
+        }
+    }
+
+    /** Forgets the provisioning status of nodes once they're removed. */
+    @Extension
+    public static class OnDeleted extends NodeListener {
+        @Override
+        protected void onDeleted(Node node) {
+            GolangProvisioner.remove(node.getNodeName());
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.ExtensionPoint;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.jenkinsci.plugins.golang.GolangInstaller.GolangReleaseList;
+import static org.jenkinsci.plugins.golang.GolangInstaller.ReleaseCatalogue;
+
+/**
+ * Somewhere from which the list of available Go releases, and their archive locations, can be obtained.
+ * <p>
+ * Sources are consulted in order of their extension ordinal, highest first, and the first source which has any release
+ * data is used; by default, this is the data published via the Jenkins update centre.
+ */
+public abstract class GolangReleaseSource implements ExtensionPoint {
+
+    private static final Logger LOGGER = Logger.getLogger(GolangReleaseSource.class.getName());
+
+    /** The most recently parsed release data, or {@code null} if it has not yet been parsed. */
+    private transient volatile ReleaseCatalogue catalogue;
+
+    /** @return When the release data last changed, or zero if this source has no data available. */
+    protected abstract long getLastModified();
+
+    /**
+     * @return Release data, in the same JSON format as published by the update centre, or {@code null} if this source
+     * has no data available.
+     */
+    protected abstract JSONObject getData() throws IOException;
+
+    /**
+     * @return The parsed release data, which is only re-parsed if {@link #getLastModified()} has changed since it was
+     * last read; or {@code null} if no data is available.
+     */
+    final ReleaseCatalogue getCatalogue() {
+        long timestamp = getLastModified();
+        if (timestamp == 0) {
+            return null;
+        }
+
+        ReleaseCatalogue current = catalogue;
+        if (current != null && current.timestamp == timestamp) {
+            return current;
+        }
+
+        JSONObject root;
+        try {
+            root = getData();
+            if (root == null) {
+                return null;
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not read Go release data from " + getClass().getName(), e);
+            return null;
+        }
+
+        ReleaseCatalogue parsed = ReleaseCatalogue.parse(root, timestamp);
+        catalogue = parsed;
+        return parsed;
+    }
+
+    public static ExtensionList<GolangReleaseSource> all() {
+        return Jenkins.getActiveInstance().getExtensionList(GolangReleaseSource.class);
+    }
+
+    /** @return Release data from the first source which has any, or {@code null} if none do. */
+    static ReleaseCatalogue getActiveCatalogue() {
+        for (GolangReleaseSource source : all()) {
+            ReleaseCatalogue c = source.getCatalogue();
+            if (c != null) {
+                return c;
+            }
+        }
+        return null;
+    }
+
+    /** Provides the release data downloaded periodically by Jenkins from the update centre. */
+    @Extension
+    public static final class UpdateCentre extends GolangReleaseSource {
+
+        @Override
+        protected long getLastModified() {
+            GolangReleaseList list = getReleaseList();
+            // Zero if the JSON file has not yet been downloaded by Jenkins
+            return list == null ? 0 : list.getDataFile().file.lastModified();
+        }
+
+        @Override
+        protected JSONObject getData() throws IOException {
+            GolangReleaseList list = getReleaseList();
+            return list == null ? null : list.getData();
+        }
+
+        private static GolangReleaseList getReleaseList() {
+            return GolangReleaseList.all().get(GolangReleaseList.class);
+        }
+
+    }
+
+}
@@ -0,0 +1,231 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.model.Node;
+import hudson.model.TaskListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits how many Go installations may be carried out at once across all nodes, so that many builds starting at once
+ * don't saturate the network and slow each other down, and limits the total download rate, if configured.
+ * <p>
+ * Installations which have to wait are queued per node, and nodes take turns, so that a node with many waiting
+ * builds doesn't hold up installations on other nodes.
+ */
+final class InstallScheduler {
+
+    /** How often waiting installations check whether the configured limit has changed. */
+    private static final long POLL_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private static final Object LOCK = new Object();
+
+    /** Number of installations currently in progress. */
+    private static int running;
+
+    /** Waiting installations for each node, with the node whose turn is next first. */
+    private static final Map<String, Deque<Waiter>> QUEUES = new LinkedHashMap<String, Deque<Waiter>>();
+
+    private static volatile BandwidthLimiter limiter;
+
+    private InstallScheduler() {
+    }
+
+    /** Allows one installation to proceed; must be released once the installation has finished. */
+    static final class Permit {
+        private final boolean queued;
+        private boolean released;
+
+        Permit(boolean queued) {
+            this.queued = queued;
+        }
+
+        /** @return Whether the installation had to wait for a free slot. */
+        boolean wasQueued() {
+            return queued;
+        }
+
+        void release() {
+            synchronized (LOCK) {
+                if (!released) {
+                    released = true;
+                    running--;
+                    dispatch();
+                }
+            }
+        }
+    }
+
+    private static final class Waiter {
+        boolean granted;
+    }
+
+    /**
+     * Waits until an installation onto the given node may proceed, logging the position in the queue whenever it
+     * changes.
+     */
+    static Permit acquire(Node node, TaskListener log) throws InterruptedException {
+        Waiter waiter = new Waiter();
+        synchronized (LOCK) {
+            int max = getMaxConcurrent();
+            if (max <= 0 || (running < max && QUEUES.isEmpty())) {
+                running++;
+                return new Permit(false);
+            }
+            Deque<Waiter> queue = QUEUES.get(node.getNodeName());
+            if (queue == null) {
+                queue = new ArrayDeque<Waiter>();
+                QUEUES.put(node.getNodeName(), queue);
+            }
+            queue.add(waiter);
+        }
+
+        int lastPosition = -1;
+        try {
+            while (true) {
+                int position;
+                int inProgress;
+                synchronized (LOCK) {
+                    dispatch();
+                    if (waiter.granted) {
+                        return new Permit(true);
+                    }
+                    position = getPosition(waiter);
+                    inProgress = running;
+                }
+                if (position != lastPosition) {
+                    log.getLogger().println(Messages.WaitingForInstallationSlot(position, inProgress));
+                    lastPosition = position;
+                }
+                synchronized (LOCK) {
+                    if (!waiter.granted) {
+                        LOCK.wait(POLL_MILLIS);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            synchronized (LOCK) {
+                if (waiter.granted) {
+                    running--;
+                    dispatch();
+                } else {
+                    remove(waiter);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /** Lets waiting installations proceed, while there's capacity, taking one from each node in turn. */
+    private static void dispatch() {
+        int max = getMaxConcurrent();
+        boolean granted = false;
+        while ((max <= 0 || running < max) && !QUEUES.isEmpty()) {
+            Iterator<Map.Entry<String, Deque<Waiter>>> it = QUEUES.entrySet().iterator();
+            Map.Entry<String, Deque<Waiter>> next = it.next();
+            it.remove();
+            Deque<Waiter> queue = next.getValue();
+            queue.poll().granted = true;
+            running++;
+            granted = true;
+            // Go to the back of the line
+            if (!queue.isEmpty()) {
+                QUEUES.put(next.getKey(), queue);
+            }
+        }
+        if (granted) {
+            LOCK.notifyAll();
+        }
+    }
+
+    /** @return The position of the given waiter in the order in which installations will proceed, starting at 1. */
+    private static int getPosition(Waiter waiter) {
+        List<List<Waiter>> queues = new ArrayList<List<Waiter>>();
+        for (Deque<Waiter> queue : QUEUES.values()) {
+            queues.add(new ArrayList<Waiter>(queue));
+        }
+        int position = 1;
+        for (int round = 0; ; round++) {
+            boolean any = false;
+            for (List<Waiter> queue : queues) {
+                if (round < queue.size()) {
+                    any = true;
+                    if (queue.get(round) == waiter) {
+                        return position;
+                    }
+                    position++;
+                }
+            }
+            if (!any) {
+                return position;
+            }
+        }
+    }
+
+    private static void remove(Waiter waiter) {
+        Iterator<Deque<Waiter>> it = QUEUES.values().iterator();
+        while (it.hasNext()) {
+            Deque<Waiter> queue = it.next();
+            if (queue.remove(waiter) && queue.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    /** @return Whether installations would currently have to wait. */
+    static boolean isBusy() {
+        synchronized (LOCK) {
+            int max = getMaxConcurrent();
+            return max > 0 && (running >= max || !QUEUES.isEmpty());
+        }
+    }
+
+    private static int getMaxConcurrent() {
+        GolangConfiguration config = GolangConfiguration.get();
+        return config == null ? 0 : config.getMaxConcurrentInstallations();
+    }
+
+    /** @return The limit on the total download rate of the controller, or {@code null} if there is none. */
+    static BandwidthLimiter getBandwidthLimiter() {
+        GolangConfiguration config = GolangConfiguration.get();
+        long bytesPerSecond = config == null ? 0 : config.getDownloadRateLimitMbPerSecond() * 1024 * 1024;
+        if (bytesPerSecond <= 0) {
+            return null;
+        }
+        BandwidthLimiter current = limiter;
+        if (current == null || current.getBytesPerSecond() != bytesPerSecond) {
+            current = new BandwidthLimiter(bytesPerSecond);
+            limiter = current;
+        }
+        return current;
+    }
+
+    /**
+     * @return Whether archives must be sent to nodes by the controller, rather than nodes downloading them themselves,
+     * for the download rate limit to be kept; i.e. there is a limit, but as the number of concurrent installations
+     * isn't limited, there's no fixed share of it which each node could be given.
+     */
+    static boolean isRateLimitedByController() {
+        return getBandwidthLimiter() != null && getMaxConcurrent() <= 0;
+    }
+
+    /**
+     * @return The download rate which a single installation downloading on its own node may use, so that the limit is
+     * kept even when nodes download directly; or zero if there is no limit. Only applies if not
+     * {@link #isRateLimitedByController()}.
+     */
+    static long getRateLimitPerNode() {
+        BandwidthLimiter current = getBandwidthLimiter();
+        if (current == null) {
+            return 0;
+        }
+        return current.getBytesPerSecond() / Math.max(1, getMaxConcurrent());
+    }
+
+}
@@ -0,0 +1,38 @@
+package org.jenkinsci.plugins.golang;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import hudson.FilePath;
+import hudson.model.Node;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/** Provides a lock for each installation directory on each node, so that concurrent builds don't install together. */
+final class InstallationLocks {
+
+    // Locks are only weakly held, so that those for removed nodes or tools can be garbage collected once unused
+    private static final LoadingCache<String, Lock> LOCKS = CacheBuilder.newBuilder()
+            .weakValues()
+            .build(new CacheLoader<String, Lock>() {
+                @Override
+                public Lock load(String key) {
+                    return new ReentrantLock(true);
+                }
+            });
+
+    private InstallationLocks() {
+    }
+
+    /** @return The lock guarding installation into the given directory on the given node. */
+    static Lock get(Node node, FilePath path) {
+        return get(node, path.getRemote());
+    }
+
+    /** @return The lock guarding installation into the directory at the given location on the given node. */
+    static Lock get(Node node, String path) {
+        return LOCKS.getUnchecked(node.getNodeName() + "\0" + path);
+    }
+
+}
@@ -0,0 +1,135 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.slaves.ComputerListener;
+import hudson.slaves.OfflineCause;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers which Go installations have recently been verified as up-to-date on each computer, so that builds can skip
+ * reading the {@code .installedFrom} file on the node.
+ * <p>
+ * Records are forgotten when the computer disconnects or reconnects, when the installation is removed, or once they
+ * are older than the configured interval, after which the installation is checked on the node again. A record is also
+ * only trusted for the same node instance and agent connection as it was made for, in case a build starts before the
+ * computer's listeners have run.
+ */
+final class InstallationRecords {
+
+    /** Installation directory to record, for each computer. */
+    private static final ConcurrentMap<Computer, ConcurrentMap<String, Record>> RECORDS =
+            new ConcurrentHashMap<Computer, ConcurrentMap<String, Record>>();
+
+    private InstallationRecords() {
+    }
+
+    /** @return {@code true} if the given URL was recently verified as being installed at the given location. */
+    static boolean isVerified(Node node, FilePath path, String url) {
+        return isVerified(node, path, url, System.nanoTime(), getMaxAge());
+    }
+
+    /** @return {@code true} if the given URL was verified as being installed within the given age, in nanoseconds. */
+    static boolean isVerified(Node node, FilePath path, String url, long now, long maxAge) {
+        Computer computer = node.toComputer();
+        Map<String, Record> records = computer == null ? null : RECORDS.get(computer);
+        Record record = records == null ? null : records.get(path.getRemote());
+        if (record != null && record.matches(node, url) && now - record.verifiedAt < maxAge) {
+            GolangMetrics.increment(GolangMetrics.INSTALL_RECORD_HITS);
+            return true;
+        }
+        GolangMetrics.increment(GolangMetrics.INSTALL_RECORD_MISSES);
+        return false;
+    }
+
+    /**
+     * @return {@code true} if some release was recently verified as being installed at the given location, and it
+     * hasn't since been invalidated, e.g. by being removed or replaced.
+     */
+    static boolean isVerified(Node node, String path) {
+        Computer computer = node.toComputer();
+        Map<String, Record> records = computer == null ? null : RECORDS.get(computer);
+        Record record = records == null ? null : records.get(path);
+        return record != null && record.matches(node) && System.nanoTime() - record.verifiedAt < getMaxAge();
+    }
+
+    /** Records that the given URL is known to be installed at the given location. */
+    static void verified(Node node, FilePath path, String url) {
+        Computer computer = node.toComputer();
+        if (computer == null || getMaxAge() <= 0) {
+            return;
+        }
+        ConcurrentMap<String, Record> records = RECORDS.get(computer);
+        if (records == null) {
+            ConcurrentMap<String, Record> newRecords = new ConcurrentHashMap<String, Record>();
+            records = RECORDS.putIfAbsent(computer, newRecords);
+            if (records == null) {
+                records = newRecords;
+            }
+        }
+        records.put(path.getRemote(), new Record(node, node.getChannel(), url, System.nanoTime()));
+    }
+
+    /** Forgets any record of an installation at the given location, e.g. because it has been removed. */
+    static void invalidate(Node node, FilePath path) {
+        Computer computer = node.toComputer();
+        Map<String, Record> records = computer == null ? null : RECORDS.get(computer);
+        if (records != null) {
+            records.remove(path.getRemote());
+        }
+    }
+
+    private static long getMaxAge() {
+        GolangConfiguration config = GolangConfiguration.get();
+        long minutes = config == null ? 0 : config.getInstallationCheckIntervalMinutes();
+        return TimeUnit.MINUTES.toNanos(minutes);
+    }
+
+    private static final class Record {
+        final Node node;
+        final VirtualChannel channel;
+        final String url;
+        final long verifiedAt;
+
+        Record(Node node, VirtualChannel channel, String url, long verifiedAt) {
+            this.node = node;
+            this.channel = channel;
+            this.url = url;
+            this.verifiedAt = verifiedAt;
+        }
+
+        /** @return Whether this record is for the given URL, and the node hasn't been reconfigured or reconnected. */
+        boolean matches(Node node, String url) {
+            return matches(node) && this.url.equals(url);
+        }
+
+        /** @return Whether the node hasn't been reconfigured or reconnected since this record was made. */
+        boolean matches(Node node) {
+            // Nodes are replaced by new instances when they're reconfigured
+            return this.node == node && channel != null && channel == node.getChannel();
+        }
+    }
+
+    /** Discards the records for a computer whenever its connection changes. */
+    @Extension
+    public static final class Listener extends ComputerListener {
+        @Override
+        public void onOnline(Computer c, TaskListener listener) {
+            RECORDS.remove(c);
+        }
+
+        @Override
+        public void onOffline(Computer c, OfflineCause cause) {
+            RECORDS.remove(c);
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package org.jenkinsci.plugins.golang;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time taken by each phase of installing Go onto a node, for one installation.
+ * <p>
+ * Each phase is also added to the controller-wide {@link GolangMetrics}, so that the slowest phases and nodes can be
+ * identified across all builds.
+ */
+final class InstallationTimings {
+
+    /** Finding the archive to install for the node. */
+    static final String RESOLVE = "resolve";
+
+    /** Checking whether the node already has the right version installed. */
+    static final String UP_TO_DATE_CHECK = "up-to-date-check";
+
+    /** Waiting for a free slot, when the number of concurrent installations is limited. */
+    static final String QUEUE = "queue";
+
+    /** Downloading the archive into the controller's cache, and reading it on the node. */
+    static final String DOWNLOAD = "download";
+
+    /** Unpacking the archive on the node. */
+    static final String EXTRACT = "extract";
+
+    /** Moving files up a level, for archives which don't have the usual top-level directory. */
+    static final String PULL_UP = "pull-up";
+
+    /** Overhead of communicating with the node. */
+    static final String REMOTING = "remoting";
+
+    private final Map<String, Long> phases = new LinkedHashMap<String, Long>();
+    private long bytes;
+    private boolean installed;
+
+    void add(String phase, long nanos) {
+        Long previous = phases.get(phase);
+        phases.put(phase, previous == null ? nanos : previous + nanos);
+        GolangMetrics.time(GolangMetrics.INSTALL_PHASE_PREFIX + phase, nanos);
+    }
+
+    /** Adds the phases measured on the node while unpacking, attributing the rest of the elapsed time to remoting. */
+    void add(UnpackGoArchive.Result result, long elapsedNanos) {
+        if (result.upToDate) {
+            add(UP_TO_DATE_CHECK, elapsedNanos);
+            return;
+        }
+        installed = true;
+        add(DOWNLOAD, result.readNanos);
+        add(EXTRACT, result.extractNanos);
+        add(PULL_UP, result.pullUpNanos);
+        add(REMOTING, Math.max(0, elapsedNanos - result.totalNanos));
+        bytes += result.bytes;
+        GolangMetrics.add(GolangMetrics.DOWNLOAD_BYTES, result.bytes);
+    }
+
+    /** @return Whether Go was actually unpacked onto the node, rather than being found to be up-to-date. */
+    boolean isInstalled() {
+        return installed;
+    }
+
+    long getTotalNanos() {
+        long total = 0;
+        for (long nanos : phases.values()) {
+            total += nanos;
+        }
+        return total;
+    }
+
+    /** @return A human-readable summary of the time taken by each phase, e.g. for the build log. */
+    String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            if (summary.length() > 0) {
+                summary.append(", ");
+            }
+            summary.append(phase.getKey()).append(' ').append(formatDuration(phase.getValue()));
+            if (phase.getKey().equals(DOWNLOAD) && bytes > 0) {
+                summary.append(" (").append(formatBytes(bytes));
+                double seconds = phase.getValue() / 1e9;
+                if (seconds > 0) {
+                    summary.append(", ").append(formatBytes((long) (bytes / seconds))).append("/s");
+                }
+                summary.append(')');
+            }
+        }
+        return summary.toString();
+    }
+
+    static String formatDuration(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        return millis < 1000 ? millis + " ms" : String.format(Locale.ENGLISH, "%.1f s", millis / 1000.0);
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024 * 1024) {
+            return String.format(Locale.ENGLISH, "%.1f KB", bytes / 1024.0);
+        }
+        return String.format(Locale.ENGLISH, "%.1f MB", bytes / (1024.0 * 1024));
+    }
+
+}
@@ -0,0 +1,125 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.model.Node;
+import hudson.model.TaskListener;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Tracks when each Go installation on each node was last used, and which installations builds are currently using,
+ * so that {@link EvictGoInstallations} only removes installations which have not been used for a while.
+ * <p>
+ * Last-use times are only held in memory here, and are written to each node during the next eviction check, so that
+ * builds don't need any extra calls to the node. Leases are also only held in memory, so builds which resume after a
+ * restart must acquire them again.
+ */
+final class InstallationUsage {
+
+    /** When Jenkins started, i.e. since when the usage recorded here is complete. */
+    static final long STARTED = System.currentTimeMillis();
+
+    /** When each installation directory was last used, by node name. */
+    private static final ConcurrentMap<String, ConcurrentMap<String, Long>> LAST_USED =
+            new ConcurrentHashMap<String, ConcurrentMap<String, Long>>();
+
+    /** Number of builds using each installation directory, by node name. */
+    private static final Map<String, Map<String, Integer>> LEASES = new HashMap<String, Map<String, Integer>>();
+
+    private InstallationUsage() {
+    }
+
+    /** Records that the installation at the given location on the node has just been used. */
+    static void used(Node node, String home) {
+        if (home == null) {
+            return;
+        }
+        ConcurrentMap<String, Long> times = LAST_USED.get(node.getNodeName());
+        if (times == null) {
+            ConcurrentMap<String, Long> newTimes = new ConcurrentHashMap<String, Long>();
+            times = LAST_USED.putIfAbsent(node.getNodeName(), newTimes);
+            if (times == null) {
+                times = newTimes;
+            }
+        }
+        times.put(home, System.currentTimeMillis());
+    }
+
+    /**
+     * Records that a build is about to use the installation at the given location on the node, while holding the
+     * installation's lock; as installations are only removed while holding it, having checked that they haven't been
+     * used since, the installation is then either kept, or already recorded as having been removed.
+     */
+    static void startUsing(Node node, String home, TaskListener log) throws InterruptedException {
+        if (home == null) {
+            return;
+        }
+        Lock lock = InstallationLocks.get(node, home);
+        if (!lock.tryLock()) {
+            log.getLogger().println(Messages.WaitingForInstallation(home, node.getDisplayName()));
+            lock.lockInterruptibly();
+        }
+        try {
+            used(node, home);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Registers that a build on the given node is using the installation at the given location. */
+    static void acquire(Node node, String home) {
+        if (home == null) {
+            return;
+        }
+        used(node, home);
+        synchronized (LEASES) {
+            Map<String, Integer> leases = LEASES.get(node.getNodeName());
+            if (leases == null) {
+                leases = new HashMap<String, Integer>();
+                LEASES.put(node.getNodeName(), leases);
+            }
+            Integer count = leases.get(home);
+            leases.put(home, count == null ? 1 : count + 1);
+        }
+    }
+
+    /** Registers that a build on the given node has finished using the installation at the given location. */
+    static void release(Node node, String home) {
+        if (home == null) {
+            return;
+        }
+        used(node, home);
+        synchronized (LEASES) {
+            Map<String, Integer> leases = LEASES.get(node.getNodeName());
+            Integer count = leases == null ? null : leases.get(home);
+            if (count == null) {
+                return;
+            }
+            if (count > 1) {
+                leases.put(home, count - 1);
+            } else {
+                leases.remove(home);
+            }
+        }
+    }
+
+    /** @return When each installation on the given node was last used, as far as is known since Jenkins started. */
+    static Map<String, Long> getLastUsed(Node node) {
+        Map<String, Long> times = LAST_USED.get(node.getNodeName());
+        return times == null ? new HashMap<String, Long>() : new HashMap<String, Long>(times);
+    }
+
+    /** @return The locations of the installations which builds on the given node are currently using. */
+    static Set<String> getInUse(Node node) {
+        synchronized (LEASES) {
+            Map<String, Integer> leases = LEASES.get(node.getNodeName());
+            return leases == null ? new HashSet<String>() : new HashSet<String>(leases.keySet());
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Extension;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Offers the Go archives in a directory on the controller as the available releases, if configured, so that Go can be
+ * installed in networks without access to the update centre or to go.dev.
+ * <p>
+ * Archives must have their upstream filenames, e.g. {@code go1.16.3.linux-amd64.tar.gz}. Their digests are read from
+ * {@code .sha256} files alongside them, if present, as published upstream, or are otherwise calculated once, and then
+ * remembered in a {@link MirrorIndex}. The directory is rescanned in the background whenever archives are added or
+ * removed, so that builds and configuration forms never wait for archives to be read; meanwhile, the archives which
+ * have already been indexed are offered.
+ * <p>
+ * Agents read archives directly from the same path if they can, e.g. via a shared mount, or otherwise receive them
+ * from the controller.
+ */
+@Extension(ordinal = 100)
+public final class LocalMirrorReleaseSource extends GolangReleaseSource {
+
+    private static final ExecutorService INDEXER = Executors.newSingleThreadExecutor(
+            new NamingThreadFactory(new DaemonThreadFactory(), "Go mirror indexing"));
+
+    private transient MirrorIndex index;
+
+    /** Directory, and its modification time, as of the most recently requested scan; guarded by this object. */
+    private transient File scannedDirectory;
+    private transient long scannedLastModified;
+
+    @Override
+    protected long getLastModified() {
+        File dir = getDirectory();
+        if (dir == null) {
+            return 0;
+        }
+        scanIfChanged(dir);
+        // Changes as archives are indexed, so that they're offered as soon as they're ready
+        return getIndex().getRevision(dir);
+    }
+
+    @Override
+    protected JSONObject getData() throws IOException {
+        File dir = getDirectory();
+        return dir == null ? null : getIndex().getData(dir);
+    }
+
+    /** Starts rescanning the directory in the background, if it has changed since it was last scanned. */
+    private synchronized void scanIfChanged(final File dir) {
+        long lastModified = dir.lastModified();
+        if (dir.equals(scannedDirectory) && lastModified == scannedLastModified) {
+            return;
+        }
+        scannedDirectory = dir;
+        scannedLastModified = lastModified;
+        final MirrorIndex index = getIndex();
+        INDEXER.execute(new Runnable() {
+            public void run() {
+                index.scan(dir);
+            }
+        });
+    }
+
+    private synchronized MirrorIndex getIndex() {
+        if (index == null) {
+            index = new MirrorIndex(new File(Jenkins.getActiveInstance().getRootDir(), "caches/golang-mirror.index"));
+        }
+        return index;
+    }
+
+    private static File getDirectory() {
+        GolangConfiguration config = GolangConfiguration.get();
+        String path = config == null ? null : config.getMirrorDirectory();
+        return path == null ? null : new File(path);
+    }
+
+}
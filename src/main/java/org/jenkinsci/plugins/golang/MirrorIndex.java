@@ -0,0 +1,316 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Util;
+import hudson.util.VersionNumber;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Index of the Go archives in a local mirror directory, with their checksums, kept in a compact file so that only
+ * archives which have been added or changed since the last scan need to be read.
+ * <p>
+ * Scanning may take a while, as archives without a digest file have to be read in full, so it's done in the
+ * background; meanwhile, {@link #getData} offers the archives indexed so far. Each archive is added to the index as
+ * soon as its digest is known, so an archive which can't be read doesn't hold back, or cause the rereading of, others.
+ * <p>
+ * The index file has a header line with the mirror directory, followed by one tab-separated line per archive, with
+ * its name, size, modification time, SHA-256 digest and the modification time of its digest file, if any.
+ */
+final class MirrorIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(MirrorIndex.class.getName());
+
+    /** Matches upstream Go archive filenames, capturing the version, OS, CPU architecture and minimum macOS version. */
+    static final Pattern ARCHIVE_NAME = Pattern.compile(
+            "go(\\d+\\.\\d+(?:\\.\\d+)?(?:(?:rc|beta)\\d+)?)\\.([a-z0-9]+)-([a-z0-9]+)(?:-osx(\\d+(?:\\.\\d+)*))?"
+                    + "\\.(?:tar\\.gz|zip)");
+
+    /** Suffix of the files containing the SHA-256 digest of each archive, as published alongside upstream archives. */
+    private static final String DIGEST_SUFFIX = ".sha256";
+
+    private static final String HEADER_PREFIX = "# Go mirror index: ";
+
+    private final File file;
+
+    /** Only one scan may run at a time. */
+    private final Object scanLock = new Object();
+
+    /** Archives indexed so far, keyed by name; or {@code null} if the index has not been loaded. */
+    private Map<String, Entry> entries;
+
+    /** Directory which {@link #entries} belong to. */
+    private File dir;
+
+    /** Changes whenever the indexed archives change; zero if none have been indexed. */
+    private long revision;
+
+    /** Number of archives whose digest had to be determined during the last scan. */
+    private int lastDigested;
+
+    MirrorIndex(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Updates the index with the archives currently in the given directory. Archives which can't be read are logged,
+     * and left out of the index until the next scan.
+     *
+     * @return Release data for the archives, in the same format as published by the update centre; or {@code null} if
+     * the directory contains no Go archives.
+     */
+    JSONObject scan(File dir) {
+        synchronized (scanLock) {
+            Map<String, Entry> known;
+            synchronized (this) {
+                known = new TreeMap<String, Entry>(load(dir));
+            }
+
+            File[] files = dir.listFiles();
+            Set<String> current = new HashSet<String>();
+            int digested = 0;
+            if (files != null) {
+                for (File f : files) {
+                    if (!f.isFile() || !ARCHIVE_NAME.matcher(f.getName()).matches()) {
+                        continue;
+                    }
+                    long digestLastModified = getDigestFile(f).lastModified();
+                    Entry entry = known.get(f.getName());
+                    if (entry == null || entry.size != f.length() || entry.lastModified != f.lastModified()
+                            || entry.digestLastModified != digestLastModified) {
+                        try {
+                            entry = new Entry(f.length(), f.lastModified(), getDigest(f), digestLastModified);
+                        } catch (IOException e) {
+                            LOGGER.log(Level.WARNING, "Could not determine the digest of Go archive " + f, e);
+                            continue;
+                        }
+                        digested++;
+                        // Keep what has been indexed so far, in case a later archive takes a while, or fails
+                        update(dir, f.getName(), entry);
+                    }
+                    current.add(f.getName());
+                }
+            }
+
+            synchronized (this) {
+                lastDigested = digested;
+                if (entries.keySet().retainAll(current)) {
+                    changed();
+                }
+                return getData(dir);
+            }
+        }
+    }
+
+    /**
+     * @return Release data for the archives in the given directory which have been indexed so far, or {@code null} if
+     * there are none.
+     */
+    synchronized JSONObject getData(File dir) {
+        Map<String, Entry> indexed = load(dir);
+        return indexed.isEmpty() ? null : toReleaseData(dir, indexed);
+    }
+
+    /** @return A value which changes whenever the indexed archives in the given directory change; zero if none. */
+    synchronized long getRevision(File dir) {
+        return load(dir).isEmpty() ? 0 : revision;
+    }
+
+    /** @return The number of archives which had to be read, or had their digest file read, during the last scan. */
+    synchronized int getLastDigested() {
+        return lastDigested;
+    }
+
+    /** @return The indexed archives, first loading them from the index file if necessary. */
+    private Map<String, Entry> load(File dir) {
+        if (entries == null || !dir.equals(this.dir)) {
+            try {
+                entries = read(file, dir);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not read the Go mirror index " + file, e);
+                entries = new TreeMap<String, Entry>();
+            }
+            this.dir = dir;
+            revision = Math.max(revision + 1, file.lastModified());
+        }
+        return entries;
+    }
+
+    private synchronized void update(File dir, String name, Entry entry) {
+        load(dir).put(name, entry);
+        changed();
+    }
+
+    /** Records that the indexed archives have changed; must be called while holding this object's monitor. */
+    private void changed() {
+        revision = Math.max(revision + 1, System.currentTimeMillis());
+        try {
+            write(file, dir, entries);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not write the Go mirror index " + file, e);
+        }
+    }
+
+    /** Groups the archives by version, with the newest version first, as upstream. */
+    private static JSONObject toReleaseData(File dir, Map<String, Entry> entries) {
+        Map<String, JSONArray> variantsByVersion = new HashMap<String, JSONArray>();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            Matcher m = ARCHIVE_NAME.matcher(e.getKey());
+            if (!m.matches()) {
+                continue;
+            }
+            JSONObject variant = new JSONObject()
+                    .element("url", new File(dir, e.getKey()).toURI().toString())
+                    .element("os", m.group(2))
+                    .element("arch", m.group(3))
+                    .element("sha256", e.getValue().sha256);
+            if (m.group(4) != null) {
+                variant.element("osxversion", m.group(4));
+            }
+            JSONArray variants = variantsByVersion.get(m.group(1));
+            if (variants == null) {
+                variants = new JSONArray();
+                variantsByVersion.put(m.group(1), variants);
+            }
+            variants.add(variant);
+        }
+
+        List<String> versions = new ArrayList<String>(variantsByVersion.keySet());
+        Collections.sort(versions, NEWEST_FIRST);
+        JSONArray releases = new JSONArray();
+        for (String version : versions) {
+            releases.add(new JSONObject()
+                    .element("id", version)
+                    .element("name", "Go " + version)
+                    .element("variants", variantsByVersion.get(version)));
+        }
+        return new JSONObject().element("releases", releases);
+    }
+
+    private static final Comparator<String> NEWEST_FIRST = new Comparator<String>() {
+        public int compare(String a, String b) {
+            return new VersionNumber(b).compareTo(new VersionNumber(a));
+        }
+    };
+
+    private static File getDigestFile(File archive) {
+        return new File(archive.getPath() + DIGEST_SUFFIX);
+    }
+
+    /** @return The SHA-256 digest of the given archive, from its digest file if there is one. */
+    private static String getDigest(File archive) throws IOException {
+        File digestFile = getDigestFile(archive);
+        if (digestFile.isFile()) {
+            String content = new String(Files.readAllBytes(digestFile.toPath()), StandardCharsets.UTF_8).trim();
+            // May be in `sha256sum` format, i.e. followed by the filename
+            String[] parts = content.split("\\s+", 2);
+            if (parts[0].length() == 64) {
+                return parts[0].toLowerCase(Locale.ENGLISH);
+            }
+        }
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        try (InputStream in = new DigestInputStream(new FileInputStream(archive), digest)) {
+            byte[] buffer = new byte[65536];
+            while (in.read(buffer) != -1) {
+                // Keep reading
+            }
+        }
+        return Util.toHexString(digest.digest());
+    }
+
+    /** @return The entries in the given index file, or none if it doesn't exist, or was for a different directory. */
+    private static Map<String, Entry> read(File file, File dir) throws IOException {
+        Map<String, Entry> entries = new TreeMap<String, Entry>();
+        if (!file.isFile()) {
+            return entries;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            if (!(HEADER_PREFIX + dir.getAbsolutePath()).equals(reader.readLine())) {
+                return entries;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                // Indexes written by earlier versions don't record the digest file
+                if (fields.length != 4 && fields.length != 5) {
+                    continue;
+                }
+                try {
+                    entries.put(fields[0], new Entry(Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                            fields[3], fields.length == 5 ? Long.parseLong(fields[4]) : 0));
+                } catch (NumberFormatException e) {
+                    LOGGER.fine("Ignoring invalid mirror index line: " + line);
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static void write(File file, File dir, Map<String, Entry> entries) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Could not create directory " + parent);
+        }
+        File temp = new File(parent, file.getName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(HEADER_PREFIX + dir.getAbsolutePath());
+            writer.newLine();
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                Entry entry = e.getValue();
+                writer.write(e.getKey() + '\t' + entry.size + '\t' + entry.lastModified + '\t' + entry.sha256 + '\t'
+                        + entry.digestLastModified);
+                writer.newLine();
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static final class Entry {
+        final long size;
+        final long lastModified;
+        final String sha256;
+        /** Modification time of the archive's digest file, or zero if it had none. */
+        final long digestLastModified;
+
+        Entry(long size, long lastModified, String sha256, long digestLastModified) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.sha256 = sha256;
+            this.digestLastModified = digestLastModified;
+        }
+    }
+
+}
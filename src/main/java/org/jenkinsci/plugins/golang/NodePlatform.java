@@ -0,0 +1,77 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.remoting.VirtualChannel;
+import hudson.util.VersionNumber;
+
+import java.io.IOException;
+
+import static org.jenkinsci.plugins.golang.GolangInstaller.InstallationFailedException;
+
+/** The OS and CPU architecture of a node, along with their equivalent values used in Go archive filenames. */
+final class NodePlatform {
+
+    /** Value of the {@code os.name} system property. */
+    final String osName;
+
+    /** Value of the {@code os.arch} system property. */
+    final String osArch;
+
+    /** Value of the {@code os.version} system property; may be {@code null}. */
+    final String osVersion;
+
+    private volatile String platform;
+    private volatile String architecture;
+    private volatile VersionNumber version;
+
+    NodePlatform(String osName, String osArch, String osVersion) {
+        this.osName = osName;
+        this.osArch = osArch;
+        this.osVersion = osVersion;
+    }
+
+    /** @return The platform of the machine at the other end of the given channel. */
+    static NodePlatform of(VirtualChannel channel) throws IOException, InterruptedException {
+        String[] properties = channel.call(new GolangInstaller.GetSystemProperties("os.name", "os.arch", "os.version"));
+        return new NodePlatform(properties[0], properties[1], properties[2]);
+    }
+
+    /** @return The OS value used in a Go archive filename. */
+    String getPlatform() throws InstallationFailedException {
+        String value = platform;
+        if (value == null) {
+            value = GolangInstaller.getPlatform(osName);
+            platform = value;
+        }
+        return value;
+    }
+
+    /** @return The CPU architecture value used in a Go archive filename. */
+    String getArchitecture() throws InstallationFailedException {
+        String value = architecture;
+        if (value == null) {
+            value = GolangInstaller.getArchitecture(osArch);
+            architecture = value;
+        }
+        return value;
+    }
+
+    /** @return The parsed OS version, or {@code null} if unknown. */
+    VersionNumber getOsVersion() {
+        if (osVersion == null) {
+            return null;
+        }
+        VersionNumber value = version;
+        if (value == null) {
+            value = new VersionNumber(osVersion);
+            version = value;
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return osVersion == null ? String.format("%s (%s)", osName, osArch)
+                : String.format("%s %s (%s)", osName, osVersion, osArch);
+    }
+
+}
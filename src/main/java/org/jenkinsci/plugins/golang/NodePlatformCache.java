@@ -0,0 +1,67 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Extension;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.slaves.ComputerListener;
+import hudson.slaves.OfflineCause;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the platform of each connected computer, so that we don't need to ask the agent for its system properties
+ * every time Go is to be installed.
+ * <p>
+ * Entries are populated by the first installation after an agent connects, rather than when it connects, so that
+ * agents which never install Go aren't asked for anything; and are discarded when it reconnects or goes offline.
+ */
+@Extension
+public class NodePlatformCache extends ComputerListener {
+
+    private static final Map<Computer, NodePlatform> PLATFORMS = new ConcurrentHashMap<Computer, NodePlatform>();
+
+    /** @return The platform of the given node, querying the node only if we haven't already seen it. */
+    static NodePlatform get(Node node) throws IOException, InterruptedException {
+        Computer computer = node.toComputer();
+        if (computer != null) {
+            NodePlatform platform = PLATFORMS.get(computer);
+            if (platform != null) {
+                return platform;
+            }
+        }
+
+        VirtualChannel channel = node.getChannel();
+        if (channel == null) {
+            throw new GolangInstaller.InstallationFailedException(Messages.NodeOffline(node.getDisplayName()));
+        }
+        NodePlatform platform = NodePlatform.of(channel);
+
+        // Only remember the result if the computer hasn't reconnected in the meantime
+        if (computer != null && computer.getChannel() == channel) {
+            PLATFORMS.put(computer, platform);
+        }
+        return platform;
+    }
+
+    /** @return The platforms of all connected computers which we know about. */
+    static Collection<NodePlatform> getAll() {
+        return new ArrayList<NodePlatform>(PLATFORMS.values());
+    }
+
+    @Override
+    public void onOnline(Computer c, TaskListener listener) {
+        PLATFORMS.remove(c);
+    }
+
+    @Override
+    public void onOffline(Computer c, OfflineCause cause) {
+        PLATFORMS.remove(c);
+    }
+
+}
@@ -0,0 +1,310 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.tools.InstallSourceProperty;
+import hudson.tools.ToolInstaller;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.LogTaskListener;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.jenkinsci.plugins.golang.GolangInstaller.GolangRelease;
+import static org.jenkinsci.plugins.golang.GolangInstaller.ReleaseCatalogue;
+
+/**
+ * Tracks which release each alias, e.g. {@code 1.16.x} or {@code stable}, refers to, so that installations can follow
+ * the latest release without being updated by hand.
+ * <p>
+ * Aliases are only re-resolved when the catalogue changes. When an alias moves to a new release, builds keep using the
+ * previous release until the new release's archives have been downloaded into the controller's archive cache for every
+ * platform of the connected nodes, if the archive cache is enabled. The new release is then installed onto nodes in
+ * the background, if provisioning is enabled, rather than by every build at once. The release which each alias refers
+ * to is kept on disk, so that this also holds after a restart.
+ * <p>
+ * An installation which running builds are using is not replaced by the alias's new release until it is no longer in
+ * use; see {@link GolangInstaller}.
+ */
+final class ReleaseAliases {
+
+    private static final Logger LOGGER = Logger.getLogger(ReleaseAliases.class.getName());
+
+    /** Refers to the latest stable release of a minor version, when appended to that version, e.g. {@code 1.16.x}. */
+    static final String MINOR_SUFFIX = ".x";
+
+    /** Refers to the latest stable release. */
+    static final String LATEST_STABLE = "stable";
+
+    private static final List<String> LATEST_STABLE_ALIASES = Arrays.asList(LATEST_STABLE, "latest-stable");
+
+    private static final ExecutorService PREFETCHER = Executors.newSingleThreadExecutor(
+            new NamingThreadFactory(new DaemonThreadFactory(), "Go release prefetch"));
+
+    /** Current state of each alias which has been used, keyed by alias. */
+    private static final Map<String, Resolution> RESOLUTIONS = new HashMap<String, Resolution>();
+
+    /** Whether {@link #RESOLUTIONS} has been loaded from disk; guarded by {@link #RESOLUTIONS}. */
+    private static boolean loaded;
+
+    private ReleaseAliases() {
+    }
+
+    private static final class Resolution {
+        /** Timestamp of the catalogue from which this alias was last resolved, or {@code -1} if loaded from disk. */
+        long timestamp;
+
+        /** ID of the release which builds should use. */
+        String current;
+
+        /** ID of the release which the alias has moved to, while it's being prefetched; otherwise {@code null}. */
+        String pending;
+    }
+
+    /** @return Whether the given release ID is an alias, rather than a specific release. */
+    static boolean isAlias(String id) {
+        return id != null && (id.endsWith(MINOR_SUFFIX) || LATEST_STABLE_ALIASES.contains(id));
+    }
+
+    /** @return Every alias which may refer to a stable release with the given minor version, e.g. {@code 1.16}. */
+    static List<String> aliasesOf(String minorVersion) {
+        List<String> aliases = new ArrayList<String>(LATEST_STABLE_ALIASES.size() + 1);
+        aliases.add(minorVersion + MINOR_SUFFIX);
+        aliases.addAll(LATEST_STABLE_ALIASES);
+        return aliases;
+    }
+
+    /**
+     * @return The release which builds should currently use for the given alias, or {@code null} if the alias
+     * doesn't refer to any release in the given catalogue.
+     */
+    static GolangRelease resolve(String alias, ReleaseCatalogue catalogue) {
+        GolangRelease latest = catalogue.resolveAlias(alias);
+        if (latest == null) {
+            return null;
+        }
+
+        GolangRelease current;
+        boolean moved = false;
+        synchronized (RESOLUTIONS) {
+            load();
+            Resolution resolution = RESOLUTIONS.get(alias);
+            if (resolution == null) {
+                // Nothing has used this alias before, so there's no previous release to keep using
+                resolution = new Resolution();
+                resolution.timestamp = catalogue.timestamp;
+                resolution.current = latest.id;
+                RESOLUTIONS.put(alias, resolution);
+                save();
+                return latest;
+            }
+            if (resolution.timestamp != catalogue.timestamp) {
+                resolution.timestamp = catalogue.timestamp;
+                if (!latest.id.equals(resolution.current) && !latest.id.equals(resolution.pending)) {
+                    resolution.pending = latest.id;
+                    moved = true;
+                }
+            }
+            current = catalogue.getRelease(resolution.current);
+        }
+
+        if (moved) {
+            prefetch(alias, latest);
+        }
+        // The previous release may have been withdrawn from the catalogue
+        return current == null ? latest : current;
+    }
+
+    /** Re-resolves the aliases used by all installations, if the catalogue has changed. */
+    static void refresh() {
+        ReleaseCatalogue catalogue = GolangReleaseSource.getActiveCatalogue();
+        if (catalogue == null) {
+            return;
+        }
+        for (String alias : getAliasesInUse()) {
+            resolve(alias, catalogue);
+        }
+    }
+
+    /** Downloads the new release in the background, and then lets builds use it. */
+    private static void prefetch(final String alias, final GolangRelease release) {
+        LOGGER.info(String.format("Go release alias '%s' has moved to %s", alias, release.name));
+        PREFETCHER.execute(new Runnable() {
+            public void run() {
+                try {
+                    fetchArchives(release);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    update(alias, release);
+                }
+            }
+        });
+    }
+
+    /** Downloads the archives for the given release into the archive cache, for each platform currently connected. */
+    private static void fetchArchives(GolangRelease release) throws InterruptedException {
+        GolangConfiguration config = GolangConfiguration.get();
+        ArchiveCache cache = config == null ? null : config.getArchiveCache();
+        if (cache == null) {
+            return;
+        }
+
+        Set<String> urls = new LinkedHashSet<String>();
+        for (NodePlatform platform : NodePlatformCache.getAll()) {
+            try {
+                urls.add(GolangInstaller.getInstallCandidate(release, platform).url);
+            } catch (GolangInstaller.InstallationFailedException e) {
+                LOGGER.log(Level.FINE, "No " + release.name + " archive for " + platform, e);
+            }
+        }
+        for (String url : urls) {
+            try {
+                cache.fetch(new URL(url), new LogTaskListener(LOGGER, Level.FINE)).close();
+            } catch (IOException e) {
+                // Builds will try again, if necessary
+                LOGGER.log(Level.WARNING, "Failed to prefetch " + url, e);
+            }
+        }
+    }
+
+    /** Switches the alias over to the given release, and provisions nodes with it, if enabled. */
+    private static void update(String alias, GolangRelease release) {
+        synchronized (RESOLUTIONS) {
+            Resolution resolution = RESOLUTIONS.get(alias);
+            // The alias may have moved again in the meantime
+            if (resolution == null || !release.id.equals(resolution.pending)) {
+                return;
+            }
+            resolution.current = release.id;
+            resolution.pending = null;
+            save();
+        }
+        // Make sure that the next builds actually install the new release
+        TranslatedInstallations.clear();
+
+        GolangConfiguration config = GolangConfiguration.get();
+        if (config != null && (config.getProvisioningIntervalMinutes() > 0 || config.isProvisionOnConnect())) {
+            GolangProvisioner.provision(getInstallationsUsing(alias), config.getProvisioningLabel());
+        }
+    }
+
+    /** @return Each alias used by an automatically-installed Go installation. */
+    private static Set<String> getAliasesInUse() {
+        Set<String> aliases = new LinkedHashSet<String>();
+        for (GolangInstallation installation : GolangProvisioner.getInstallations(null)) {
+            for (GolangInstaller installer : getInstallers(installation)) {
+                if (isAlias(installer.id)) {
+                    aliases.add(installer.id);
+                }
+            }
+        }
+        return aliases;
+    }
+
+    private static List<GolangInstallation> getInstallationsUsing(String alias) {
+        List<GolangInstallation> installations = new ArrayList<GolangInstallation>();
+        for (GolangInstallation installation : GolangProvisioner.getInstallations(null)) {
+            for (GolangInstaller installer : getInstallers(installation)) {
+                if (alias.equals(installer.id)) {
+                    installations.add(installation);
+                    break;
+                }
+            }
+        }
+        return installations;
+    }
+
+    private static List<GolangInstaller> getInstallers(GolangInstallation installation) {
+        List<GolangInstaller> installers = new ArrayList<GolangInstaller>();
+        InstallSourceProperty source = installation.getProperties().get(InstallSourceProperty.class);
+        if (source != null) {
+            for (ToolInstaller installer : source.installers) {
+                if (installer instanceof GolangInstaller) {
+                    installers.add((GolangInstaller) installer);
+                }
+            }
+        }
+        return installers;
+    }
+
+    /** Loads the release which each alias referred to before Jenkins was restarted, if not already loaded. */
+    private static void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        File file = getFile();
+        if (file == null || !file.isFile()) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                if (fields.length != 2 || RESOLUTIONS.containsKey(fields[0])) {
+                    continue;
+                }
+                Resolution resolution = new Resolution();
+                resolution.timestamp = -1;
+                resolution.current = fields[1];
+                RESOLUTIONS.put(fields[0], resolution);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not read " + file, e);
+        }
+    }
+
+    /** Records the release which each alias currently refers to; must be called while holding the lock. */
+    private static void save() {
+        File file = getFile();
+        if (file == null) {
+            return;
+        }
+        try {
+            ArchiveExtractor.mkdirs(file.getParentFile());
+            File temp = new File(file.getPath() + ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Resolution> e : RESOLUTIONS.entrySet()) {
+                    writer.write(e.getKey() + '\t' + e.getValue().current);
+                    writer.newLine();
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not save the Go release aliases to " + file, e);
+        }
+    }
+
+    private static File getFile() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        return jenkins == null ? null : new File(jenkins.getRootDir(), "caches/golang-release-aliases");
+    }
+
+    /** Forgets how each alias was resolved, as if Jenkins had been restarted; for testing. */
+    static void reset() {
+        synchronized (RESOLUTIONS) {
+            RESOLUTIONS.clear();
+            loaded = false;
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package org.jenkinsci.plugins.golang;
+
+import org.jvnet.localizer.Localizable;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.jenkinsci.plugins.golang.GolangInstaller.GolangRelease;
+
+/** Which Go releases to offer when choosing a version to install. */
+public enum ReleaseFilter {
+
+    /** Every release, including betas and release candidates. */
+    ALL(Messages._ReleaseFilter_All()),
+
+    /** Every release, other than betas and release candidates. */
+    STABLE(Messages._ReleaseFilter_Stable()),
+
+    /** Stable releases from the most recent few minor versions. */
+    RECENT_MINORS(Messages._ReleaseFilter_RecentMinors(ReleaseFilter.RECENT_MINOR_COUNT)),
+
+    /** The latest stable release of each minor version. */
+    LATEST_PATCHES(Messages._ReleaseFilter_LatestPatches());
+
+    /** Number of minor versions listed by {@link #RECENT_MINORS}. */
+    static final int RECENT_MINOR_COUNT = 3;
+
+    /** Matches stable release IDs, e.g. {@code 1.16} or {@code 1.16.3}, capturing the minor version. */
+    private static final Pattern STABLE_ID = Pattern.compile("(\\d+\\.\\d+)(?:\\.\\d+)?");
+
+    private final Localizable displayName;
+
+    ReleaseFilter(Localizable displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName.toString();
+    }
+
+    /** @return The filter with the given name, or {@link #STABLE} if unrecognised. */
+    static ReleaseFilter of(String name) {
+        if (name != null) {
+            for (ReleaseFilter filter : values()) {
+                if (filter.name().equals(name)) {
+                    return filter;
+                }
+            }
+        }
+        return STABLE;
+    }
+
+    /**
+     * @param releases Releases in the order given by the update centre, i.e. newest first.
+     * @return The releases which match this filter, in the same order.
+     */
+    List<GolangRelease> apply(List<GolangRelease> releases) {
+        if (this == ALL) {
+            return releases;
+        }
+
+        List<GolangRelease> matches = new ArrayList<GolangRelease>();
+        Set<String> minors = new HashSet<String>();
+        for (GolangRelease release : releases) {
+            String minor = getStableMinorVersion(release);
+            if (minor == null) {
+                continue;
+            }
+            boolean newMinor = minors.add(minor);
+            if (this == STABLE || (this == LATEST_PATCHES && newMinor)
+                    || (this == RECENT_MINORS && minors.size() <= RECENT_MINOR_COUNT)) {
+                matches.add(release);
+            }
+        }
+        return matches;
+    }
+
+    /** @return The minor version of the given release, e.g. {@code 1.16}, or {@code null} if it's a pre-release. */
+    static String getStableMinorVersion(GolangRelease release) {
+        Matcher m = release.id == null ? null : STABLE_ID.matcher(release.id);
+        return m != null && m.matches() ? m.group(1) : null;
+    }
+
+}
@@ -0,0 +1,596 @@
+package org.jenkinsci.plugins.golang;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.ProxyConfiguration;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Downloads Go archives over HTTP, picking up where the transfer left off if the connection drops.
+ * <p>
+ * Resumption uses HTTP {@code Range} requests, guarded by {@code If-Range} so that a file which changed on the server
+ * is downloaded again from the start, rather than being stitched together from two different versions. Servers which
+ * don't support ranges are handled by starting again from scratch, where possible.
+ */
+final class ResumableDownload {
+
+    private static final Logger LOGGER = Logger.getLogger(ResumableDownload.class.getName());
+
+    /** Number of times to try reconnecting, in a row without making any progress, before giving up. */
+    static final int MAX_ATTEMPTS = 5;
+
+    /** Files smaller than this are always downloaded over a single connection. */
+    static final long MIN_PARALLEL_SIZE = 8 * 1024 * 1024;
+
+    /** Time to wait before the first reconnection attempt, which doubles with each further attempt. */
+    @SuppressFBWarnings("MS_SHOULD_BE_FINAL")
+    static /* not final, for tests */ long RETRY_DELAY_MILLIS =
+            Long.getLong(ResumableDownload.class.getName() + ".retryDelayMillis", 1000);
+
+    /** How long to wait to connect to the server. */
+    @SuppressFBWarnings("MS_SHOULD_BE_FINAL")
+    static /* not final, for tests */ int CONNECT_TIMEOUT_MILLIS =
+            Integer.getInteger(ResumableDownload.class.getName() + ".connectTimeoutMillis", 30 * 1000);
+
+    /** How long to wait for the server to respond, or to send more data, before reconnecting. */
+    @SuppressFBWarnings("MS_SHOULD_BE_FINAL")
+    static /* not final, for tests */ int READ_TIMEOUT_MILLIS =
+            Integer.getInteger(ResumableDownload.class.getName() + ".readTimeoutMillis", 60 * 1000);
+
+    /** How often each parallel connection records its progress, so that an interrupted download can be resumed. */
+    private static final long PROGRESS_INTERVAL = 1024 * 1024;
+
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+|\\*)");
+
+    /** Suffix of the file recording which version of the remote file is partially downloaded. */
+    private static final String STATE_SUFFIX = ".state";
+
+    /** Opens connections to the server. */
+    interface Opener {
+        URLConnection open(URL url) throws IOException;
+    }
+
+    /** Connects directly, e.g. from agents, which don't know the controller's proxy settings. */
+    static final Opener DIRECT = new Opener() {
+        @Override
+        public URLConnection open(URL url) throws IOException {
+            return url.openConnection();
+        }
+    };
+
+    /** Connects via the proxy configured in Jenkins, if any. */
+    static final Opener PROXY = new Opener() {
+        @Override
+        public URLConnection open(URL url) throws IOException {
+            return ProxyConfiguration.open(url);
+        }
+    };
+
+    private ResumableDownload() {
+    }
+
+    /**
+     * @return A stream of the file at the given URL, which transparently reconnects and resumes if the connection
+     *         drops, or a plain stream if the URL is not HTTP.
+     */
+    static InputStream open(URL url, Opener opener) throws IOException {
+        if (!isHttp(url)) {
+            return connect(url, opener).getInputStream();
+        }
+        ResumingInputStream in = new ResumingInputStream(url, opener, 0, -1, null);
+        in.connect(false);
+        return in;
+    }
+
+    /**
+     * Downloads the file at the given URL to the given partial file, which is kept if the download fails, so that a
+     * later call can continue where this one left off.
+     *
+     * @param connections Number of connections to download separate ranges of the file over in parallel.
+     * @param limiter Limit on the combined download rate of all connections, or {@code null} if there is none.
+     */
+    static void toFile(URL url, File partial, Opener opener, int connections, BandwidthLimiter limiter)
+            throws IOException, InterruptedException {
+        if (!isHttp(url)) {
+            try (InputStream in = connect(url, opener).getInputStream();
+                 OutputStream out = new FileOutputStream(partial)) {
+                IOUtils.copy(throttle(in, limiter), out);
+            }
+            return;
+        }
+
+        State state = State.read(partial);
+        if (connections > 1 && (state == null || state.segments > 1)) {
+            State probed;
+            try {
+                probed = probe(url, opener);
+                if (probed != null) {
+                    probed.segments = connections;
+                }
+            } catch (IOException e) {
+                if (state == null) {
+                    throw e;
+                }
+                // Carry on with the previous attempt; If-Range will tell us if the file has since changed
+                LOGGER.log(Level.FINE, "Could not check " + url + "; resuming the previous download", e);
+                probed = state;
+            }
+            if (probed != null && probed.length >= MIN_PARALLEL_SIZE) {
+                if (state == null || !state.matches(probed)) {
+                    deleteSegments(partial, state);
+                    Files.deleteIfExists(partial.toPath());
+                    state = probed;
+                    state.write(partial);
+                }
+                try {
+                    downloadSegments(url, partial, opener, state, limiter);
+                    return;
+                } catch (FileChangedException e) {
+                    // What we have is from an older version of the file, so start again
+                    LOGGER.log(Level.FINE, "Restarting download of " + url, e);
+                    deleteSegments(partial, state);
+                    Files.deleteIfExists(partial.toPath());
+                    state = null;
+                }
+            }
+        }
+
+        // Download over a single connection, continuing from any previous attempt at that
+        if (state != null && state.segments > 1) {
+            deleteSegments(partial, state);
+            state = null;
+        }
+        long offset = state != null && partial.isFile() ? partial.length() : 0;
+        if (state != null && state.length >= 0 && offset == state.length) {
+            State.delete(partial);
+            return;
+        }
+        ResumingInputStream in = new ResumingInputStream(url, opener, offset, -1,
+                state == null ? null : state.validator);
+        try {
+            in.connect(true);
+            if (in.position == 0) {
+                // Not resuming, whether because there was nothing to resume, or the file has changed
+                Files.deleteIfExists(partial.toPath());
+            }
+            new State(in.validator, in.length, 1).write(partial);
+            try (OutputStream out = new FileOutputStream(partial, true)) {
+                IOUtils.copy(throttle(in, limiter), out);
+            }
+        } finally {
+            in.close();
+        }
+        State.delete(partial);
+    }
+
+    private static InputStream throttle(InputStream in, BandwidthLimiter limiter) {
+        return limiter == null ? in : limiter.wrap(in);
+    }
+
+    /**
+     * Downloads each segment of the file in parallel, writing each straight into its place in the partial file, and
+     * recording the progress of each segment alongside it.
+     */
+    private static void downloadSegments(final URL url, final File partial, final Opener opener, final State state,
+                                         final BandwidthLimiter limiter) throws IOException, InterruptedException {
+        final long segmentSize = (state.length + state.segments - 1) / state.segments;
+        ExecutorService executor = Executors.newFixedThreadPool(state.segments,
+                new NamingThreadFactory(new DaemonThreadFactory(), "Go archive download"));
+        try (final FileChannel out = FileChannel.open(partial.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int i = 0; i < state.segments; i++) {
+                final File progress = getSegment(partial, i);
+                final long start = i * segmentSize;
+                final long end = Math.min(state.length, start + segmentSize) - 1;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        long done = readProgress(progress);
+                        if (start + done > end) {
+                            return null;
+                        }
+                        try (ResumingInputStream in = new ResumingInputStream(url, opener, start + done, end,
+                                state.validator)) {
+                            in.connect(false);
+                            InputStream throttled = throttle(in, limiter);
+                            byte[] buffer = new byte[64 * 1024];
+                            long saved = done;
+                            try {
+                                int n;
+                                while ((n = throttled.read(buffer)) != -1) {
+                                    ByteBuffer b = ByteBuffer.wrap(buffer, 0, n);
+                                    while (b.hasRemaining()) {
+                                        done += out.write(b, start + done);
+                                    }
+                                    if (done - saved >= PROGRESS_INTERVAL) {
+                                        writeProgress(progress, done);
+                                        saved = done;
+                                    }
+                                }
+                            } finally {
+                                writeProgress(progress, done);
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            // Let every segment get as far as it can, so that its progress is kept for the next attempt
+            IOException failure = null;
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof IOException ? (IOException) e.getCause()
+                                : new IOException(e.getCause());
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long downloaded = 0;
+        for (int i = 0; i < state.segments; i++) {
+            downloaded += readProgress(getSegment(partial, i));
+        }
+        if (downloaded != state.length || partial.length() != state.length) {
+            deleteSegments(partial, state);
+            throw new IOException("Downloaded " + downloaded + " bytes of " + url + ", rather than the expected "
+                    + state.length);
+        }
+        deleteSegments(partial, state);
+    }
+
+    /** @return How many bytes of a segment have been written to the partial file. */
+    private static long readProgress(File progress) {
+        if (!progress.isFile()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(new String(Files.readAllBytes(progress.toPath()), StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            LOGGER.log(Level.FINE, "Ignoring unreadable download progress " + progress, e);
+            return 0;
+        }
+    }
+
+    private static void writeProgress(File progress, long done) throws IOException {
+        Files.write(progress.toPath(), Long.toString(done).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return The size and version of the file at the given URL, or {@code null} if it can't be fetched in ranges.
+     * @throws IOException If the server could not be reached, or returned an error.
+     */
+    private static State probe(URL url, Opener opener) throws IOException {
+        HttpURLConnection c = (HttpURLConnection) connect(url, opener);
+        try {
+            c.setRequestMethod("HEAD");
+            int code = c.getResponseCode();
+            if (code >= 400) {
+                throw new IOException("Server returned HTTP " + code + " for " + url);
+            }
+            if (code != HttpURLConnection.HTTP_OK || !"bytes".equalsIgnoreCase(c.getHeaderField("Accept-Ranges"))) {
+                return null;
+            }
+            String validator = getValidator(c);
+            long length = c.getContentLengthLong();
+            return validator == null || length < 0 ? null : new State(validator, length, 1);
+        } finally {
+            c.disconnect();
+        }
+    }
+
+    /** @return A connection to the given URL, which won't wait forever for the server. */
+    private static URLConnection connect(URL url, Opener opener) throws IOException {
+        URLConnection c = opener.open(url);
+        c.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        c.setReadTimeout(READ_TIMEOUT_MILLIS);
+        return c;
+    }
+
+    /** @return The file recording the progress of the given segment of a parallel download. */
+    private static File getSegment(File partial, int index) {
+        return new File(partial.getPath() + "." + index);
+    }
+
+    private static void deleteSegments(File partial, State state) throws IOException {
+        if (state != null) {
+            for (int i = 0; i < state.segments; i++) {
+                Files.deleteIfExists(getSegment(partial, i).toPath());
+            }
+        }
+        State.delete(partial);
+    }
+
+    /** @return The value to send as {@code If-Range}, i.e. a strong ETag, or the modification date. */
+    private static String getValidator(URLConnection c) {
+        String etag = c.getHeaderField("ETag");
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return c.getHeaderField("Last-Modified");
+    }
+
+    private static boolean isHttp(URL url) {
+        return url.getProtocol().equals("http") || url.getProtocol().equals("https");
+    }
+
+    /** Which version of the remote file is being downloaded, and how. */
+    private static final class State {
+
+        final String validator;
+        final long length;
+        int segments;
+
+        State(String validator, long length, int segments) {
+            this.validator = validator;
+            this.length = length;
+            this.segments = segments;
+        }
+
+        boolean matches(State other) {
+            return validator != null && validator.equals(other.validator) && length == other.length
+                    && segments == other.segments;
+        }
+
+        void write(File partial) throws IOException {
+            String text = length + "\n" + segments + "\n" + (validator == null ? "" : validator) + "\n";
+            Files.write(getFile(partial).toPath(), text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /** @return The state of the previous attempt to download to the given file, if it can be resumed. */
+        static State read(File partial) {
+            File file = getFile(partial);
+            if (!file.isFile()) {
+                return null;
+            }
+            try {
+                List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+                if (lines.size() < 3 || lines.get(2).isEmpty()) {
+                    return null;
+                }
+                return new State(lines.get(2), Long.parseLong(lines.get(0)), Integer.parseInt(lines.get(1)));
+            } catch (IOException | NumberFormatException e) {
+                LOGGER.log(Level.FINE, "Ignoring unreadable download state " + file, e);
+                return null;
+            }
+        }
+
+        static void delete(File partial) throws IOException {
+            Files.deleteIfExists(getFile(partial).toPath());
+        }
+
+        private static File getFile(File partial) {
+            return new File(partial.getPath() + STATE_SUFFIX);
+        }
+
+    }
+
+    /** Reads a range of a remote file, reconnecting and continuing from the current position if the transfer fails. */
+    private static final class ResumingInputStream extends InputStream {
+
+        private final URL url;
+        private final Opener opener;
+
+        /** Last byte to read, inclusive; or {@code -1} to read to the end of the file. */
+        private final long end;
+
+        /** Position in the remote file of the next byte to be read. */
+        long position;
+
+        /** Version of the remote file being read, or {@code null} if unknown, or not to be checked. */
+        String validator;
+
+        /** Total size of the remote file, or {@code -1} if unknown. */
+        long length = -1;
+
+        private HttpURLConnection connection;
+        private InputStream in;
+
+        ResumingInputStream(URL url, Opener opener, long position, long end, String validator) {
+            this.url = url;
+            this.opener = opener;
+            this.position = position;
+            this.end = end;
+            this.validator = validator;
+        }
+
+        /**
+         * Requests the file from the current position.
+         *
+         * @param restartAllowed Whether we may start from the beginning of the file, if the server can't resume from
+         *                       the current position; {@link #position} is then reset to zero.
+         */
+        void connect(boolean restartAllowed) throws IOException {
+            HttpURLConnection c = (HttpURLConnection) ResumableDownload.connect(url, opener);
+            boolean ranged = position > 0 || end >= 0;
+            if (ranged) {
+                c.setRequestProperty("Range", "bytes=" + position + "-" + (end >= 0 ? end : ""));
+                if (validator != null) {
+                    c.setRequestProperty("If-Range", validator);
+                }
+            }
+
+            int code = c.getResponseCode();
+            if (code == HttpURLConnection.HTTP_PARTIAL && ranged) {
+                Matcher m = CONTENT_RANGE.matcher(String.valueOf(c.getHeaderField("Content-Range")));
+                if (!m.matches() || Long.parseLong(m.group(1)) != position) {
+                    c.disconnect();
+                    throw new IOException("Unexpected Content-Range from " + url + ": "
+                            + c.getHeaderField("Content-Range"));
+                }
+                if (!m.group(3).equals("*")) {
+                    length = Long.parseLong(m.group(3));
+                }
+            } else if (code == 416 && restartAllowed) {
+                // Range Not Satisfiable; the partial file is probably complete, but we can't be sure, so start again
+                c.disconnect();
+                position = 0;
+                validator = null;
+                connect(false);
+                return;
+            } else if (code == HttpURLConnection.HTTP_OK) {
+                // The server ignored the range, so we'd get the whole file, possibly a different version of it
+                if (ranged && !restartAllowed) {
+                    c.disconnect();
+                    throw new FileChangedException("Cannot resume download of " + url + ", as the server does not "
+                            + "support it, or the file has changed");
+                }
+                position = 0;
+                length = c.getContentLengthLong();
+            } else {
+                c.disconnect();
+                throw new IOException("Server returned HTTP " + code + " for " + url);
+            }
+
+            String current = getValidator(c);
+            if (validator == null || code == HttpURLConnection.HTTP_OK) {
+                validator = current;
+            }
+            connection = c;
+            in = c.getInputStream();
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            int n = read(b, 0, 1);
+            return n == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int attempts = 0;
+            while (true) {
+                IOException failure;
+                try {
+                    int n = in.read(b, off, len);
+                    if (n > 0) {
+                        position += n;
+                        return n;
+                    }
+                    if (n == -1 && isComplete()) {
+                        return -1;
+                    }
+                    if (n == 0) {
+                        return 0;
+                    }
+                    failure = new IOException("Connection closed after " + position + " bytes of " + url);
+                } catch (InterruptedIOException e) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw e;
+                    }
+                    // Otherwise, the read timed out
+                    failure = e;
+                } catch (IOException e) {
+                    failure = e;
+                }
+
+                // Reconnect, and carry on from where we were
+                if (++attempts > MAX_ATTEMPTS || validator == null) {
+                    throw failure;
+                }
+                LOGGER.log(Level.FINE, "Resuming download of " + url + " from byte " + position, failure);
+                connection.disconnect();
+                try {
+                    Thread.sleep(RETRY_DELAY_MILLIS << (attempts - 1));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw (IOException) new InterruptedIOException().initCause(e);
+                }
+                try {
+                    connect(false);
+                } catch (FileChangedException e) {
+                    throw e;
+                } catch (IOException e) {
+                    in = new FailedInputStream(e);
+                }
+            }
+        }
+
+        /** @return Whether everything we asked for has been read; assumed to be the case if the size is unknown. */
+        private boolean isComplete() {
+            if (end >= 0) {
+                return position > end;
+            }
+            return length < 0 || position >= length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (in != null) {
+                in.close();
+            }
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+
+    }
+
+    /** Thrown when a download can't be resumed, as the server no longer has the same version of the file. */
+    static final class FileChangedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        FileChangedException(String message) {
+            super(message);
+        }
+    }
+
+    /** Fails on the next read, so that reconnection is attempted again. */
+    private static final class FailedInputStream extends InputStream {
+
+        private final IOException failure;
+
+        FailedInputStream(IOException failure) {
+            this.failure = failure;
+        }
+
+        @Override
+        public int read() throws IOException {
+            throw failure;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            throw failure;
+        }
+
+    }
+
+}
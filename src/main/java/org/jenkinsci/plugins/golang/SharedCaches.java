@@ -0,0 +1,246 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import jenkins.model.Jenkins;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks which builds are using the shared Go caches on each node, so that the caches are only trimmed when no build
+ * is using them.
+ * <p>
+ * Go itself supports concurrent use of the caches by multiple processes, so any number of builds may use the caches at
+ * the same time. Builds which start while the caches are being trimmed wait until trimming has finished.
+ * <p>
+ * Builds which set up Go via the Pipeline {@code tool} step don't register their use of the caches, so the caches are
+ * also trimmed periodically; the module cache is then only cleared if the installation hasn't been used for a while.
+ */
+final class SharedCaches {
+
+    /** Minimum time between checking the size of a given cache. */
+    private static final long TRIM_INTERVAL = TimeUnit.MINUTES.toNanos(30);
+
+    private static final Map<String, Usage> USAGES = new HashMap<String, Usage>();
+
+    private SharedCaches() {
+    }
+
+    /** Registers that a build on the given node is about to use the caches for the given Go installation. */
+    static void acquire(Node node, String home) throws InterruptedException {
+        while (true) {
+            Usage usage = getUsage(node, home);
+            synchronized (usage) {
+                while (usage.trimming && !usage.pruned) {
+                    usage.wait();
+                }
+                if (usage.pruned) {
+                    continue;
+                }
+                usage.users++;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Registers that a build on the given node has finished using the caches, trimming them if they are no longer in
+     * use and have grown too large.
+     */
+    static void release(Node node, String home, long maxSizeMb, TaskListener log) throws InterruptedException {
+        Usage usage;
+        while (true) {
+            usage = getUsage(node, home);
+            synchronized (usage) {
+                if (usage.pruned) {
+                    continue;
+                }
+                usage.users--;
+                if (usage.users > 0 || maxSizeMb <= 0 || System.nanoTime() - usage.lastTrimmed < TRIM_INTERVAL) {
+                    return;
+                }
+                usage.trimming = true;
+                break;
+            }
+        }
+        trim(node, home, maxSizeMb, true, usage, log);
+    }
+
+    /**
+     * Trims the caches for the Go installation at the given location on the node, if no build has registered its use
+     * of them; the module cache is only cleared if the installation hasn't been used recently.
+     */
+    static void trimIdle(Node node, String home, long maxSizeMb, TaskListener log) throws InterruptedException {
+        Long lastUsed = InstallationUsage.getLastUsed(node).get(home);
+        boolean idle = lastUsed == null
+                || System.currentTimeMillis() - lastUsed > GolangEvictionTask.MIN_IDLE_MILLIS;
+        Usage usage;
+        while (true) {
+            usage = getUsage(node, home);
+            synchronized (usage) {
+                if (usage.pruned) {
+                    continue;
+                }
+                if (usage.users > 0 || usage.trimming || maxSizeMb <= 0) {
+                    return;
+                }
+                usage.trimming = true;
+                break;
+            }
+        }
+        trim(node, home, maxSizeMb, idle, usage, log);
+    }
+
+    private static void trim(Node node, String home, long maxSizeMb, boolean clearModuleCache, Usage usage,
+                             TaskListener log) throws InterruptedException {
+        try {
+            FilePath root = node.createPath(GolangCachesProperty.getCacheRoot(home));
+            if (root != null) {
+                long removed = root.act(new TrimGoCaches(maxSizeMb * 1024 * 1024, clearModuleCache));
+                if (removed > 0) {
+                    log.getLogger().println(Messages.TrimmedGoCaches(removed / (1024 * 1024), node.getDisplayName()));
+                }
+            }
+        } catch (IOException e) {
+            log.getLogger().println(Messages.CouldNotTrimGoCaches(e.getMessage()));
+        } finally {
+            synchronized (usage) {
+                usage.trimming = false;
+                usage.lastTrimmed = System.nanoTime();
+                usage.notifyAll();
+            }
+        }
+    }
+
+    /** @return The number of builds which are currently using the caches of the given installation; for testing. */
+    static int getUsers(Node node, String home) {
+        Usage usage = getUsage(node, home);
+        synchronized (usage) {
+            return usage.users;
+        }
+    }
+
+    private static Usage getUsage(Node node, String home) {
+        String key = node.getNodeName() + '\0' + home;
+        synchronized (USAGES) {
+            Usage usage = USAGES.get(key);
+            if (usage == null) {
+                usage = new Usage();
+                USAGES.put(key, usage);
+            }
+            return usage;
+        }
+    }
+
+    /**
+     * Forgets the caches which no build is using and which may be trimmed again, so that entries for removed nodes and
+     * installations don't accumulate; such an entry holds nothing that a new one wouldn't.
+     */
+    static void prune() {
+        synchronized (USAGES) {
+            for (Iterator<Usage> it = USAGES.values().iterator(); it.hasNext(); ) {
+                Usage usage = it.next();
+                synchronized (usage) {
+                    if (usage.users == 0 && !usage.trimming
+                            && System.nanoTime() - usage.lastTrimmed >= TRIM_INTERVAL) {
+                        usage.pruned = true;
+                        it.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    /** @return The number of caches whose use is being tracked; for testing. */
+    static int getUsageCount() {
+        synchronized (USAGES) {
+            return USAGES.size();
+        }
+    }
+
+    private static final class Usage {
+        int users;
+        boolean trimming;
+        long lastTrimmed = System.nanoTime() - TRIM_INTERVAL;
+
+        /** Whether this has been removed from {@link #USAGES}, in which case callers must look up a new one. */
+        boolean pruned;
+    }
+
+    /** Periodically trims the shared caches on each node, including those used via the Pipeline {@code tool} step. */
+    @Extension
+    public static final class PeriodicTrim extends AsyncPeriodicWork {
+
+        public PeriodicTrim() {
+            super("Go cache trimming");
+        }
+
+        @Override
+        public long getRecurrencePeriod() {
+            return TimeUnit.HOURS.toMillis(1);
+        }
+
+        @Override
+        protected void execute(TaskListener listener) throws InterruptedException {
+            prune();
+            Map<String, Long> limits = getSizeLimits();
+            if (limits.isEmpty()) {
+                return;
+            }
+            List<Node> nodes = new ArrayList<Node>();
+            nodes.add(Jenkins.getActiveInstance());
+            nodes.addAll(Jenkins.getActiveInstance().getNodes());
+            for (Node node : nodes) {
+                try {
+                    trim(node, limits, listener);
+                } catch (IOException e) {
+                    listener.error("Could not trim the Go caches on " + node.getDisplayName() + ": " + e);
+                }
+            }
+        }
+
+        private static void trim(Node node, Map<String, Long> limits, TaskListener listener)
+                throws IOException, InterruptedException {
+            FilePath dir = GolangEvictionTask.getInstallationsDirectory(node);
+            Computer computer = node.toComputer();
+            if (dir == null || computer == null || computer.isOffline()) {
+                return;
+            }
+            FilePath caches = dir.child(GolangCachesProperty.CACHE_DIRECTORY);
+            if (!caches.isDirectory()) {
+                return;
+            }
+            for (FilePath cache : caches.listDirectories()) {
+                // Installations provided for go.mod files have the same properties as the installation they replace
+                Long maxSizeMb = limits.get(cache.getName());
+                trimIdle(node, dir.child(cache.getName()).getRemote(),
+                        maxSizeMb == null ? GolangCachesProperty.DEFAULT_MAX_SIZE_MB : maxSizeMb, listener);
+            }
+        }
+
+        /** @return The maximum cache size for each configured installation which shares its caches, by directory. */
+        private static Map<String, Long> getSizeLimits() {
+            Map<String, Long> limits = new HashMap<String, Long>();
+            for (GolangInstallation installation : Jenkins.getActiveInstance()
+                    .getDescriptorByType(GolangBuildWrapper.DescriptorImpl.class).getInstallations()) {
+                GolangCachesProperty caches = installation.getProperties().get(GolangCachesProperty.class);
+                if (caches != null) {
+                    limits.put(GolangEvictionTask.sanitize(installation.getName()), caches.getMaxSizeMb());
+                }
+            }
+            return limits;
+        }
+
+    }
+
+}
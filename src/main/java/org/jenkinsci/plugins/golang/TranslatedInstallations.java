@@ -0,0 +1,134 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Extension;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.slaves.ComputerListener;
+import hudson.slaves.OfflineCause;
+import hudson.tools.InstallSourceProperty;
+import hudson.tools.ToolInstaller;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the result of translating each Go installation for each computer, so that builds which start on the same
+ * computer can reuse it, rather than creating a new {@link GolangInstallation} and resolving the release every time.
+ * <p>
+ * Entries are forgotten when the computer disconnects or reconnects, when the node or the Go installations are
+ * reconfigured, or once they are older than the configured installation check interval, after which the installation
+ * is translated, and so checked, again. Go installed by this plugin is also translated again as soon as its
+ * {@link InstallationRecords installation record} is discarded, e.g. because it has been removed from the node.
+ */
+final class TranslatedInstallations {
+
+    /** Translated installation for each configured installation, for each computer. */
+    private static final ConcurrentMap<Computer, ConcurrentMap<GolangInstallation, Entry>> ENTRIES =
+            new ConcurrentHashMap<Computer, ConcurrentMap<GolangInstallation, Entry>>();
+
+    private TranslatedInstallations() {
+    }
+
+    /** @return The given installation for the given node, installing it there if necessary. */
+    static GolangInstallation forNode(GolangInstallation installation, Node node, TaskListener log)
+            throws IOException, InterruptedException {
+        Computer computer = node.toComputer();
+        long maxAge = getMaxAge();
+        if (computer == null || maxAge <= 0) {
+            return installation.forNode(node, log);
+        }
+
+        ConcurrentMap<GolangInstallation, Entry> entries = ENTRIES.get(computer);
+        Entry entry = entries == null ? null : entries.get(installation);
+        // Nodes are replaced by new instances when they're reconfigured
+        if (entry != null && entry.node == node && System.nanoTime() - entry.translatedAt < maxAge) {
+            // As the installer isn't called, record the use here, so the installation isn't evicted as unused; this
+            // comes first, so that if it's being evicted meanwhile, its record has been discarded by the time we check
+            InstallationUsage.startUsing(node, entry.translated.getHome(), log);
+            if (!entry.verified || InstallationRecords.isVerified(node, entry.translated.getHome())) {
+                return entry.translated;
+            }
+        }
+
+        GolangInstallation translated = installation.forNode(node, log);
+        if (entries == null) {
+            ConcurrentMap<GolangInstallation, Entry> newEntries = new ConcurrentHashMap<GolangInstallation, Entry>();
+            entries = ENTRIES.putIfAbsent(computer, newEntries);
+            if (entries == null) {
+                entries = newEntries;
+            }
+        }
+        // Go installed by this plugin is only reused while its installation record stands, as the record is discarded
+        // whenever the installation is removed from the node, or replaced with another release
+        boolean verified = translated.getHome() != null && InstallationRecords.isVerified(node, translated.getHome());
+        if (!verified && isInstalledByPlugin(installation)) {
+            // e.g. an alias upgrade was deferred, so the next build should check again
+            entries.remove(installation);
+            return translated;
+        }
+        entries.put(installation, new Entry(node, translated, verified, System.nanoTime()));
+        return translated;
+    }
+
+    private static boolean isInstalledByPlugin(GolangInstallation installation) {
+        InstallSourceProperty source = installation.getProperties().get(InstallSourceProperty.class);
+        if (source != null) {
+            for (ToolInstaller installer : source.installers) {
+                if (installer instanceof GolangInstaller) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Forgets all translations, e.g. because the Go installations have been reconfigured. */
+    static void clear() {
+        ENTRIES.clear();
+    }
+
+    /** Forgets the translations for the given computer, e.g. because installations have been removed from it. */
+    static void forget(Computer computer) {
+        ENTRIES.remove(computer);
+    }
+
+    private static long getMaxAge() {
+        GolangConfiguration config = GolangConfiguration.get();
+        long minutes = config == null ? 0 : config.getInstallationCheckIntervalMinutes();
+        return TimeUnit.MINUTES.toNanos(minutes);
+    }
+
+    private static final class Entry {
+        final Node node;
+        final GolangInstallation translated;
+        /** Whether the installation was recorded as verified on the node when it was translated. */
+        final boolean verified;
+        final long translatedAt;
+
+        Entry(Node node, GolangInstallation translated, boolean verified, long translatedAt) {
+            this.node = node;
+            this.translated = translated;
+            this.verified = verified;
+            this.translatedAt = translatedAt;
+        }
+    }
+
+    /** Discards the translations for a computer whenever its connection changes. */
+    @Extension
+    public static final class Listener extends ComputerListener {
+        @Override
+        public void onOnline(Computer c, TaskListener listener) {
+            ENTRIES.remove(c);
+        }
+
+        @Override
+        public void onOffline(Computer c, OfflineCause cause) {
+            ENTRIES.remove(c);
+        }
+    }
+
+}
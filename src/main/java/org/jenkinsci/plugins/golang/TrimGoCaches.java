@@ -0,0 +1,99 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Trims the Go caches in a directory down to a maximum size, returning the number of bytes removed.
+ * <p>
+ * Build cache entries are removed oldest-first, which Go tolerates at any time. If that is not sufficient, the module
+ * cache is cleared entirely, as Go does not support removing individual modules from it; unless no build may be using
+ * it, this is not allowed.
+ */
+final class TrimGoCaches extends MasterToSlaveFileCallable<Long> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long maxSize;
+
+    private final boolean clearModuleCache;
+
+    /** @param maxSize Total size, in bytes, which the caches should not exceed. */
+    TrimGoCaches(long maxSize) {
+        this(maxSize, true);
+    }
+
+    /**
+     * @param maxSize Total size, in bytes, which the caches should not exceed.
+     * @param clearModuleCache Whether the module cache may be cleared, i.e. whether no build can be using it.
+     */
+    TrimGoCaches(long maxSize, boolean clearModuleCache) {
+        this.maxSize = maxSize;
+        this.clearModuleCache = clearModuleCache;
+    }
+
+    public Long invoke(File root, VirtualChannel channel) throws IOException, InterruptedException {
+        List<File> buildFiles = new ArrayList<File>();
+        long buildSize = collect(new File(root, "build"), buildFiles);
+        File moduleCache = new File(root, "mod");
+        long moduleSize = collect(moduleCache, null);
+
+        long total = buildSize + moduleSize;
+        if (total <= maxSize) {
+            return 0L;
+        }
+
+        // Remove the least recently used build cache entries first
+        long removed = 0;
+        Collections.sort(buildFiles, new Comparator<File>() {
+            public int compare(File a, File b) {
+                return Long.compare(a.lastModified(), b.lastModified());
+            }
+        });
+        for (File f : buildFiles) {
+            if (total - removed <= maxSize) {
+                return removed;
+            }
+            long length = f.length();
+            if (f.delete()) {
+                removed += length;
+            }
+        }
+
+        // If that wasn't enough, the module cache has to go
+        if (clearModuleCache && total - removed > maxSize && moduleCache.exists()) {
+            Util.deleteRecursive(moduleCache);
+            removed += moduleSize;
+        }
+        return removed;
+    }
+
+    /** @return The total size of files under the given directory, optionally adding each file to the given list. */
+    private static long collect(File dir, List<File> files) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return 0;
+        }
+        long size = 0;
+        for (File f : children) {
+            if (f.isDirectory()) {
+                size += collect(f, files);
+            } else {
+                size += f.length();
+                if (files != null) {
+                    files.add(f);
+                }
+            }
+        }
+        return size;
+    }
+
+}
@@ -0,0 +1,309 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Util;
+import hudson.model.TaskListener;
+import hudson.remoting.RemoteInputStream;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import static org.jenkinsci.plugins.golang.GolangInstaller.ChecksumMismatchException;
+import static org.jenkinsci.plugins.golang.GolangInstaller.GolangInstallable;
+
+/**
+ * Installs a Go archive into a directory, replacing any existing installation.
+ * <p>
+ * The archive is first unpacked into a temporary sibling directory, which is then renamed into place, so that other
+ * processes never see a partially-installed directory. The top-level {@code go} directory is removed from paths as
+ * they are unpacked, so the Go tools end up directly in the given directory.
+ * <p>
+ * The SHA-256 digest of the archive is calculated while it is being unpacked, so that the archive only needs to be
+ * read once. If the digest does not match the expected value, the unpacked files are removed and installation fails.
+ * <p>
+ * When replacing another patch release of the same Go version, only the files which changed are written; see
+ * {@link DeltaUpgrade}.
+ */
+final class UnpackGoArchive extends MasterToSlaveFileCallable<UnpackGoArchive.Result> {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Directory which contains all of the files in an official Go archive. */
+    private static final String GO_DIRECTORY = "go/";
+
+    /** Name of the file which records where the installation came from. */
+    static final String INSTALLED_FROM = ".installedFrom";
+
+    /** Where the archive should be downloaded from, or {@code null} if {@link #stream} should be used. */
+    private final URL url;
+
+    /** Stream of the archive contents, or {@code null} if the archive should be downloaded from {@link #url}. */
+    private final InputStream stream;
+
+    /** Original URL of the archive. */
+    private final String source;
+
+    private final boolean zip;
+
+    /** Expected SHA-256 digest of the archive, in hex format; or {@code null} if the digest should not be checked. */
+    private final String sha256;
+
+    /** Whether files should be hard-linked from the node's {@link ContentStore}, rather than written directly. */
+    private boolean deduplicate;
+
+    /** Where to log {@link #installMessage}; or {@code null} if the installation should always be replaced. */
+    private TaskListener log;
+
+    private String installMessage;
+
+    /** Maximum rate at which the node should download the archive, in bytes per second; or zero if unlimited. */
+    private long maxBytesPerSecond;
+
+    /** Installs the archive by downloading it on the node from the given URL, e.g. the original, or a mirror. */
+    UnpackGoArchive(GolangInstallable installable, URL url) {
+        this.url = url;
+        this.stream = null;
+        this.source = installable.url;
+        this.zip = installable.url.endsWith(".zip");
+        this.sha256 = Util.fixEmptyAndTrim(installable.sha256);
+    }
+
+    /** Installs the archive by reading the given stream, which will be forwarded to the node if necessary. */
+    UnpackGoArchive(GolangInstallable installable, InputStream stream) {
+        this.url = null;
+        this.stream = new RemoteInputStream(stream, RemoteInputStream.Flag.GREEDY);
+        this.source = installable.url;
+        this.zip = installable.url.endsWith(".zip");
+        this.sha256 = Util.fixEmptyAndTrim(installable.sha256);
+    }
+
+    /** Shares identical files between installations on the node, via hard links into a {@link ContentStore}. */
+    UnpackGoArchive deduplicate(boolean deduplicate) {
+        this.deduplicate = deduplicate;
+        return this;
+    }
+
+    /**
+     * Leaves the installation alone if it was already installed from the same archive, so that the node can check
+     * whether the installation is up-to-date, and update it if not, in a single call.
+     *
+     * @param message Logged to the given listener if the installation does need to be updated.
+     */
+    UnpackGoArchive onlyIfOutdated(TaskListener log, String message) {
+        this.log = log;
+        this.installMessage = message;
+        return this;
+    }
+
+    /** Limits the rate at which the node downloads the archive from {@link #url}; zero means unlimited. */
+    UnpackGoArchive limitRate(long maxBytesPerSecond) {
+        this.maxBytesPerSecond = maxBytesPerSecond;
+        return this;
+    }
+
+    public Result invoke(File dir, VirtualChannel channel) throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        Result result = new Result();
+        if (log != null) {
+            if (isInstalledFrom(dir, source)) {
+                result.upToDate = true;
+                result.totalNanos = System.nanoTime() - started;
+                return result;
+            }
+            log.getLogger().println(installMessage);
+        }
+
+        File parent = dir.getAbsoluteFile().getParentFile();
+        ArchiveExtractor.mkdirs(parent);
+        ContentStore store = deduplicate ? ContentStore.forInstallation(dir) : null;
+        ArchiveExtractor.EntryWriter writer = store == null ? ArchiveExtractor.PLAIN : store;
+        File staging = Files.createTempDirectory(parent.toPath(), stagingPrefix(dir)).toFile();
+        try {
+            // Start from an existing installation of a nearby release, if there is one, and only write what changed.
+            // Other installations' files may only be linked to if they're read-only in the store
+            File seed = DeltaUpgrade.findSeed(dir, source, store != null);
+            DeltaUpgrade delta = DeltaUpgrade.seed(seed, staging, writer);
+            unpack(staging, delta == null ? writer : delta, delta, result);
+            // Leave a record for the next up-to-date check
+            Files.write(new File(staging, INSTALLED_FROM).toPath(), source.getBytes(StandardCharsets.UTF_8));
+            replace(dir, staging);
+        } finally {
+            if (staging.exists()) {
+                Util.deleteRecursive(staging);
+            }
+        }
+
+        // Files from any installation we just replaced may no longer be needed
+        if (store != null) {
+            store.collectGarbage();
+        }
+
+        result.totalNanos = System.nanoTime() - started;
+        result.extractNanos = result.totalNanos - result.readNanos - result.pullUpNanos;
+        return result;
+    }
+
+    private void unpack(File dir, ArchiveExtractor.EntryWriter writer, DeltaUpgrade delta, Result result)
+            throws IOException {
+        MessageDigest digest = createDigest();
+        long opened = System.nanoTime();
+        MeteredInputStream metered = new MeteredInputStream(open());
+        metered.nanos = System.nanoTime() - opened;
+        try (InputStream in = new DigestInputStream(new BufferedInputStream(metered), digest)) {
+            // Official Go archives have everything within a `go` directory; strip it so we can unpack straight into
+            // place, rather than having to move everything afterwards
+            boolean stripped = zip ? ArchiveExtractor.unzip(in, dir, GO_DIRECTORY, writer)
+                    : ArchiveExtractor.untar(in, dir, GO_DIRECTORY, writer);
+            if (delta != null) {
+                delta.removeUnseen();
+            }
+            if (!stripped) {
+                long pullUpStarted = System.nanoTime();
+                pullUp(dir);
+                result.pullUpNanos = System.nanoTime() - pullUpStarted;
+            }
+
+            // Consume anything after the end of the archive data, so that the digest covers the whole file
+            byte[] buffer = new byte[8192];
+            while (in.read(buffer) != -1) {
+                // Keep reading
+            }
+        } finally {
+            result.readNanos = metered.nanos;
+            result.bytes = metered.bytes;
+        }
+
+        String actual = Util.toHexString(digest.digest());
+        if (sha256 != null && !sha256.equalsIgnoreCase(actual)) {
+            throw new ChecksumMismatchException(Messages.ChecksumMismatch(source, sha256, actual));
+        }
+    }
+
+    /** @return Whether the given directory contains an installation of the given archive. */
+    private static boolean isInstalledFrom(File dir, String source) throws IOException {
+        File marker = new File(dir, INSTALLED_FROM);
+        return marker.isFile() && new String(Files.readAllBytes(marker.toPath()), StandardCharsets.UTF_8).equals(source);
+    }
+
+    /** Atomically moves the staging directory into place, removing any existing installation. */
+    private static void replace(File dir, File staging) throws IOException {
+        if (!dir.exists()) {
+            Files.move(staging.toPath(), dir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            return;
+        }
+
+        // Move the existing directory out of the way first, as directories can't be replaced by a rename
+        String suffix = staging.getName().substring(stagingPrefix(dir).length());
+        File old = new File(staging.getParentFile(), "." + dir.getName() + ".old" + suffix);
+        Files.move(dir.toPath(), old.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        Files.move(staging.toPath(), dir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        Util.deleteRecursive(old);
+    }
+
+    /** If the archive contained a single directory, but with an unexpected name, moves its contents up a level. */
+    private static void pullUp(File dir) throws IOException {
+        File[] children = dir.listFiles();
+        if (children == null || children.length != 1 || !children[0].isDirectory()) {
+            return;
+        }
+        File base = children[0];
+        File[] grandchildren = base.listFiles();
+        if (grandchildren != null) {
+            for (File f : grandchildren) {
+                Files.move(f.toPath(), new File(dir, f.getName()).toPath());
+            }
+        }
+        Files.delete(base.toPath());
+    }
+
+    private static String stagingPrefix(File dir) {
+        return "." + dir.getName() + ".tmp";
+    }
+
+    private InputStream open() throws IOException {
+        // Downloads resume where they left off if the connection drops, rather than failing the installation
+        if (url == null) {
+            return stream;
+        }
+        InputStream in = ResumableDownload.open(url, ResumableDownload.DIRECT);
+        return maxBytesPerSecond > 0 ? new BandwidthLimiter(maxBytesPerSecond).wrap(in) : in;
+    }
+
+    /** Time taken by each phase of the installation, and the size of the archive. */
+    static final class Result implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Whether nothing was installed, as the existing installation was already up-to-date. */
+        boolean upToDate;
+
+        /** Time spent opening and reading the archive, i.e. waiting for the download, or the controller. */
+        long readNanos;
+
+        /** Time spent unpacking files, excluding the time spent reading the archive. */
+        long extractNanos;
+
+        long pullUpNanos;
+
+        long totalNanos;
+
+        /** Size of the archive. */
+        long bytes;
+
+    }
+
+    /** Measures how much data is read, and how long is spent waiting for it. */
+    private static final class MeteredInputStream extends FilterInputStream {
+
+        long nanos;
+        long bytes;
+
+        MeteredInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            long started = System.nanoTime();
+            int b = super.read();
+            nanos += System.nanoTime() - started;
+            if (b != -1) {
+                bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long started = System.nanoTime();
+            int n = super.read(b, off, len);
+            nanos += System.nanoTime() - started;
+            if (n > 0) {
+                bytes += n;
+            }
+            return n;
+        }
+
+    }
+
+    private static MessageDigest createDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,332 @@
+package org.jenkinsci.plugins.golang;
+
+import com.google.common.collect.ImmutableSet;
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.util.ListBoxModel;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.workflow.steps.BodyExecutionCallback;
+import org.jenkinsci.plugins.workflow.steps.EnvironmentExpander;
+import org.jenkinsci.plugins.workflow.steps.GeneralNonBlockingStepExecution;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Pipeline step which installs a Go version on the current node, if necessary, and sets up the environment for the
+ * steps within its body, e.g. {@code withGo(version: '1.22') { sh 'go build' }}.
+ * <p>
+ * Unlike using the {@code tool} step followed by {@code withEnv}, this needs at most one call to the node: the node's
+ * platform is already known from when it connected, and the node checks whether Go is up-to-date while installing it.
+ */
+public class WithGoStep extends Step {
+
+    /** Name of the Go installation, as defined in the global tool configuration. */
+    private final String version;
+
+    private String goflags;
+
+    private String gocache;
+
+    private String gomodcache;
+
+    private boolean toolchainFromGoMod;
+
+    @DataBoundConstructor
+    public WithGoStep(String version) {
+        this.version = version;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /** @return Value for {@code GOFLAGS}, or {@code null} if it should be left as-is. */
+    public String getGoflags() {
+        return goflags;
+    }
+
+    @DataBoundSetter
+    public void setGoflags(String goflags) {
+        this.goflags = Util.fixEmptyAndTrim(goflags);
+    }
+
+    /** @return Build cache directory, relative to the workspace if not absolute; or {@code null} for the default. */
+    public String getGocache() {
+        return gocache;
+    }
+
+    @DataBoundSetter
+    public void setGocache(String gocache) {
+        this.gocache = Util.fixEmptyAndTrim(gocache);
+    }
+
+    /** @return Module cache directory, relative to the workspace if not absolute; or {@code null} for the default. */
+    public String getGomodcache() {
+        return gomodcache;
+    }
+
+    @DataBoundSetter
+    public void setGomodcache(String gomodcache) {
+        this.gomodcache = Util.fixEmptyAndTrim(gomodcache);
+    }
+
+    /** @return Whether the Go version required by the workspace's {@code go.mod} should be installed, if different. */
+    public boolean isToolchainFromGoMod() {
+        return toolchainFromGoMod;
+    }
+
+    @DataBoundSetter
+    public void setToolchainFromGoMod(boolean toolchainFromGoMod) {
+        this.toolchainFromGoMod = toolchainFromGoMod;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) {
+        return new Execution(this, context);
+    }
+
+    private static final class Execution extends GeneralNonBlockingStepExecution {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient WithGoStep step;
+
+        /** Node and installation which the body is using, once it has started, so that they're kept across restarts. */
+        private String nodeName;
+        private String home;
+        private boolean sharedCaches;
+
+        Execution(WithGoStep step, StepContext context) {
+            super(context);
+            this.step = step;
+        }
+
+        @Override
+        public void onResume() {
+            super.onResume();
+            if (home == null) {
+                return;
+            }
+            // Which builds are using what is only held in memory, so register the body's use again after a restart
+            Jenkins jenkins = Jenkins.getActiveInstance();
+            Node node = nodeName.isEmpty() ? jenkins : jenkins.getNode(nodeName);
+            if (node == null) {
+                return;
+            }
+            InstallationUsage.acquire(node, home);
+            if (sharedCaches) {
+                try {
+                    SharedCaches.acquire(node, home);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public boolean start() throws Exception {
+            // Installation may take a while, so don't block the Pipeline while it happens
+            run(new Block() {
+                public void run() throws Exception {
+                    setUp();
+                }
+            });
+            return false;
+        }
+
+        private void setUp() throws Exception {
+            long started = System.nanoTime();
+            StepContext context = getContext();
+            TaskListener listener = context.get(TaskListener.class);
+            Computer computer = context.get(Computer.class);
+            Node node = computer == null ? null : computer.getNode();
+            if (node == null) {
+                throw new AbortException(Messages.NodeOffline(computer == null ? "" : computer.getDisplayName()));
+            }
+
+            GolangInstallation installation = getInstallationsDescriptor().getInstallation(step.version);
+            if (installation == null) {
+                throw new AbortException(Messages.UnknownGoInstallation(step.version));
+            }
+
+            // Get the Go version for this node, installing it if necessary
+            installation = TranslatedInstallations.forNode(installation, node, listener)
+                    .forEnvironment(context.get(EnvVars.class));
+
+            // Provide the Go version required by go.mod, so that the go command doesn't need to download it itself
+            FilePath workspace = context.get(FilePath.class);
+            boolean localToolchain = false;
+            if (step.toolchainFromGoMod && workspace != null) {
+                GolangInstallation required = GoModToolchain.select(installation, node, workspace, listener);
+                if (required != null) {
+                    installation = required;
+                    localToolchain = true;
+                }
+            }
+            String home = installation.getHome();
+
+            EnvVars overrides = new EnvVars();
+            installation.buildEnvVars(overrides);
+            if (localToolchain) {
+                overrides.put("GOTOOLCHAIN", GoModToolchain.LOCAL);
+            }
+            if (step.gocache != null) {
+                overrides.put("GOCACHE", resolve(workspace, step.gocache));
+            }
+            if (step.gomodcache != null) {
+                overrides.put("GOMODCACHE", resolve(workspace, step.gomodcache));
+            }
+            if (step.goflags != null) {
+                overrides.put("GOFLAGS", step.goflags);
+            }
+
+            // Register our use of the shared Go caches, if enabled, so that they won't be trimmed during the body
+            GolangCachesProperty caches = installation.getProperties().get(GolangCachesProperty.class);
+            boolean sharedCaches = caches != null && (step.gocache == null || step.gomodcache == null);
+            if (sharedCaches) {
+                SharedCaches.acquire(node, home);
+            }
+
+            // Stop the installation from being removed from the node while the body is using it
+            InstallationUsage.acquire(node, home);
+            this.nodeName = node.getNodeName();
+            this.home = home;
+            this.sharedCaches = sharedCaches;
+
+            long elapsed = System.nanoTime() - started;
+            GolangMetrics.time(GolangMetrics.BUILD_SETUP, elapsed);
+            listener.getLogger().println(Messages.SetUpGoInBuild(installation.getName(),
+                    InstallationTimings.formatDuration(elapsed)));
+
+            context.newBodyInvoker()
+                    .withContext(EnvironmentExpander.merge(context.get(EnvironmentExpander.class),
+                            new ExpanderImpl(overrides)))
+                    .withCallback(new ReleaseInstallation(node.getNodeName(), home,
+                            sharedCaches ? caches.getMaxSizeMb() : NO_SHARED_CACHES))
+                    .start();
+        }
+
+        /** @return The given path, resolved against the workspace if it's relative, as Go requires absolute paths. */
+        private static String resolve(FilePath workspace, String path) {
+            return workspace == null ? path : workspace.child(path).getRemote();
+        }
+
+    }
+
+    private static GolangBuildWrapper.DescriptorImpl getInstallationsDescriptor() {
+        return Jenkins.getActiveInstance().getDescriptorByType(GolangBuildWrapper.DescriptorImpl.class);
+    }
+
+    /** Applies the Go environment variables to the steps within the body. */
+    private static final class ExpanderImpl extends EnvironmentExpander {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Map<String, String> overrides;
+
+        ExpanderImpl(Map<String, String> overrides) {
+            this.overrides = new TreeMap<String, String>(overrides);
+        }
+
+        @Override
+        public void expand(EnvVars env) {
+            // Handles `PATH+GOROOT_BIN` by prepending to PATH
+            env.overrideAll(overrides);
+        }
+
+    }
+
+    /** Value of {@link ReleaseInstallation#maxSizeMb} when the body isn't using the shared caches. */
+    private static final long NO_SHARED_CACHES = -1;
+
+    /**
+     * Lets the installation be removed from the node, and the shared caches be trimmed, once the body has finished
+     * using them.
+     */
+    private static final class ReleaseInstallation extends BodyExecutionCallback.TailCall {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String nodeName;
+        private final String home;
+        private final long maxSizeMb;
+
+        ReleaseInstallation(String nodeName, String home, long maxSizeMb) {
+            this.nodeName = nodeName;
+            this.home = home;
+            this.maxSizeMb = maxSizeMb;
+        }
+
+        @Override
+        protected void finished(StepContext context) throws Exception {
+            Jenkins jenkins = Jenkins.getActiveInstance();
+            Node node = nodeName.isEmpty() ? jenkins : jenkins.getNode(nodeName);
+            if (node == null) {
+                return;
+            }
+            InstallationUsage.release(node, home);
+            if (maxSizeMb != NO_SHARED_CACHES) {
+                SharedCaches.release(node, home, maxSizeMb, context.get(TaskListener.class));
+            }
+        }
+
+    }
+
+    @Extension(optional = true)
+    public static class DescriptorImpl extends StepDescriptor {
+
+        @Override
+        public String getFunctionName() {
+            return "withGo";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return Messages.WithGoStepDisplayName();
+        }
+
+        @Override
+        public boolean takesImplicitBlockArgument() {
+            return true;
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return ImmutableSet.of(Run.class, TaskListener.class, EnvVars.class, Computer.class);
+        }
+
+        public ListBoxModel doFillVersionItems() {
+            ListBoxModel items = new ListBoxModel();
+            for (GolangInstallation i : getInstallationsDescriptor().getInstallations()) {
+                items.add(i.getName());
+            }
+            return items;
+        }
+
+        @Override
+        public String getHelpFile(String fieldName) {
+            // The option works the same as for freestyle builds, so shares its help
+            if ("toolchainFromGoMod".equals(fieldName)) {
+                return getInstallationsDescriptor().getHelpFile(fieldName);
+            }
+            return super.getHelpFile(fieldName);
+        }
+
+    }
+
+}
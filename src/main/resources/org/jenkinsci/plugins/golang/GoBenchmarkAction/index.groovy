@@ -0,0 +1,34 @@
+package org.jenkinsci.plugins.golang.GoBenchmarkAction
+
+def l = namespace(lib.LayoutTagLib)
+def st = namespace("jelly:stapler")
+
+def format = { value -> Double.isNaN(value) ? "" : String.format("%,.1f", value) }
+
+l.layout(title: my.displayName) {
+    st.include(it: my.run, page: "sidepanel")
+    l.main_panel {
+        h1(my.displayName)
+
+        def previous = my.previous
+        table(class: "pane sortable bigtable") {
+            tr {
+                th(_("Benchmark"))
+                th(_("ns/op"))
+                th(_("Change"))
+                th(_("B/op"))
+                th(_("allocs/op"))
+            }
+            my.results.each { result ->
+                def change = result.getNsPerOpChangePercent(previous?.getResult(result.name))
+                tr {
+                    td(result.name)
+                    td(format(result.nsPerOp))
+                    td(Double.isNaN(change) ? "" : String.format("%+.1f%%", change))
+                    td(format(result.bytesPerOp))
+                    td(format(result.allocsPerOp))
+                }
+            }
+        }
+    }
+}
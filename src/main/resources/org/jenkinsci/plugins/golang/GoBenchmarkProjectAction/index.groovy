@@ -0,0 +1,23 @@
+package org.jenkinsci.plugins.golang.GoBenchmarkProjectAction
+
+def l = namespace(lib.LayoutTagLib)
+def st = namespace("jelly:stapler")
+
+l.layout(title: my.displayName) {
+    st.include(it: my.job, page: "sidepanel")
+    l.main_panel {
+        h1(my.displayName)
+
+        def names = my.benchmarkNames
+        if (names.isEmpty()) {
+            p(_("No Go benchmark results have been recorded yet."))
+        }
+        names.each { name ->
+            def query = "name=" + URLEncoder.encode(name, "UTF-8")
+            h2(name)
+            ["ns", "bytes", "allocs"].each { metric ->
+                img(src: "trend?${query}&metric=${metric}", alt: "${name} ${metric}")
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.jenkinsci.plugins.golang
+
+def f = namespace(lib.FormTagLib)
+
+f.entry(field: "results", title: _("Benchmark output files")) {
+    f.textbox()
+}
+f.entry(field: "regressionThresholdPercent", title: _("Regression threshold (%)")) {
+    f.number(clazz: "non-negative-number", min: 0, step: "any", default: 0)
+}
+f.entry(field: "failOnRegression") {
+    f.checkbox(title: _("Fail the build on regression, rather than marking it as unstable"))
+}
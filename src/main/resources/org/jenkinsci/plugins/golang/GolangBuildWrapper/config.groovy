@@ -15,3 +15,12 @@ f.entry(title: title) {
         }
     }
 }
+
+if (installationsDefined) {
+    f.entry(field: "cacheSnapshots") {
+        f.checkbox(title: _("Restore Go caches before the build, and save them afterwards"))
+    }
+    f.entry(field: "toolchainFromGoMod") {
+        f.checkbox(title: _("Use the Go version required by go.mod, if newer"))
+    }
+}
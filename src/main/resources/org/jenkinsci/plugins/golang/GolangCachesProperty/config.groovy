@@ -0,0 +1,7 @@
+package org.jenkinsci.plugins.golang
+
+def f = namespace(lib.FormTagLib)
+
+f.entry(field: "maxSizeMb", title: _("Maximum cache size (MB)")) {
+    f.number(clazz: "non-negative-number", min: 0, default: GolangCachesProperty.DEFAULT_MAX_SIZE_MB)
+}
@@ -0,0 +1,68 @@
+package org.jenkinsci.plugins.golang
+
+def f = namespace(lib.FormTagLib)
+
+f.section(title: _("Go")) {
+    f.entry(field: "installationCheckIntervalMinutes", title: _("Installation check interval (minutes)")) {
+        f.number(clazz: "non-negative-number", min: 0,
+                default: GolangConfiguration.DEFAULT_INSTALLATION_CHECK_INTERVAL_MINUTES)
+    }
+    f.optionalBlock(field: "archiveCacheEnabled", title: _("Download Go archives once, via the controller"),
+            inline: true) {
+        f.entry(field: "archiveCacheDirectory", title: _("Archive cache directory")) {
+            f.textbox()
+        }
+        f.entry(field: "archiveCacheSizeMb", title: _("Maximum archive cache size (MB)")) {
+            f.number(clazz: "positive-number", min: 1, default: GolangConfiguration.DEFAULT_ARCHIVE_CACHE_SIZE_MB)
+        }
+        f.entry(field: "archiveDownloadConnections", title: _("Parallel download connections")) {
+            f.number(clazz: "positive-number", min: 1, default: 1)
+        }
+        f.entry(field: "archiveCacheSharedWithAgents") {
+            f.checkbox(title: _("Agents can read the archive cache directory at the same path"))
+        }
+    }
+    f.entry(field: "mirrorDirectory", title: _("Local Go archive mirror directory")) {
+        f.textbox()
+    }
+    f.entry(field: "maxConcurrentInstallations", title: _("Maximum concurrent installations across all nodes")) {
+        f.number(clazz: "non-negative-number", min: 0, default: 0)
+    }
+    f.entry(field: "downloadRateLimitMbPerSecond", title: _("Maximum total download rate (MB/s)")) {
+        f.number(clazz: "non-negative-number", min: 0, default: 0)
+    }
+    f.entry(field: "installationDiskBudgetMb", title: _("Maximum disk space for Go installations per node (MB)")) {
+        f.number(clazz: "non-negative-number", min: 0, default: 0)
+    }
+    f.entry(field: "unusedInstallationRetentionDays",
+            title: _("Remove Go installations which are no longer configured after (days unused)")) {
+        f.number(clazz: "non-negative-number", min: 0, default: 0)
+    }
+    f.entry(field: "deduplicateInstallations") {
+        f.checkbox(title: _("Store files shared by Go installations on a node only once"))
+    }
+    f.entry(field: "cacheSnapshotDirectory", title: _("Cache snapshot directory")) {
+        f.textbox()
+    }
+    f.entry(field: "cacheSnapshotRetentionDays", title: _("Remove cache snapshots after (days unused)")) {
+        f.number(clazz: "positive-number", min: 1,
+                default: GolangConfiguration.DEFAULT_CACHE_SNAPSHOT_RETENTION_DAYS)
+    }
+    f.advanced(title: _("Install Go ahead of time")) {
+        f.entry(field: "provisioningInstallations", title: _("Go installations to install ahead of time")) {
+            f.textbox()
+        }
+        f.entry(field: "provisioningLabel", title: _("Nodes to install onto")) {
+            f.textbox()
+        }
+        f.entry(field: "provisionOnConnect") {
+            f.checkbox(title: _("Install onto nodes as soon as they connect"))
+        }
+        f.entry(field: "provisioningIntervalMinutes", title: _("Install onto all online nodes every (minutes)")) {
+            f.number(clazz: "non-negative-number", min: 0, default: 0)
+        }
+        f.entry(field: "provisioningParallelism", title: _("Maximum concurrent installations")) {
+            f.number(clazz: "positive-number", min: 1, default: GolangProvisioner.DEFAULT_PARALLELISM)
+        }
+    }
+}
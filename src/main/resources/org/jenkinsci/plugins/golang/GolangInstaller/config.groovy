@@ -2,18 +2,20 @@ package org.jenkinsci.plugins.golang
 
 def f = namespace(lib.FormTagLib)
 
-def releases = descriptor.installableReleases
-if (releases == null || releases.isEmpty()) {
+if (!descriptor.releaseListAvailable) {
     f.block {
         text(_('Go version information has not been downloaded. ' +
                 'To do so, press "Check now" in the Plugin Manager, or restart Jenkins.'))
     }
 } else {
-    f.entry(title: _("Version"), field: "id") {
-        select(name: ".id") {
-            releases.each { release ->
-                f.option(value: release.id, selected: release.id == instance?.id, release.name)
-            }
+    f.entry(title: _("Releases to list"), field: "releaseFilter") {
+        f.enum(default: "STABLE") {
+            text(my.displayName)
         }
     }
+    // The releases are loaded once the page has been shown, filtered according to the option above
+    f.entry(title: _("Version"), field: "id") {
+        f.select()
+    }
+    input(type: "hidden", name: "currentId", value: instance?.id)
 }
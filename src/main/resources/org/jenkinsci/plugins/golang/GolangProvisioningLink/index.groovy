@@ -0,0 +1,111 @@
+package org.jenkinsci.plugins.golang.GolangProvisioningLink
+
+def l = namespace(lib.LayoutTagLib)
+def f = namespace(lib.FormTagLib)
+
+l.layout(title: my.displayName, permission: app.ADMINISTER) {
+    l.main_panel {
+        h1(my.displayName)
+
+        if (my.installations.length == 0) {
+            p(_("No Go installations have been defined in the global tool configuration."))
+        } else {
+            f.form(method: "post", action: "provision", name: "provision") {
+                f.entry(title: _("Go installations")) {
+                    my.installations.each { installation ->
+                        div {
+                            label {
+                                input(type: "checkbox", name: "installation", value: installation.name)
+                                text(" " + installation.name)
+                            }
+                        }
+                    }
+                }
+                f.entry(title: _("Label expression"),
+                        description: _("Leave empty to install onto all online nodes")) {
+                    input(type: "text", name: "label", class: "setting-input")
+                }
+                f.block {
+                    f.submit(value: _("Install"))
+                }
+            }
+        }
+
+        def statuses = my.statuses
+        if (!statuses.isEmpty()) {
+            h2(_("Progress"))
+            table(class: "pane sortable bigtable") {
+                tr {
+                    th(_("Node"))
+                    th(_("Go installation"))
+                    th(_("Status"))
+                    th(_("Updated"))
+                }
+                statuses.each { status ->
+                    tr {
+                        td(status.nodeName)
+                        td(status.installationName)
+                        td(status.message == null ? status.state : "${status.state}: ${status.message}")
+                        td(status.age)
+                    }
+                }
+            }
+        }
+
+        h2(_("Statistics"))
+        table(class: "pane bigtable") {
+            my.rates.each { name, value ->
+                tr {
+                    td(name)
+                    td(value)
+                }
+            }
+            my.counters.each { name, value ->
+                tr {
+                    td(name)
+                    td(value)
+                }
+            }
+        }
+
+        def timers = my.timers
+        if (!timers.isEmpty()) {
+            h2(_("Timings"))
+            table(class: "pane sortable bigtable") {
+                tr {
+                    th(_("Phase"))
+                    th(_("Count"))
+                    th(_("Mean (ms)"))
+                    th(_("Max (ms)"))
+                    th(_("Total (ms)"))
+                }
+                timers.each { name, timer ->
+                    tr {
+                        td(name)
+                        td(timer.count)
+                        td(timer.meanMillis)
+                        td(timer.maxMillis)
+                        td(timer.totalMillis)
+                    }
+                }
+            }
+        }
+
+        def recent = my.recentInstallations
+        if (!recent.isEmpty()) {
+            h2(_("Most recent installation per node"))
+            table(class: "pane sortable bigtable") {
+                tr {
+                    th(_("Node"))
+                    th(_("Summary"))
+                }
+                recent.each { node, summary ->
+                    tr {
+                        td(node)
+                        td(summary)
+                    }
+                }
+            }
+        }
+    }
+}
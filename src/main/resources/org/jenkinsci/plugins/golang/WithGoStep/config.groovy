@@ -0,0 +1,21 @@
+package org.jenkinsci.plugins.golang
+
+def f = namespace(lib.FormTagLib)
+
+f.entry(field: "version", title: _("Go installation")) {
+    f.select()
+}
+f.advanced {
+    f.entry(field: "goflags", title: "GOFLAGS") {
+        f.textbox()
+    }
+    f.entry(field: "gocache", title: "GOCACHE") {
+        f.textbox()
+    }
+    f.entry(field: "gomodcache", title: "GOMODCACHE") {
+        f.textbox()
+    }
+    f.entry(field: "toolchainFromGoMod") {
+        f.checkbox(title: _("Use the Go version required by go.mod, if newer"))
+    }
+}
@@ -0,0 +1,211 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.model.TaskListener;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ArchiveCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private ArchiveServer server;
+
+    @Before
+    public void startServer() throws Exception {
+        server = new ArchiveServer();
+    }
+
+    @After
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void testArchiveIsOnlyDownloadedOnce() throws Exception {
+        // Given an archive is available upstream
+        byte[] content = "go archive".getBytes("UTF-8");
+        URL url = server.add("go1.16.linux-amd64.tar.gz", content);
+        ArchiveCache cache = new ArchiveCache(tmp.newFolder(), 1024);
+
+        // When we request the archive several times
+        File first = fetch(cache, url);
+        File second = fetch(cache, url);
+        cache.fetch(url, TaskListener.NULL).close();
+
+        // Then it should have been fetched from upstream only once
+        assertEquals(1, server.getFetchCount("go1.16.linux-amd64.tar.gz"));
+        assertEquals(first, second);
+        assertArrayEquals(content, FileUtils.readFileToByteArray(first));
+    }
+
+    @Test
+    public void testConcurrentRequestsResultInSingleDownload() throws Exception {
+        // Given an archive is available upstream
+        final URL url = server.add("go1.16.linux-amd64.tar.gz", new byte[64 * 1024]);
+        final ArchiveCache cache = new ArchiveCache(tmp.newFolder(), 1024 * 1024);
+
+        // When many threads request the archive at the same time
+        Thread[] threads = new Thread[16];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        cache.fetch(url, TaskListener.NULL).close();
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        // Then it should have been fetched from upstream only once
+        assertEquals(1, server.getFetchCount("go1.16.linux-amd64.tar.gz"));
+    }
+
+    @Test
+    public void testInterruptedDownloadIsResumed() throws Exception {
+        // Given the server fails part-way through downloading an archive into the cache
+        long originalRetryDelay = ResumableDownload.RETRY_DELAY_MILLIS;
+        ResumableDownload.RETRY_DELAY_MILLIS = 0;
+        byte[] content = new byte[64 * 1024];
+        URL url = server.add("go1.16.linux-amd64.tar.gz", content);
+        ArchiveCache cache = new ArchiveCache(tmp.newFolder(), 1024 * 1024);
+        server.setFailAfter(16 * 1024);
+        try {
+            cache.fetch(url, TaskListener.NULL).close();
+            fail("Expected the download to fail");
+        } catch (IOException e) {
+            // Expected
+        } finally {
+            ResumableDownload.RETRY_DELAY_MILLIS = originalRetryDelay;
+        }
+
+        // When the archive is requested again, once the server has recovered
+        server.setFailAfter(-1);
+        File file = fetch(cache, url);
+
+        // Then the download should have continued where it left off
+        assertArrayEquals(content, FileUtils.readFileToByteArray(file));
+        assertEquals(content.length, server.getBytesServed());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedArchiveIsEvicted() throws Exception {
+        // Given we have a cache which can only hold two archives
+        URL first = server.add("go1.14.linux-amd64.tar.gz", new byte[400]);
+        URL second = server.add("go1.15.linux-amd64.tar.gz", new byte[400]);
+        URL third = server.add("go1.16.linux-amd64.tar.gz", new byte[400]);
+        ArchiveCache cache = new ArchiveCache(tmp.newFolder(), 1000);
+
+        // When we fetch three archives, having recently re-used the first one
+        File firstFile = fetch(cache, first);
+        File secondFile = fetch(cache, second);
+        assertTrue(secondFile.setLastModified(1000));
+        assertTrue(firstFile.setLastModified(2000));
+        File thirdFile = fetch(cache, third);
+
+        // Then the least recently used archive should have been removed
+        assertTrue(firstFile.exists());
+        assertFalse(secondFile.exists());
+        assertTrue(thirdFile.exists());
+    }
+
+    @Test
+    public void testArchivesInUseAreNotEvicted() throws Exception {
+        // Given we have a cache which can only hold one archive
+        URL first = server.add("go1.15.linux-amd64.tar.gz", new byte[400]);
+        URL second = server.add("go1.16.linux-amd64.tar.gz", new byte[400]);
+        ArchiveCache cache = new ArchiveCache(tmp.newFolder(), 500);
+
+        // When another archive is fetched while the first is still being used
+        try (ArchiveCache.CachedArchive inUse = cache.fetch(first, TaskListener.NULL)) {
+            assertTrue(inUse.getFile().setLastModified(1000));
+            fetch(cache, second);
+
+            // Then the archive in use should not have been evicted
+            assertTrue(inUse.getFile().exists());
+        }
+
+        // And once it's no longer used, it can be evicted
+        fetch(cache, server.add("go1.17.linux-amd64.tar.gz", new byte[400]));
+        assertFalse(cache.getFile(first).exists());
+
+        // And no locks should be left behind
+        assertEquals(0, ArchiveCache.getEntryCount());
+    }
+
+    @Test
+    public void testWaitingForDownloadCanBeInterrupted() throws Exception {
+        // Given an archive is being downloaded very slowly by another thread
+        final URL url = server.add("go1.16.linux-amd64.tar.gz", new byte[64 * 1024]);
+        final ArchiveCache cache = new ArchiveCache(tmp.newFolder(), 1024 * 1024);
+        server.setDelayMillis(2000);
+        Thread downloader = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    cache.fetch(url, TaskListener.NULL).close();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        downloader.start();
+        while (ArchiveCache.getEntryCount() == 0) {
+            Thread.sleep(10);
+        }
+
+        // When another thread waits for the same archive, and is then interrupted
+        final Exception[] thrown = new Exception[1];
+        Thread waiter = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    cache.fetch(url, TaskListener.NULL).close();
+                } catch (Exception e) {
+                    thrown[0] = e;
+                }
+            }
+        };
+        waiter.start();
+        Thread.sleep(200);
+        waiter.interrupt();
+        waiter.join(5000);
+
+        // Then it should have stopped waiting
+        assertFalse(waiter.isAlive());
+        assertTrue(thrown[0] instanceof InterruptedException);
+
+        // And the download should have carried on regardless
+        downloader.join();
+        assertEquals(0, ArchiveCache.getEntryCount());
+    }
+
+    /** @return The cached copy of the given archive, which is immediately released. */
+    private static File fetch(ArchiveCache cache, URL url) throws Exception {
+        try (ArchiveCache.CachedArchive archive = cache.fetch(url, TaskListener.NULL)) {
+            return archive.getFile();
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package org.jenkinsci.plugins.golang;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ArchiveExtractorTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testSymlinkWithinArchiveIsCreated() throws Exception {
+        // Given an archive with a link to another file within it
+        Map<String, String> links = Collections.singletonMap("bin/gofmt-link", "gofmt");
+        byte[] archive = TestArchives.tarGz(links, Collections.singletonMap("bin/gofmt", "gofmt"));
+        File dir = tmp.newFolder("go");
+
+        // When it's unpacked
+        ArchiveExtractor.untar(new ByteArrayInputStream(archive), dir, "go/");
+
+        // Then the link should have been created
+        assertEquals(Paths.get("gofmt"), Files.readSymbolicLink(new File(dir, "bin/gofmt-link").toPath()));
+    }
+
+    @Test
+    public void testSymlinkToAbsolutePathIsRejected() throws Exception {
+        File outside = tmp.newFolder("outside");
+        assertRejected(Collections.singletonMap("lib", outside.getAbsolutePath()),
+                Collections.<String, String>emptyMap());
+    }
+
+    @Test
+    public void testSymlinkOutsideTargetDirectoryIsRejected() throws Exception {
+        tmp.newFolder("outside");
+        assertRejected(Collections.singletonMap("pkg/lib", "../../outside"), Collections.<String, String>emptyMap());
+    }
+
+    @Test
+    public void testEntryIsNotWrittenThroughSymlink() throws Exception {
+        // Given an archive with a link to a directory within it, followed by a file written via that link
+        Map<String, String> files = new LinkedHashMap<String, String>();
+        files.put("src/VERSION", "go1.16");
+        files.put("lib/VERSION", "overwritten");
+        File dir = assertRejected(Collections.singletonMap("lib", "src"), files);
+
+        // Then the file which the link points to should not have been overwritten
+        assertEquals("go1.16", FileUtils.readFileToString(new File(dir, "src/VERSION"), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Asserts that unpacking the given archive fails, without writing anything outside of the target directory.
+     *
+     * @return The target directory.
+     */
+    private File assertRejected(Map<String, String> links, Map<String, String> files) throws IOException {
+        byte[] archive = TestArchives.tarGz(links, files);
+        File dir = tmp.newFolder("go");
+        try {
+            ArchiveExtractor.untar(new ByteArrayInputStream(archive), dir, "go/");
+            fail("Expected the archive to be rejected");
+        } catch (IOException e) {
+            // Expected
+        }
+        String[] outside = new File(tmp.getRoot(), "outside").list();
+        assertTrue(outside == null || outside.length == 0);
+        return dir;
+    }
+
+}
@@ -0,0 +1,203 @@
+package org.jenkinsci.plugins.golang;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import hudson.Util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the Go download server, which counts how often each file is fetched.
+ * <p>
+ * Like the real server, it supports range requests. It can also be made to drop connections part-way through
+ * responses, or to stop serving files altogether, to simulate a flaky network.
+ */
+class ArchiveServer implements AutoCloseable {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+
+    private final HttpServer server;
+    private final Map<String, byte[]> files = new ConcurrentHashMap<String, byte[]>();
+    private final Map<String, AtomicInteger> fetches = new ConcurrentHashMap<String, AtomicInteger>();
+    private final Map<String, List<String>> ranges = new ConcurrentHashMap<String, List<String>>();
+    private final AtomicLong bytesServed = new AtomicLong();
+
+    /** Maximum number of bytes to send in each response before dropping the connection, or {@code -1}. */
+    private volatile long dropAfter = -1;
+
+    /** How long to wait before responding to each request for file content. */
+    private volatile long delayMillis;
+
+    /** Whether {@code HEAD} requests should fail. */
+    private volatile boolean failHeadRequests;
+
+    /** Number of further bytes to serve, after which all requests fail; or {@code -1} for no limit. */
+    private final AtomicLong remaining = new AtomicLong(-1);
+
+    ArchiveServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                serve(exchange);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    /** @return The URL at which the given content will be served. */
+    URL add(String name, byte[] content) throws IOException {
+        files.put("/" + name, content);
+        fetches.put("/" + name, new AtomicInteger());
+        ranges.put("/" + name, new CopyOnWriteArrayList<String>());
+        return new URL("http", server.getAddress().getHostString(), server.getAddress().getPort(), "/" + name);
+    }
+
+    /** @return The number of times the given file has been requested. */
+    int getFetchCount(String name) {
+        AtomicInteger count = fetches.get("/" + name);
+        return count == null ? 0 : count.get();
+    }
+
+    /** @return The {@code Range} header of each request for the given file, or "" where none was sent. */
+    List<String> getRequestedRanges(String name) {
+        return ranges.get("/" + name);
+    }
+
+    /** @return Total number of bytes of file content sent. */
+    long getBytesServed() {
+        return bytesServed.get();
+    }
+
+    /** Drops the connection after sending the given number of bytes in each response; {@code -1} to stop. */
+    void setDropAfter(long bytes) {
+        dropAfter = bytes;
+    }
+
+    /** Serves only the given number of further bytes, and then fails all requests; {@code -1} to stop. */
+    void setFailAfter(long bytes) {
+        remaining.set(bytes);
+    }
+
+    /** Makes {@code HEAD} requests fail, while still serving file content. */
+    void setFailHeadRequests(boolean fail) {
+        failHeadRequests = fail;
+    }
+
+    /** Waits for the given time before responding to each request for file content, to simulate a slow server. */
+    void setDelayMillis(long millis) {
+        delayMillis = millis;
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        byte[] content = files.get(path);
+        try {
+            if (content == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            if (remaining.get() == 0) {
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+
+            String etag = "\"" + Util.getDigestOf(new String(content, "ISO-8859-1")) + "\"";
+            exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+            exchange.getResponseHeaders().add("ETag", etag);
+            if (exchange.getRequestMethod().equals("HEAD")) {
+                if (failHeadRequests) {
+                    exchange.sendResponseHeaders(503, -1);
+                    return;
+                }
+                exchange.getResponseHeaders().add("Content-Length", String.valueOf(content.length));
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            fetches.get(path).incrementAndGet();
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            ranges.get(path).add(range == null ? "" : range);
+
+            int start = 0;
+            int end = content.length - 1;
+            String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+            Matcher m = range == null ? null : RANGE.matcher(range);
+            if (m != null && m.matches() && (ifRange == null || ifRange.equals(etag))) {
+                start = Integer.parseInt(m.group(1));
+                if (!m.group(2).isEmpty()) {
+                    end = Math.min(end, Integer.parseInt(m.group(2)));
+                }
+                if (start > end) {
+                    exchange.getResponseHeaders().add("Content-Range", "bytes */" + content.length);
+                    exchange.sendResponseHeaders(416, -1);
+                    return;
+                }
+                exchange.getResponseHeaders().add("Content-Range",
+                        "bytes " + start + "-" + end + "/" + content.length);
+                exchange.sendResponseHeaders(206, end - start + 1);
+            } else {
+                exchange.sendResponseHeaders(200, content.length);
+            }
+
+            // Send the content, unless we've been asked to fail part-way through
+            int length = end - start + 1;
+            if (dropAfter >= 0) {
+                length = (int) Math.min(length, dropAfter);
+            }
+            length = reserve(length);
+            OutputStream out = exchange.getResponseBody();
+            out.write(content, start, length);
+            out.flush();
+            bytesServed.addAndGet(length);
+            if (length < end - start + 1) {
+                // Closing the exchange early drops the connection
+                return;
+            }
+            out.close();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /** @return How many of the given number of bytes may be served, deducting them from what remains. */
+    private int reserve(int length) {
+        while (true) {
+            long allowed = remaining.get();
+            if (allowed < 0) {
+                return length;
+            }
+            int granted = (int) Math.min(length, allowed);
+            if (remaining.compareAndSet(allowed, allowed - granted)) {
+                return granted;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+}
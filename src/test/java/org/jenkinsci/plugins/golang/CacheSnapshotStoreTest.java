@@ -0,0 +1,184 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Util;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CacheSnapshotStoreTest {
+
+    private static final long MAX_AGE = TimeUnit.DAYS.toMillis(14);
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testUnusedSnapshotsAndTheirBlobsAreRemoved() throws Exception {
+        // Given one snapshot which was used recently, and one which hasn't been used for a month
+        CacheSnapshotStore store = new CacheSnapshotStore(tmp.newFolder());
+        String shared = addBlob(store, "shared");
+        String recentOnly = addBlob(store, "recent");
+        String oldOnly = addBlob(store, "old");
+        addSnapshot(store, "recent", shared, recentOnly);
+        File old = addSnapshot(store, "old", shared, oldOnly);
+        assertTrue(old.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(30)));
+
+        // When unused snapshots are removed
+        long removed = store.collectGarbage(MAX_AGE);
+
+        // Then the old snapshot, and only the content which nothing else refers to, should have been removed
+        assertNull(store.readManifest("old"));
+        assertNotNull(store.readManifest("recent"));
+        assertTrue(store.hasBlob(shared));
+        assertTrue(store.hasBlob(recentOnly));
+        assertFalse(store.hasBlob(oldOnly));
+        assertEquals("old".length(), removed);
+    }
+
+    @Test
+    public void testRestoringSnapshotKeepsIt() throws Exception {
+        // Given a snapshot which was last used a month ago
+        CacheSnapshotStore store = new CacheSnapshotStore(tmp.newFolder());
+        String blob = addBlob(store, "content");
+        File manifest = addSnapshot(store, "key", blob);
+        assertTrue(manifest.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(30)));
+
+        // When it is restored, before unused snapshots are removed
+        store.readManifest("key");
+        store.collectGarbage(MAX_AGE);
+
+        // Then it should have been kept
+        assertNotNull(store.readManifest("key"));
+        assertTrue(store.hasBlob(blob));
+    }
+
+    @Test
+    public void testAbandonedTransfersAreRemoved() throws Exception {
+        // Given a transfer was left behind, e.g. by a restart
+        CacheSnapshotStore store = new CacheSnapshotStore(tmp.newFolder());
+        File transfer = store.createTempFile();
+
+        // When unused snapshots are removed
+        store.collectGarbage(MAX_AGE);
+
+        // Then so should the transfer
+        assertFalse(transfer.exists());
+    }
+
+    @Test
+    public void testConcurrentSavesLeaveAValidManifest() throws Exception {
+        // Given two builds of the same job save their snapshots at the same time
+        final CacheSnapshotStore store = new CacheSnapshotStore(tmp.newFolder());
+        final CacheManifest manifest = new CacheManifest();
+        for (int i = 0; i < 1000; i++) {
+            manifest.entries.put("mod/file" + i, new CacheManifest.Entry("abc123", i, false));
+        }
+        Thread[] threads = new Thread[2];
+        final Exception[] thrown = new Exception[threads.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < 50; j++) {
+                            store.writeManifest("key", manifest);
+                        }
+                    } catch (Exception e) {
+                        thrown[index] = e;
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        // Then both should have succeeded, and the manifest should be complete
+        assertNull(thrown[0]);
+        assertNull(thrown[1]);
+        assertEquals(1000, store.readManifest("key").entries.size());
+        assertEquals(1, store.getManifestFile("key").getParentFile().list().length);
+    }
+
+    @Test
+    public void testManifestRecordsModificationTimes() throws Exception {
+        // Given a manifest saved before modification times were recorded, and one recording them
+        File dir = tmp.newFolder();
+        File old = new File(dir, "old");
+        FileUtils.writeStringToFile(old, "abc123 4 x mod/file name\n", "UTF-8");
+        CacheManifest manifest = new CacheManifest();
+        manifest.entries.put("mod/file name", new CacheManifest.Entry("abc123", 4, false, 1700000000000L));
+        File current = new File(dir, "current");
+        manifest.write(current);
+
+        // Then the modification time should only be known for the latter
+        CacheManifest.Entry oldEntry = CacheManifest.read(old).entries.get("mod/file name");
+        assertTrue(oldEntry.executable);
+        assertEquals(0, oldEntry.lastModified);
+        CacheManifest.Entry entry = CacheManifest.read(current).entries.get("mod/file name");
+        assertFalse(entry.executable);
+        assertEquals(4, entry.size);
+        assertEquals(1700000000000L, entry.lastModified);
+    }
+
+    @Test
+    public void testSnapshotsAreNotSharedBetweenJobs() {
+        // Given two jobs building with the same Go installation and go.sum, on the same platform
+        NodePlatform platform = new NodePlatform("linux", "amd64", "5.10");
+        String source = "https://go.dev/dl/go1.16.linux-amd64.tar.gz\nabc123";
+
+        // Then each should have its own snapshot
+        assertNotEquals(CacheSnapshots.getKey("team-a/service", source, platform),
+                CacheSnapshots.getKey("team-b/service", source, platform));
+        assertEquals(CacheSnapshots.getKey("team-a/service", source, platform),
+                CacheSnapshots.getKey("team-a/service", source, platform));
+    }
+
+    /** Adds a blob with the given content to the store, returning its digest. */
+    private static String addBlob(CacheSnapshotStore store, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        String sha256 = Util.toHexString(CacheSnapshotStore.createDigest().digest(bytes));
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GZIPOutputStream(stream))) {
+            TarArchiveEntry entry = new TarArchiveEntry(sha256);
+            entry.setSize(bytes.length);
+            tar.putArchiveEntry(entry);
+            tar.write(bytes);
+            tar.closeArchiveEntry();
+        }
+        store.readBlobs(new ByteArrayInputStream(stream.toByteArray()));
+        assertTrue(store.hasBlob(sha256));
+        return sha256;
+    }
+
+    /** Adds a snapshot referring to the given blobs, returning its manifest file. */
+    private static File addSnapshot(CacheSnapshotStore store, String key, String... blobs) throws IOException {
+        CacheManifest manifest = new CacheManifest();
+        for (int i = 0; i < blobs.length; i++) {
+            manifest.entries.put("mod/file" + i, new CacheManifest.Entry(blobs[i], 1, false));
+        }
+        store.writeManifest(key, manifest);
+        return store.getManifestFile(key);
+    }
+
+}
@@ -0,0 +1,123 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import hudson.slaves.DumbSlave;
+import org.jenkinsci.plugins.mock_slave.MockSlaveLauncher;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConcurrentInstallationTest {
+
+    private static final String ARCHIVE_NAME = "go1.16.tar.gz";
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private ArchiveServer server;
+
+    @Before
+    public void startServer() throws Exception {
+        server = new ArchiveServer();
+    }
+
+    @After
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void testConcurrentBuildsOnSameAgentInstallOnce() throws Exception {
+        // Given a Go release is available for download
+        URL url = server.add(ARCHIVE_NAME, TestArchives.tarGz(Collections.singletonMap("VERSION", "go1.16")));
+        new TestCatalogue().add("1.16", url).install(j.jenkins);
+        final GolangInstallation installation = TestCatalogue.createInstallation("go1.16", "1.16");
+        j.jenkins.getDescriptorByType(GolangInstallation.DescriptorImpl.class).setInstallations(installation);
+
+        // And we have an agent
+        final DumbSlave agent = createMockAgent("agent");
+
+        // When many builds on that agent try to install Go at the same time
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<String>> homes = new ArrayList<Future<String>>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                homes.add(executor.submit(new Callable<String>() {
+                    public String call() throws Exception {
+                        return installation.forNode(agent, TaskListener.NULL).getHome();
+                    }
+                }));
+            }
+
+            // Then they should all end up with the same, complete installation
+            for (Future<String> home : homes) {
+                FilePath path = new FilePath(agent.getChannel(), home.get());
+                assertEquals("go1.16", path.child("VERSION").readToString());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // And the archive should only have been downloaded once
+        assertEquals(1, server.getFetchCount(ARCHIVE_NAME));
+    }
+
+    @Test
+    public void testConcurrentBuildsOnDifferentAgentsInstallIndependently() throws Exception {
+        // Given a Go release is available for download
+        URL url = server.add(ARCHIVE_NAME, TestArchives.tarGz(Collections.singletonMap("VERSION", "go1.16")));
+        new TestCatalogue().add("1.16", url).install(j.jenkins);
+        final GolangInstallation installation = TestCatalogue.createInstallation("go1.16", "1.16");
+        j.jenkins.getDescriptorByType(GolangInstallation.DescriptorImpl.class).setInstallations(installation);
+
+        // And we have multiple agents
+        final DumbSlave first = createMockAgent("first");
+        final DumbSlave second = createMockAgent("second");
+
+        // When builds on both agents install Go at the same time
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> a = executor.submit(new Callable<String>() {
+                public String call() throws Exception {
+                    return installation.forNode(first, TaskListener.NULL).getHome();
+                }
+            });
+            Future<String> b = executor.submit(new Callable<String>() {
+                public String call() throws Exception {
+                    return installation.forNode(second, TaskListener.NULL).getHome();
+                }
+            });
+
+            // Then each agent should have its own installation
+            assertEquals("go1.16", new FilePath(first.getChannel(), a.get()).child("VERSION").readToString());
+            assertEquals("go1.16", new FilePath(second.getChannel(), b.get()).child("VERSION").readToString());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(2, server.getFetchCount(ARCHIVE_NAME));
+    }
+
+    /** @return A connected agent, which runs in a separate JVM, as would a real agent. */
+    private DumbSlave createMockAgent(String name) throws Exception {
+        DumbSlave agent = new DumbSlave(name, j.createTmpDir().getAbsolutePath(), new MockSlaveLauncher(0, 0));
+        j.jenkins.addNode(agent);
+        j.waitOnline(agent);
+        return agent;
+    }
+
+}
@@ -0,0 +1,136 @@
+package org.jenkinsci.plugins.golang;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.jenkinsci.plugins.golang.GolangInstaller.GolangInstallable;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class ContentStoreTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private ArchiveServer server;
+
+    @Before
+    public void startServer() throws Exception {
+        assumeTrue("Hard link counts are only available on Unix", File.pathSeparatorChar == ':');
+        server = new ArchiveServer();
+    }
+
+    @After
+    public void stopServer() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testIdenticalFilesAreSharedBetweenInstallations() throws Exception {
+        // Given two Go versions which have some files in common
+        File go115 = install("go1.15", createFiles("go1.15"));
+        File go116 = install("go1.16", createFiles("go1.16"));
+
+        // Then the identical files should be the same file on disk
+        assertEquals(fileKey(new File(go115, "bin/go")), fileKey(new File(go116, "bin/go")));
+        assertEquals(fileKey(new File(go115, "src/fmt/print.go")), fileKey(new File(go116, "src/fmt/print.go")));
+
+        // And the files which differ should not be
+        assertNotEquals(fileKey(new File(go115, "VERSION")), fileKey(new File(go116, "VERSION")));
+        assertEquals("go1.16", FileUtils.readFileToString(new File(go116, "VERSION"), StandardCharsets.UTF_8));
+
+        // And file modes should have been kept
+        assertTrue(new File(go116, "bin/go").canExecute());
+        assertFalse(new File(go116, "src/fmt/print.go").canExecute());
+    }
+
+    @Test
+    public void testUnusedFilesAreRemovedFromStore() throws Exception {
+        // Given two Go versions are installed
+        File go115 = install("go1.15", createFiles("go1.15"));
+        install("go1.16", createFiles("go1.16"));
+        ContentStore store = ContentStore.forInstallation(go115);
+
+        // When one of them is removed, and garbage is collected
+        FileUtils.deleteDirectory(go115);
+        int removed = store.collectGarbage();
+
+        // Then only the file unique to that version should have been removed from the store
+        assertEquals(1, removed);
+        assertEquals(0, store.collectGarbage());
+    }
+
+    @Test
+    public void testReplacedInstallationFilesAreRemovedFromStore() throws Exception {
+        // Given a Go version is installed
+        File dir = install("go", createFiles("go1.15"));
+        ContentStore store = ContentStore.forInstallation(dir);
+
+        // When it is replaced by a new version
+        install("go", createFiles("go1.16"));
+
+        // Then the old version's unique file should already have been removed from the store
+        assertEquals(0, store.collectGarbage());
+        assertEquals("go1.16", FileUtils.readFileToString(new File(dir, "VERSION"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testOnlyStaleTemporaryFilesAreRemoved() throws Exception {
+        // Given one temporary file which is still being written, and one left behind by an interrupted install
+        File dir = install("go1.16", createFiles("go1.16"));
+        File temps = new File(new File(tmp.getRoot(), ContentStore.DIRECTORY_NAME), "tmp");
+        File active = new File(temps, "blob1.tmp");
+        File stale = new File(temps, "blob2.tmp");
+        FileUtils.writeStringToFile(active, "partial", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(stale, "partial", StandardCharsets.UTF_8);
+        assertTrue(stale.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1)));
+
+        // When garbage is collected
+        ContentStore.forInstallation(dir).collectGarbage();
+
+        // Then only the stale file should have been removed
+        assertTrue(active.exists());
+        assertFalse(stale.exists());
+    }
+
+    private File install(String name, Map<String, String> files) throws Exception {
+        URL url = server.add(name + "-" + files.get("VERSION") + ".linux-amd64.tar.gz", TestArchives.tarGz(files));
+        GolangInstallable installable = new GolangInstallable();
+        installable.url = url.toString();
+
+        File dir = new File(tmp.getRoot(), name);
+        new UnpackGoArchive(installable, url).deduplicate(true).invoke(dir, null);
+        return dir;
+    }
+
+    private static Object fileKey(File file) throws Exception {
+        return Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+    }
+
+    private static Map<String, String> createFiles(String version) {
+        Map<String, String> files = new LinkedHashMap<String, String>();
+        files.put("VERSION", version);
+        files.put("bin/go", "#!/bin/sh");
+        files.put("src/fmt/print.go", "package fmt");
+        return files;
+    }
+
+}
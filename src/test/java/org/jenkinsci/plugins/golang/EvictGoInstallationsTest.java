@@ -0,0 +1,140 @@
+package org.jenkinsci.plugins.golang;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EvictGoInstallationsTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final long now = System.currentTimeMillis();
+
+    @Test
+    public void testOnlyUnusedUnconfiguredInstallationsAreRemoved() throws Exception {
+        // Given installations last used at various times, along with the content store and an unpacking installation
+        File dir = tmp.newFolder("tools");
+        File old = install(dir, "go1.16", daysAgo(30), 1);
+        File configured = install(dir, "go1.22", daysAgo(30), 1);
+        File inUse = install(dir, "go1.17", daysAgo(30), 1);
+        File recent = install(dir, "go1.18", daysAgo(30), 1);
+        File store = install(dir, ContentStore.DIRECTORY_NAME, daysAgo(30), 1);
+        File staging = install(dir, ".go1.19.tmp123", daysAgo(30), 1);
+        Map<String, Long> lastUsed = new TreeMap<String, Long>();
+        lastUsed.put(recent.getAbsolutePath(), daysAgo(1));
+
+        // When installations which are unconfigured and unused for a week are evicted
+        EvictGoInstallations.Result result = evict(dir, new EvictGoInstallations(lastUsed,
+                Collections.singleton("go1.22"), Collections.singleton(inUse.getAbsolutePath()),
+                now - TimeUnit.HOURS.toMillis(1), TimeUnit.DAYS.toMillis(7), 0));
+
+        // Then only the old, unconfigured installation should be removed
+        assertEquals(Collections.singletonList(old.getAbsolutePath()), evicted(result));
+        assertFalse(old.exists());
+        assertTrue(configured.exists() && inUse.exists() && recent.exists() && store.exists() && staging.exists());
+
+        // And the controller's record of when the recent installation was used should be kept on the node
+        assertEquals(daysAgo(1), new File(recent, EvictGoInstallations.LAST_USED).lastModified(), 1000);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedInstallationsAreRemovedToFitBudget() throws Exception {
+        // Given three installations of 1 MB each
+        File dir = tmp.newFolder("tools");
+        File oldest = install(dir, "go1.20", daysAgo(3), 1024 * 1024);
+        File older = install(dir, "go1.21", daysAgo(2), 1024 * 1024);
+        File newest = install(dir, "go1.22", daysAgo(1), 1024 * 1024);
+
+        // When they must fit within 1.5 MB, even though they're all configured
+        EvictGoInstallations.Result result = evict(dir, new EvictGoInstallations(
+                Collections.<String, Long>emptyMap(), new HashSet<String>(Arrays.asList("go1.20", "go1.21", "go1.22")),
+                Collections.<String>emptySet(), now - TimeUnit.HOURS.toMillis(1), 0, 1536 * 1024));
+
+        // Then the least recently used should be removed until they fit
+        assertEquals(Arrays.asList(oldest.getAbsolutePath(), older.getAbsolutePath()), evicted(result));
+        assertEquals(2 * 1024 * 1024, freed(result));
+        assertEquals(1024 * 1024, result.remainingBytes);
+        assertTrue(newest.exists());
+    }
+
+    @Test
+    public void testFilesSharedBetweenInstallationsAreOnlyFreedOnceUnused() throws Exception {
+        // Given two installations which share a 1 MB file via the store, and another with a 1 MB file of its own
+        File dir = tmp.newFolder("tools");
+        File blob = new File(dir, ContentStore.DIRECTORY_NAME + "/blobs/ab/abcdef");
+        FileUtils.writeByteArrayToFile(blob, new byte[1024 * 1024]);
+        File oldest = install(dir, "go1.20", daysAgo(3), 0);
+        File older = install(dir, "go1.21", daysAgo(2), 0);
+        install(dir, "go1.22", daysAgo(1), 1024 * 1024);
+        Files.createLink(new File(oldest, "bin/shared").toPath(), blob.toPath());
+        Files.createLink(new File(older, "bin/shared").toPath(), blob.toPath());
+
+        // When they must fit within 1.5 MB
+        EvictGoInstallations.Result result = evict(dir, new EvictGoInstallations(
+                Collections.<String, Long>emptyMap(), new HashSet<String>(Arrays.asList("go1.20", "go1.21", "go1.22")),
+                Collections.<String>emptySet(), now - TimeUnit.HOURS.toMillis(1), 0, 1536 * 1024));
+
+        // Then both installations sharing the file should be removed, as removing one alone frees nothing
+        assertEquals(Arrays.asList(oldest.getAbsolutePath(), older.getAbsolutePath()), evicted(result));
+        assertEquals(1024 * 1024, freed(result));
+        assertEquals(1024 * 1024, result.remainingBytes);
+
+        // And the store should no longer hold the shared file
+        assertFalse(blob.exists());
+    }
+
+    /** Finds the installations to remove, and then removes them, as the controller does. */
+    private static EvictGoInstallations.Result evict(File dir, EvictGoInstallations check) throws Exception {
+        EvictGoInstallations.Result result = check.invoke(dir, null);
+        for (String path : result.evictable.keySet()) {
+            assertTrue(new EvictGoInstallations.Remove().invoke(new File(path), null));
+        }
+        new EvictGoInstallations.CollectGarbage().invoke(dir, null);
+        return result;
+    }
+
+    private static List<String> evicted(EvictGoInstallations.Result result) {
+        return new ArrayList<String>(result.evictable.keySet());
+    }
+
+    private static long freed(EvictGoInstallations.Result result) {
+        long freed = 0;
+        for (long bytes : result.evictable.values()) {
+            freed += bytes;
+        }
+        return freed;
+    }
+
+    private long daysAgo(int days) {
+        return now - TimeUnit.DAYS.toMillis(days);
+    }
+
+    /** Creates a fake installation, which was installed at the given time. */
+    private static File install(File dir, String name, long installedAt, int size) throws IOException {
+        File installation = new File(dir, name);
+        FileUtils.writeByteArrayToFile(new File(installation, "bin/go"), new byte[size]);
+        File installedFrom = new File(installation, UnpackGoArchive.INSTALLED_FROM);
+        FileUtils.writeStringToFile(installedFrom, "", "UTF-8");
+        assertTrue(installedFrom.setLastModified(installedAt));
+        return installation;
+    }
+
+}
@@ -0,0 +1,174 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Util;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.jenkinsci.plugins.golang.GolangInstaller.GolangInstallable;
+
+/**
+ * Measures unpacking a synthetic Go SDK archive, with a similar number and size of files as a real one, onto disk:
+ * into an empty directory, over the previous patch release, and into the deduplicated store alongside the previous
+ * patch release.
+ */
+@JmhBenchmark
+public class ExtractionBenchmark {
+
+    private static final int FILE_COUNT = 2000;
+
+    /** Proportion of files which differ between the two patch releases. */
+    private static final double CHANGED_FILES = 0.03;
+
+    @State(Scope.Benchmark)
+    public static class Archives {
+
+        File dir;
+        GolangInstallable previous;
+        GolangInstallable current;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            dir = Files.createTempDirectory("go-archives").toFile();
+            previous = write("go1.22.3.linux-amd64.tar.gz", createFiles("go1.22.3", 0));
+            current = write("go1.22.4.linux-amd64.tar.gz", createFiles("go1.22.4", 1));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            FileUtils.deleteDirectory(dir);
+        }
+
+        private GolangInstallable write(String name, Map<String, String> files) throws Exception {
+            File archive = new File(dir, name);
+            FileUtils.writeByteArrayToFile(archive, TestArchives.tarGz(files));
+            GolangInstallable installable = new GolangInstallable();
+            installable.url = archive.toURI().toURL().toString();
+            return installable;
+        }
+
+        UnpackGoArchive unpack(GolangInstallable installable) throws IOException {
+            return new UnpackGoArchive(installable, new File(dir, name(installable)).toURI().toURL());
+        }
+
+        private static String name(GolangInstallable installable) {
+            return installable.url.substring(installable.url.lastIndexOf('/') + 1);
+        }
+
+        /** @param revision Files changed between releases get different content for each revision. */
+        private static Map<String, String> createFiles(String version, int revision) {
+            Random random = new Random(42);
+            Map<String, String> files = new LinkedHashMap<String, String>();
+            files.put("VERSION", version);
+            files.put("bin/go", createContent(random, 4 * 1024 * 1024));
+            files.put("bin/gofmt", createContent(random, 1024 * 1024));
+            for (int i = 0; i < FILE_COUNT; i++) {
+                String content = createContent(random, 256 + random.nextInt(12 * 1024));
+                if (random.nextDouble() < CHANGED_FILES) {
+                    content += "// revision " + revision;
+                }
+                files.put(String.format("src/pkg%03d/file%d.go", i / 20, i % 20), content);
+            }
+            return files;
+        }
+
+        private static String createContent(Random random, int length) {
+            StringBuilder content = new StringBuilder(length);
+            while (content.length() < length) {
+                content.append("func f").append(random.nextInt(100000)).append("() int { return ")
+                        .append(random.nextInt()).append(" }\n");
+            }
+            return content.toString();
+        }
+
+    }
+
+    /** An empty tools directory. */
+    @State(Scope.Thread)
+    public static class EmptyTarget {
+
+        File root;
+
+        @Setup(Level.Invocation)
+        public void setUp() throws IOException {
+            root = Files.createTempDirectory("go-tools").toFile();
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws IOException {
+            delete(root);
+        }
+
+    }
+
+    /** A tools directory where the previous patch release is installed in the target directory. */
+    @State(Scope.Thread)
+    public static class UpgradeTarget {
+
+        File root;
+
+        @Setup(Level.Invocation)
+        public void setUp(Archives archives) throws Exception {
+            root = Files.createTempDirectory("go-tools").toFile();
+            archives.unpack(archives.previous).invoke(new File(root, "go"), null);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws IOException {
+            delete(root);
+        }
+
+    }
+
+    /** A tools directory where the previous patch release is installed, via the store, in another directory. */
+    @State(Scope.Thread)
+    public static class DeduplicatedTarget {
+
+        File root;
+
+        @Setup(Level.Invocation)
+        public void setUp(Archives archives) throws Exception {
+            root = Files.createTempDirectory("go-tools").toFile();
+            archives.unpack(archives.previous).deduplicate(true).invoke(new File(root, "go1.22.3"), null);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws IOException {
+            delete(root);
+        }
+
+    }
+
+    @Benchmark
+    public UnpackGoArchive.Result unpackIntoEmptyDirectory(Archives archives, EmptyTarget target) throws Exception {
+        return archives.unpack(archives.current).invoke(new File(target.root, "go"), null);
+    }
+
+    @Benchmark
+    public UnpackGoArchive.Result upgradePatchRelease(Archives archives, UpgradeTarget target) throws Exception {
+        return archives.unpack(archives.current).invoke(new File(target.root, "go"), null);
+    }
+
+    @Benchmark
+    public UnpackGoArchive.Result unpackDeduplicated(Archives archives, DeduplicatedTarget target) throws Exception {
+        return archives.unpack(archives.current).deduplicate(true).invoke(new File(target.root, "go1.22.4"), null);
+    }
+
+    /** Deletes a tools directory, including any read-only files from the store. */
+    private static void delete(File root) throws IOException {
+        Util.deleteRecursive(root);
+    }
+
+}
@@ -0,0 +1,97 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.model.Result;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class GoBenchmarkPublisherTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testPlainAndJsonOutputIsParsed() throws Exception {
+        // Given plain output, run twice, and JSON output where a result is split over several events
+        String plain = "goos: linux\npkg: example.com/app\n"
+                + "BenchmarkParse-8   \t 1000000\t      1200 ns/op\t     128 B/op\t       2 allocs/op\n"
+                + "BenchmarkParse-8   \t 1000000\t      1000 ns/op\t     128 B/op\t       2 allocs/op\n"
+                + "PASS\n";
+        String json = "{\"Action\":\"output\",\"Package\":\"example.com/lib\","
+                + "\"Output\":\"BenchmarkSum/small-4 \\t\"}\n"
+                + "{\"Action\":\"output\",\"Package\":\"example.com/lib\",\"Output\":\"  5000\\t  3.5 ns/op\\n\"}\n"
+                + "{\"Action\":\"pass\",\"Package\":\"example.com/lib\"}\n";
+
+        // When it's parsed
+        Map<String, GoBenchmarkResult> fromPlain = GoBenchmarkParser.parse(new StringReader(plain));
+        Map<String, GoBenchmarkResult> fromJson = GoBenchmarkParser.parse(new StringReader(json));
+
+        // Then the measurements should be averaged per benchmark, without the GOMAXPROCS suffix
+        GoBenchmarkResult parse = fromPlain.get("example.com/app.BenchmarkParse");
+        assertEquals(1100, parse.getNsPerOp(), 0.001);
+        assertEquals(128, parse.getBytesPerOp(), 0.001);
+        assertEquals(2, parse.getAllocsPerOp(), 0.001);
+        GoBenchmarkResult sum = fromJson.get("example.com/lib.BenchmarkSum/small");
+        assertEquals(3.5, sum.getNsPerOp(), 0.001);
+        assertTrue(Double.isNaN(sum.getAllocsPerOp()));
+    }
+
+    @Test
+    public void testTimestampedOutputIsParsed() throws Exception {
+        // Given output from a build log with timestamps
+        String log = "[2024-05-01T10:00:00.000Z] pkg: example.com/app\n"
+                + "[2024-05-01T10:00:01.000Z] BenchmarkParse-8 \t 1000000\t 1200 ns/op\t 128 B/op\n";
+
+        // Then the timestamps should be ignored
+        GoBenchmarkResult parse = GoBenchmarkParser.parse(new StringReader(log)).get("example.com/app.BenchmarkParse");
+        assertNotNull(parse);
+        assertEquals(1200, parse.getNsPerOp(), 0.001);
+    }
+
+    @Test
+    public void testResultsFromSeveralFilesAreCombined() throws Exception {
+        // Given the same benchmark is in two output files
+        GoBenchmarkParser parser = new GoBenchmarkParser();
+        parser.read(new StringReader("pkg: example.com/app\nBenchmarkParse-8 \t 1000\t 1000 ns/op\n"));
+        parser.read(new StringReader("pkg: example.com/app\nBenchmarkParse-8 \t 1000\t 1200 ns/op\n"));
+
+        // Then its results should be averaged, rather than the last file's results being used
+        assertEquals(1100, parser.getResults().get("example.com/app.BenchmarkParse").getNsPerOp(), 0.001);
+    }
+
+    @Test
+    public void testBuildIsUnstableWhenBenchmarkRegresses() throws Exception {
+        // Given a job records benchmark results, and the benchmark becomes 50% slower in the second build
+        WorkflowJob job = j.createProject(WorkflowJob.class);
+        job.setDefinition(new CpsFlowDefinition("node {\n" +
+                "  def ns = currentBuild.number == 1 ? 100 : 150\n" +
+                "  writeFile file: 'bench.txt', text: \"BenchmarkParse-8 \\t 1000 \\t ${ns} ns/op\\n\"\n" +
+                "  goBenchmarks results: 'bench.txt', regressionThresholdPercent: 10\n" +
+                "}", true));
+
+        // When it's built twice
+        WorkflowRun first = j.buildAndAssertSuccess(job);
+        WorkflowRun second = j.assertBuildStatus(Result.UNSTABLE, job.scheduleBuild2(0));
+
+        // Then the results should be kept with each build, and the regression reported
+        j.assertLogContains("BenchmarkParse took 150.0 ns/op, up from 100.0 ns/op (+50.0%)", second);
+        assertTrue(new File(first.getRootDir(), GoBenchmarkAction.FILE_NAME).isFile());
+        GoBenchmarkAction action = second.getAction(GoBenchmarkAction.class);
+        assertNotNull(action);
+        assertEquals(150, GoBenchmarkAction.read(new File(second.getRootDir(), GoBenchmarkAction.FILE_NAME))
+                .get("BenchmarkParse").getNsPerOp(), 0.001);
+        assertEquals(first, action.getPrevious().getRun());
+    }
+
+}
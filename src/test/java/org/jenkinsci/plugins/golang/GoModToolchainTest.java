@@ -0,0 +1,80 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import hudson.tools.ToolProperty;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.net.URL;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class GoModToolchainTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testRequiredVersionIsLaterOfGoAndToolchainDirectives() {
+        // Given go.mod files with various combinations of directives
+        String both = "module example.com/app\n\ngo 1.21 // language version\n\ntoolchain go1.22.5\n";
+        String olderToolchain = "module example.com/app\r\ngo 1.22.1\r\ntoolchain go1.21.0+auto\r\n";
+        String goOnly = "module example.com/app\n\ngo 1.20\n\nrequire golang.org/x/mod v0.14.0\n";
+        String neither = "module example.com/app\n\nrequire (\n\tgolang.org/x/mod v0.14.0\n)\n";
+
+        // Then the later of the two versions should be required
+        assertEquals("1.22.5", GoModToolchain.getRequiredVersion(both));
+        assertEquals("1.22.1", GoModToolchain.getRequiredVersion(olderToolchain));
+        assertEquals("1.20", GoModToolchain.getRequiredVersion(goOnly));
+        assertNull(GoModToolchain.getRequiredVersion(neither));
+    }
+
+    @Test
+    public void testRequiredVersionIsMatchedToKnownRelease() throws Exception {
+        // Given a few releases are known
+        new TestCatalogue()
+                .add("1.22.1", new URL("https://example.com/go1.22.1.tar.gz"))
+                .add("1.21.3", new URL("https://example.com/go1.21.3.tar.gz"))
+                .add("1.21.0", new URL("https://example.com/go1.21.0.tar.gz"))
+                .install(j.jenkins);
+
+        // Then an exact match should be used, if there is one
+        assertEquals("1.22.1", GoModToolchain.findRelease("1.22.1"));
+
+        // And a minor version should follow the latest release of that minor version
+        assertEquals("1.21.x", GoModToolchain.findRelease("1.21"));
+        assertEquals("1.21.x", GoModToolchain.findRelease("1.21.2"));
+
+        // And versions newer than any known release should be left for Go to download itself
+        assertNull(GoModToolchain.findRelease("1.21.5"));
+        assertNull(GoModToolchain.findRelease("1.23"));
+    }
+
+    @Test
+    public void testInstallationIsKeptIfRecentEnough() throws Exception {
+        // Given a workspace whose go.mod requires Go 1.21, and an installation of Go 1.21.3
+        FilePath root = new FilePath(tmp.getRoot());
+        FilePath workspace = root.child("workspace");
+        FilePath home = root.child("go");
+        home.child("VERSION").write("go1.21.3\ntime 2023-10-05T20:35:42Z\n", "UTF-8");
+        GolangInstallation installation = new GolangInstallation("go1.21", home.getRemote(),
+                Collections.<ToolProperty<?>>emptyList());
+
+        // Then without a go.mod, Go should be left to choose its toolchain itself
+        assertNull(GoModToolchain.select(installation, j.jenkins, workspace, TaskListener.NULL));
+
+        // And with one, the installation should be used as it is recent enough
+        workspace.child("go.mod").write("module example.com/app\n\ngo 1.21\n", "UTF-8");
+        assertSame(installation, GoModToolchain.select(installation, j.jenkins, workspace, TaskListener.NULL));
+    }
+
+}
@@ -7,6 +7,7 @@ import javax.annotation.Nullable;
 import static org.jenkinsci.plugins.golang.GolangInstaller.GolangInstallable;
 import static org.jenkinsci.plugins.golang.GolangInstaller.GolangRelease;
 import static org.jenkinsci.plugins.golang.GolangInstaller.InstallationFailedException;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class GolangInstallerTest {
@@ -202,6 +203,20 @@ public class GolangInstallerTest {
         // Then an exception should be thrown
     }
 
+    @Test
+    public void testReleaseVariantsAreNotReordered() throws InstallationFailedException {
+        // Given we have configured a release we want to install
+        GolangRelease release = createReleaseInfo();
+        GolangInstallable[] original = release.variants.clone();
+
+        // When we look up install packages for various platforms
+        GolangInstaller.getInstallCandidate(release, "Mac OS X", "x86_64", "10.7");
+        GolangInstaller.getInstallCandidate(release, "Linux", "amd64", "5.4.0");
+
+        // Then the list of variants belonging to the release should not have been modified
+        assertArrayEquals(original, release.variants);
+    }
+
     private static GolangRelease createReleaseInfo() {
         return createReleaseInfo(FREEBSD_32, FREEBSD_64, LINUX_32, LINUX_64, LINUX_ARM32, LINUX_ARM64,
                 OS_X_10_6_32, OS_X_10_6_64, OS_X_10_8_32, OS_X_10_8_64);
@@ -0,0 +1,135 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.slaves.DumbSlave;
+import hudson.tools.ToolProperty;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class GolangProvisionerTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testInstallationIsOnlyQueuedOnceAtATime() throws Exception {
+        // Given an installation is being provisioned onto an agent
+        DumbSlave agent = j.createOnlineSlave();
+        BlockingInstallation installation = new BlockingInstallation("go1.16");
+        assertEquals(1, GolangProvisioner.provision(installations(installation), agent, false));
+
+        // When it is provisioned again before the first has finished
+        int queued = GolangProvisioner.provision(installations(installation), agent, false);
+
+        // Then it should not have been queued again
+        assertEquals(0, queued);
+
+        // And once it has finished, it can be queued again
+        installation.release.countDown();
+        waitForState(agent, GolangProvisioner.State.INSTALLED);
+        assertEquals(1, GolangProvisioner.provision(installations(installation), agent, false));
+        waitForState(agent, GolangProvisioner.State.INSTALLED);
+        assertEquals(2, installation.installs);
+    }
+
+    @Test
+    public void testBuildsWaitForProvisioningWhenNodeConnects() throws Exception {
+        // Given Go is being installed onto an agent which has just connected
+        DumbSlave agent = j.createOnlineSlave();
+        BlockingInstallation installation = new BlockingInstallation("go1.16");
+        GolangProvisioner.provision(installations(installation), agent, true);
+        FreeStyleProject project = j.createFreeStyleProject();
+        project.setAssignedNode(agent);
+
+        // When a build is scheduled for that agent
+        Future<FreeStyleBuild> build = project.scheduleBuild2(0);
+        Thread.sleep(1000);
+
+        // Then it should wait for the installation to finish
+        assertTrue(GolangProvisioner.isBlocked(agent));
+        assertNotNull(j.jenkins.getQueue().getItem(project));
+        assertFalse(build.isDone());
+
+        // And it should go ahead once the installation has finished
+        installation.release.countDown();
+        j.assertBuildStatusSuccess(build);
+        assertFalse(GolangProvisioner.isBlocked(agent));
+    }
+
+    @Test
+    public void testBackgroundProvisioningDoesNotHoldBackBuilds() throws Exception {
+        // Given Go is being installed onto an agent which has been online for a while
+        DumbSlave agent = j.createOnlineSlave();
+        BlockingInstallation installation = new BlockingInstallation("go1.16");
+        GolangProvisioner.provision(installations(installation), agent, false);
+
+        // Then builds should not wait for it
+        assertFalse(GolangProvisioner.isBlocked(agent));
+        installation.release.countDown();
+    }
+
+    @Test
+    public void testStatusesAreForgottenWhenNodeIsRemoved() throws Exception {
+        // Given Go has been provisioned onto an agent
+        DumbSlave agent = j.createOnlineSlave();
+        BlockingInstallation installation = new BlockingInstallation("go1.16");
+        installation.release.countDown();
+        GolangProvisioner.provision(installations(installation), agent, false);
+        waitForState(agent, GolangProvisioner.State.INSTALLED);
+
+        // When the agent is removed
+        j.jenkins.removeNode(agent);
+
+        // Then its status should no longer be listed
+        for (GolangProvisioner.Status status : GolangProvisioner.getStatuses()) {
+            assertFalse(status.getNodeName().equals(agent.getDisplayName()));
+        }
+    }
+
+    private static List<GolangInstallation> installations(GolangInstallation installation) {
+        return Collections.singletonList(installation);
+    }
+
+    private static void waitForState(Node node, GolangProvisioner.State state) throws InterruptedException {
+        while (true) {
+            for (GolangProvisioner.Status status : GolangProvisioner.getStatuses()) {
+                if (status.getNodeName().equals(node.getDisplayName()) && status.getState() == state) {
+                    return;
+                }
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /** An installation which doesn't finish installing until it's released. */
+    private static final class BlockingInstallation extends GolangInstallation {
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile int installs;
+
+        BlockingInstallation(String name) {
+            super(name, null, Collections.<ToolProperty<?>>emptyList());
+        }
+
+        @Override
+        public GolangInstallation forNode(Node node, TaskListener log) throws InterruptedException {
+            release.await();
+            installs++;
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,189 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.util.VersionNumber;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import static org.jenkinsci.plugins.golang.GolangInstaller.GolangInstallable;
+import static org.jenkinsci.plugins.golang.GolangInstaller.GolangRelease;
+import static org.jenkinsci.plugins.golang.GolangInstaller.InstallationFailedException;
+import static org.jenkinsci.plugins.golang.GolangInstaller.ReleaseCatalogue;
+
+/**
+ * Compares the indexed variant lookup with the previous approach of sorting and scanning all variants, and measures
+ * the lookup for nodes of every supported platform.
+ */
+@JmhBenchmark
+@State(Scope.Benchmark)
+public class InstallCandidateBenchmark {
+
+    private GolangRelease release;
+
+    /** Nodes of every supported platform, whose OS and architecture are normalised on each lookup. */
+    private NodePlatform[] nodes;
+
+    /** The same nodes, with their normalised OS and architecture already cached, as for connected agents. */
+    private NodePlatform[] cachedNodes;
+
+    /** A release from the full catalogue, with variants for every supported platform. */
+    private GolangRelease latestRelease;
+
+    @Setup
+    public void setUp() throws InstallationFailedException {
+        latestRelease = ReleaseCatalogue.parse(SyntheticCatalogue.create(), 1L).releases.get(0);
+        nodes = new NodePlatform[SyntheticCatalogue.NODES.length];
+        cachedNodes = new NodePlatform[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            String[] node = SyntheticCatalogue.NODES[i];
+            nodes[i] = new NodePlatform(node[0], node[1], node[2]);
+            cachedNodes[i] = new NodePlatform(node[0], node[1], node[2]);
+            cachedNodes[i].getPlatform();
+            cachedNodes[i].getArchitecture();
+        }
+
+        // A typical release, with around 15 variants
+        String[][] variants = {
+                {"darwin", "amd64", "10.8"}, {"darwin", "386", "10.8"}, {"darwin", "amd64", "10.6"},
+                {"darwin", "386", "10.6"}, {"darwin", "arm64", null}, {"freebsd", "386", null},
+                {"freebsd", "amd64", null}, {"linux", "386", null}, {"linux", "arm64", null},
+                {"linux", "armv6l", null}, {"linux", "ppc64le", null}, {"linux", "s390x", null},
+                {"windows", "386", null}, {"windows", "amd64", null}, {"linux", "amd64", null},
+        };
+        List<GolangInstallable> list = new ArrayList<GolangInstallable>();
+        for (String[] v : variants) {
+            GolangInstallable i = new GolangInstallable();
+            i.os = v[0];
+            i.arch = v[1];
+            i.osxversion = v[2];
+            i.url = String.format("https://go.dev/dl/go1.16.%s-%s.tar.gz", i.os, i.arch);
+            list.add(i);
+        }
+        release = new GolangRelease();
+        release.id = "1.16";
+        release.name = "Go 1.16";
+        release.variants = list.toArray(new GolangInstallable[0]);
+    }
+
+    @Benchmark
+    public GolangInstallable indexedLinux() throws InstallationFailedException {
+        return GolangInstaller.getInstallCandidate(release, "Linux", "amd64", "5.4.0");
+    }
+
+    @Benchmark
+    public GolangInstallable indexedOsX() throws InstallationFailedException {
+        return GolangInstaller.getInstallCandidate(release, "Mac OS X", "x86_64", "10.7");
+    }
+
+    @Benchmark
+    public GolangInstallable sortAndScanLinux() {
+        return sortAndScan(release, "Linux", "amd64", "5.4.0");
+    }
+
+    @Benchmark
+    public GolangInstallable sortAndScanOsX() {
+        return sortAndScan(release, "Mac OS X", "x86_64", "10.7");
+    }
+
+    @Benchmark
+    public void allPlatforms(Blackhole blackhole) throws InstallationFailedException {
+        for (NodePlatform node : nodes) {
+            blackhole.consume(GolangInstaller.getInstallCandidate(latestRelease,
+                    new NodePlatform(node.osName, node.osArch, node.osVersion)));
+        }
+    }
+
+    @Benchmark
+    public void allPlatformsCached(Blackhole blackhole) throws InstallationFailedException {
+        for (NodePlatform node : cachedNodes) {
+            blackhole.consume(GolangInstaller.getInstallCandidate(latestRelease, node));
+        }
+    }
+
+    /**
+     * The previous implementation, copied as it was: normalising the OS and architecture, sorting a copy of the
+     * variants, and parsing OS X versions in the comparator and the scan, on every call.
+     */
+    private static GolangInstallable sortAndScan(GolangRelease release, String osName, String osArch,
+                                                 String osVersion) {
+        String platform = getPlatform(osName);
+        String architecture = getArchitecture(osArch);
+
+        // The original sorted the shared array in place; sort a copy here, so that other benchmarks are unaffected
+        List<GolangInstallable> variants = new ArrayList<GolangInstallable>(Arrays.asList(release.variants));
+        Collections.sort(variants, PREVIOUS_ORDER);
+        for (GolangInstallable i : variants) {
+            if (i.os.equals(platform) && i.arch.equals(architecture)) {
+                if (i.osxversion == null) {
+                    return i;
+                }
+                if (new VersionNumber(osVersion).compareTo(new VersionNumber(i.osxversion)) >= 0) {
+                    return i;
+                }
+            }
+        }
+        return null;
+    }
+
+    /** The previous {@link GolangInstallable#compareTo}, which parsed both OS X versions on every comparison. */
+    private static final Comparator<GolangInstallable> PREVIOUS_ORDER = new Comparator<GolangInstallable>() {
+        public int compare(GolangInstallable a, GolangInstallable b) {
+            // Sort by OS X version, descending
+            if (a.osxversion != null && b.osxversion != null) {
+                return new VersionNumber(b.osxversion).compareTo(new VersionNumber(a.osxversion));
+            }
+            // Otherwise we don't really care; sort by OS name
+            return a.os.compareTo(b.os);
+        }
+    };
+
+    /** The previous OS normalisation, which ran on every lookup. */
+    private static String getPlatform(String os) {
+        String value = os.toLowerCase(Locale.ENGLISH);
+        if (value.contains("freebsd")) {
+            return "freebsd";
+        }
+        if (value.contains("linux")) {
+            return "linux";
+        }
+        if (value.contains("os x")) {
+            return "darwin";
+        }
+        if (value.contains("windows")) {
+            return "windows";
+        }
+        return null;
+    }
+
+    /** The previous CPU architecture normalisation, which ran on every lookup. */
+    private static String getArchitecture(String arch) {
+        String value = arch.toLowerCase(Locale.ENGLISH);
+        if (value.contains("amd64") || value.contains("86_64")) {
+            return "amd64";
+        }
+        if (value.contains("aarch64") || value.contains("arm64")) {
+            return "arm64";
+        }
+        if (value.contains("aarch32") || value.contains("arm")) {
+            return "armv6l";
+        }
+        if (value.contains("86")) {
+            return "386";
+        }
+        if (value.contains("s390x")) {
+            return "s390x";
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,117 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.util.StreamTaskListener;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InstallSchedulerTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testWaitingInstallationsTakeTurnsByNode() throws Exception {
+        // Given only one installation may happen at once, and one is in progress
+        GolangConfiguration.get().setMaxConcurrentInstallations(1);
+        InstallScheduler.Permit first = InstallScheduler.acquire(j.jenkins, TaskListener.NULL);
+        assertFalse(first.wasQueued());
+        assertTrue(InstallScheduler.isBusy());
+
+        // When two installations onto one agent, then one onto another, have to wait
+        Node a = j.createSlave("a", null, null);
+        Node b = j.createSlave("b", null, null);
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        List<Thread> threads = new ArrayList<Thread>();
+        ByteArrayOutputStream lastLog = null;
+        for (Object[] waiter : new Object[][] {{a, "a1"}, {a, "a2"}, {b, "b1"}}) {
+            lastLog = new ByteArrayOutputStream();
+            Thread thread = startInstallation((Node) waiter[0], (String) waiter[1], lastLog, order);
+            threads.add(thread);
+            // Wait until it's queued, so that the queue order is known
+            while (lastLog.size() == 0) {
+                Thread.sleep(10);
+            }
+        }
+
+        // Then the console should show each build's position in the queue
+        assertTrue(new String(lastLog.toByteArray(), StandardCharsets.UTF_8).contains(
+                Messages.WaitingForInstallationSlot(2, 1)));
+
+        // And once the first installation finishes, the agents should take turns
+        first.release();
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        assertEquals(Arrays.asList("a1", "b1", "a2"), order);
+        assertFalse(InstallScheduler.isBusy());
+    }
+
+    @Test
+    public void testDownloadsAreLimitedToConfiguredRate() throws Exception {
+        // Given downloads are limited to 1 MB per second
+        GolangConfiguration.get().setDownloadRateLimitMbPerSecond(1);
+        BandwidthLimiter limiter = InstallScheduler.getBandwidthLimiter();
+
+        // When 2 MB are read
+        long started = System.nanoTime();
+        try (InputStream in = limiter.wrap(new ByteArrayInputStream(new byte[2 * 1024 * 1024]))) {
+            assertEquals(2 * 1024 * 1024, IOUtils.toByteArray(in).length);
+        }
+
+        // Then it should take around two seconds
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        assertTrue("Took " + elapsedMillis + "ms", elapsedMillis >= 1500);
+    }
+
+    @Test
+    public void testNodesOnlyGetAShareOfTheRateIfInstallationsAreLimited() {
+        // Given downloads are rate limited, but the number of concurrent installations isn't
+        GolangConfiguration config = GolangConfiguration.get();
+        config.setDownloadRateLimitMbPerSecond(4);
+
+        // Then the controller should send the archives, so that the total rate is kept
+        assertTrue(InstallScheduler.isRateLimitedByController());
+
+        // But once installations are limited, each node may download its share itself
+        config.setMaxConcurrentInstallations(2);
+        assertFalse(InstallScheduler.isRateLimitedByController());
+        assertEquals(2 * 1024 * 1024, InstallScheduler.getRateLimitPerNode());
+    }
+
+    private static Thread startInstallation(final Node node, final String name, final ByteArrayOutputStream log,
+                                            final List<String> order) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    InstallScheduler.Permit permit = InstallScheduler.acquire(node, new StreamTaskListener(log));
+                    order.add(name);
+                    permit.release();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+}
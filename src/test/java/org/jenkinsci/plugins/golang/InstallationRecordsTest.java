@@ -0,0 +1,76 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.FilePath;
+import hudson.slaves.DumbSlave;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InstallationRecordsTest {
+
+    private static final String URL = "https://go.dev/dl/go1.16.linux-amd64.tar.gz";
+
+    private static final long MAX_AGE = TimeUnit.MINUTES.toNanos(5);
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testRecordIsTrustedUntilInvalidated() throws Exception {
+        // Given an installation has been verified on an agent
+        DumbSlave agent = j.createOnlineSlave();
+        FilePath path = agent.getRootPath().child("tools/go1.16");
+        InstallationRecords.verified(agent, path, URL);
+        long now = System.nanoTime();
+
+        // Then it should be trusted for the same URL, but not for another
+        assertTrue(InstallationRecords.isVerified(agent, path, URL, now, MAX_AGE));
+        assertFalse(InstallationRecords.isVerified(agent, path, URL.replace("1.16", "1.17"), now, MAX_AGE));
+        assertFalse(InstallationRecords.isVerified(agent, agent.getRootPath().child("tools/go1.17"), URL, now,
+                MAX_AGE));
+
+        // When the installation is removed
+        InstallationRecords.invalidate(agent, path);
+
+        // Then it should no longer be trusted
+        assertFalse(InstallationRecords.isVerified(agent, path, URL, now, MAX_AGE));
+    }
+
+    @Test
+    public void testRecordExpires() throws Exception {
+        // Given an installation has been verified on an agent
+        DumbSlave agent = j.createOnlineSlave();
+        FilePath path = agent.getRootPath().child("tools/go1.16");
+        long before = System.nanoTime();
+        InstallationRecords.verified(agent, path, URL);
+
+        // Then it should only be trusted until the check interval has passed
+        assertTrue(InstallationRecords.isVerified(agent, path, URL, before + MAX_AGE - 1, MAX_AGE));
+        assertFalse(InstallationRecords.isVerified(agent, path, URL, System.nanoTime() + MAX_AGE, MAX_AGE));
+
+        // And it should not be trusted at all if checks should happen on every build
+        assertFalse(InstallationRecords.isVerified(agent, path, URL, System.nanoTime(), 0));
+    }
+
+    @Test
+    public void testRecordIsForgottenWhenAgentReconnects() throws Exception {
+        // Given an installation has been verified on an agent
+        DumbSlave agent = j.createOnlineSlave();
+        FilePath path = agent.getRootPath().child("tools/go1.16");
+        InstallationRecords.verified(agent, path, URL);
+
+        // When the agent reconnects, e.g. because it was replaced by a new machine
+        agent.toComputer().disconnect(null).get();
+        agent.toComputer().connect(false).get();
+        j.waitOnline(agent);
+
+        // Then the installation should be checked again
+        assertFalse(InstallationRecords.isVerified(agent, path, URL, System.nanoTime(), MAX_AGE));
+    }
+
+}
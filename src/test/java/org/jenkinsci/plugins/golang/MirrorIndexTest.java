@@ -0,0 +1,132 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Util;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import static org.jenkinsci.plugins.golang.GolangInstaller.GolangRelease;
+import static org.jenkinsci.plugins.golang.GolangInstaller.ReleaseCatalogue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class MirrorIndexTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testArchivesAreListedAsReleases() throws Exception {
+        // Given a mirror directory with archives for several releases and platforms
+        File dir = tmp.newFolder("mirror");
+        write(dir, "go1.16.linux-amd64.tar.gz", "a");
+        write(dir, "go1.16.windows-amd64.zip", "b");
+        write(dir, "go1.16.3.linux-amd64.tar.gz", "c");
+        write(dir, "go1.17rc1.linux-amd64.tar.gz", "d");
+        write(dir, "README.txt", "not an archive");
+
+        // When the directory is scanned
+        JSONObject data = new MirrorIndex(tmp.newFile("index")).scan(dir);
+        ReleaseCatalogue catalogue = ReleaseCatalogue.parse(data, 1L);
+
+        // Then each version should be a release, newest first
+        assertEquals(3, catalogue.releases.size());
+        assertEquals("1.17rc1", catalogue.releases.get(0).id);
+        assertEquals("1.16.3", catalogue.releases.get(1).id);
+        assertEquals("1.16", catalogue.releases.get(2).id);
+
+        // And each archive should be a variant, with its location and checksum
+        GolangRelease go116 = catalogue.getRelease("1.16");
+        assertEquals(2, go116.variants.length);
+        GolangInstaller.GolangInstallable windows = go116.getCandidates("windows", "amd64")[0];
+        assertEquals(new File(dir, "go1.16.windows-amd64.zip").toURI().toString(), windows.url);
+        assertEquals(sha256("b"), windows.sha256);
+    }
+
+    @Test
+    public void testOnlyNewArchivesAreReadWhenRescanning() throws Exception {
+        // Given a mirror directory which has been indexed
+        File dir = tmp.newFolder("mirror");
+        File indexFile = new File(tmp.getRoot(), "index");
+        write(dir, "go1.16.linux-amd64.tar.gz", "a");
+        write(dir, "go1.16.darwin-amd64.tar.gz", "b");
+        MirrorIndex first = new MirrorIndex(indexFile);
+        first.scan(dir);
+        assertEquals(2, first.getLastDigested());
+
+        // When a new archive is added, with a digest file, and the directory is scanned using the stored index
+        write(dir, "go1.16.1.linux-amd64.tar.gz", "c");
+        write(dir, "go1.16.1.linux-amd64.tar.gz.sha256", "ABCDEF" + sha256("").substring(6));
+        MirrorIndex second = new MirrorIndex(indexFile);
+        JSONObject data = second.scan(dir);
+
+        // Then only the new archive should have been read, with its digest taken from the digest file
+        assertEquals(1, second.getLastDigested());
+        JSONArray releases = data.getJSONArray("releases");
+        assertEquals(2, releases.size());
+        String digest = releases.getJSONObject(0).getJSONArray("variants").getJSONObject(0).getString("sha256");
+        assertEquals("abcdef" + sha256("").substring(6), digest);
+    }
+
+    @Test
+    public void testDigestFileAddedLaterIsUsed() throws Exception {
+        // Given an archive was indexed before its digest file was available
+        File dir = tmp.newFolder("mirror");
+        write(dir, "go1.16.linux-amd64.tar.gz", "a");
+        MirrorIndex index = new MirrorIndex(new File(tmp.getRoot(), "index"));
+        index.scan(dir);
+
+        // When its digest file is added, and the directory is scanned again
+        write(dir, "go1.16.linux-amd64.tar.gz.sha256", sha256("published"));
+        JSONObject data = index.scan(dir);
+
+        // Then the published digest should be used
+        assertEquals(1, index.getLastDigested());
+        String digest = data.getJSONArray("releases").getJSONObject(0).getJSONArray("variants").getJSONObject(0)
+                .getString("sha256");
+        assertEquals(sha256("published"), digest);
+    }
+
+    @Test
+    public void testIndexedArchivesAreAvailableBeforeScanning() throws Exception {
+        // Given a mirror directory was indexed before Jenkins was restarted
+        File dir = tmp.newFolder("mirror");
+        File indexFile = new File(tmp.getRoot(), "index");
+        write(dir, "go1.16.linux-amd64.tar.gz", "a");
+        new MirrorIndex(indexFile).scan(dir);
+
+        // Then its archives should be offered straight away, without waiting for the directory to be scanned
+        MirrorIndex index = new MirrorIndex(indexFile);
+        assertNotNull(index.getData(dir));
+        assertNotEquals(0, index.getRevision(dir));
+    }
+
+    @Test
+    public void testEmptyDirectoryHasNoReleaseData() throws Exception {
+        File dir = tmp.newFolder("mirror");
+        MirrorIndex index = new MirrorIndex(new File(tmp.getRoot(), "index"));
+        assertNull(index.scan(dir));
+
+        write(dir, "go1.16.linux-amd64.tar.gz", "a");
+        assertNotNull(index.scan(dir));
+    }
+
+    private static void write(File dir, String name, String content) throws Exception {
+        FileUtils.writeStringToFile(new File(dir, name), content, StandardCharsets.UTF_8);
+    }
+
+    private static String sha256(String content) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        return Util.toHexString(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+}
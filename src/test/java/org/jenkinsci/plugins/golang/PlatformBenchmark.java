@@ -0,0 +1,30 @@
+package org.jenkinsci.plugins.golang;
+
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import static org.jenkinsci.plugins.golang.GolangInstaller.InstallationFailedException;
+
+/** Measures mapping Java's {@code os.name} and {@code os.arch} values to those used in Go archive names. */
+@JmhBenchmark
+@State(Scope.Benchmark)
+public class PlatformBenchmark {
+
+    @Benchmark
+    public void getPlatform(Blackhole blackhole) throws InstallationFailedException {
+        for (String[] node : SyntheticCatalogue.NODES) {
+            blackhole.consume(GolangInstaller.getPlatform(node[0]));
+        }
+    }
+
+    @Benchmark
+    public void getArchitecture(Blackhole blackhole) throws InstallationFailedException {
+        for (String[] node : SyntheticCatalogue.NODES) {
+            blackhole.consume(GolangInstaller.getArchitecture(node[1]));
+        }
+    }
+
+}
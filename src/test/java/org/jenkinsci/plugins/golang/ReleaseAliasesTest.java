@@ -0,0 +1,76 @@
+package org.jenkinsci.plugins.golang;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.jenkinsci.plugins.golang.GolangInstaller.ReleaseCatalogue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ReleaseAliasesTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Before
+    public void resetAliases() {
+        ReleaseAliases.reset();
+    }
+
+    @Test
+    public void testAliasMovesToNewReleaseOnceItHasBeenPrefetched() throws Exception {
+        // Given an alias has been resolved against the current catalogue
+        ReleaseCatalogue first = createCatalogue(1L, "1.17rc1", "1.16.1", "1.16");
+        assertEquals("1.16.1", ReleaseAliases.resolve("1.16.x", first).id);
+        assertEquals("1.16.1", ReleaseAliases.resolve("stable", first).id);
+
+        // When the catalogue is updated with a new patch release
+        ReleaseCatalogue second = createCatalogue(2L, "1.17rc1", "1.16.2", "1.16.1", "1.16");
+
+        // Then builds should keep using the previous release at first
+        assertEquals("1.16.1", ReleaseAliases.resolve("1.16.x", second).id);
+
+        // And the new release should be used once it has been prefetched
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!ReleaseAliases.resolve("1.16.x", second).id.equals("1.16.2")) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Alias was not updated to the new release");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testAliasKeepsItsReleaseAfterRestart() throws Exception {
+        // Given an alias was resolved before Jenkins was restarted
+        assertEquals("1.16.1", ReleaseAliases.resolve("1.16.x", createCatalogue(1L, "1.16.1", "1.16")).id);
+        ReleaseAliases.reset();
+
+        // When it's resolved against a newer catalogue after the restart
+        ReleaseCatalogue second = createCatalogue(2L, "1.16.2", "1.16.1", "1.16");
+
+        // Then builds should keep using the previous release until the new one has been prefetched
+        assertEquals("1.16.1", ReleaseAliases.resolve("1.16.x", second).id);
+    }
+
+    @Test
+    public void testUnknownAliasIsNotResolved() {
+        ReleaseCatalogue catalogue = createCatalogue(1L, "1.16.1");
+        assertNull(ReleaseAliases.resolve("1.15.x", catalogue));
+    }
+
+    private static ReleaseCatalogue createCatalogue(long timestamp, String... ids) {
+        JSONArray releases = new JSONArray();
+        for (String id : ids) {
+            releases.add(new JSONObject().element("id", id).element("name", "Go " + id));
+        }
+        return ReleaseCatalogue.parse(new JSONObject().element("releases", releases), timestamp);
+    }
+
+}
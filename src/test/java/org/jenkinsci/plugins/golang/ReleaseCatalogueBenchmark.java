@@ -0,0 +1,49 @@
+package org.jenkinsci.plugins.golang;
+
+import jenkins.benchmark.jmh.JmhBenchmark;
+import net.sf.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import static org.jenkinsci.plugins.golang.GolangInstaller.GolangRelease;
+import static org.jenkinsci.plugins.golang.GolangInstaller.ReleaseCatalogue;
+
+/**
+ * Measures turning the full upstream release catalogue into the list returned by
+ * {@link GolangInstaller.GolangReleaseList#toList()}, which happens whenever the update centre data changes.
+ */
+@JmhBenchmark
+@State(Scope.Benchmark)
+public class ReleaseCatalogueBenchmark {
+
+    private String text;
+    private JSONObject json;
+    private ReleaseCatalogue catalogue;
+
+    @Setup
+    public void setUp() {
+        json = SyntheticCatalogue.create();
+        text = json.toString();
+        catalogue = ReleaseCatalogue.parse(json, 1L);
+    }
+
+    /** Reading the data file, as {@link hudson.model.DownloadService.Downloadable#getData()} does, then parsing it. */
+    @Benchmark
+    public ReleaseCatalogue parseText() {
+        return ReleaseCatalogue.parse(JSONObject.fromObject(text), 1L);
+    }
+
+    @Benchmark
+    public ReleaseCatalogue parseJson() {
+        return ReleaseCatalogue.parse(json, 1L);
+    }
+
+    /** Looking up a release once the catalogue has been parsed, as happens for every installation. */
+    @Benchmark
+    public GolangRelease lookUpRelease() {
+        return catalogue.getRelease("1.12.3");
+    }
+
+}
@@ -0,0 +1,165 @@
+package org.jenkinsci.plugins.golang;
+
+import net.sf.json.JSONObject;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.jenkinsci.plugins.golang.GolangInstaller.GolangRelease;
+import static org.jenkinsci.plugins.golang.GolangInstaller.ReleaseCatalogue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ReleaseCatalogueTest {
+
+    private static final String JSON = "{\"releases\": [" +
+            "{\"id\": \"1.16\", \"name\": \"Go 1.16\", \"variants\": [" +
+            "  {\"url\": \"https://go.dev/dl/go1.16.linux-amd64.tar.gz\", \"os\": \"linux\", \"arch\": \"amd64\"}," +
+            "  {\"url\": \"https://go.dev/dl/go1.16.darwin-amd64.tar.gz\", \"os\": \"darwin\", \"arch\": \"amd64\"}]}," +
+            "{\"id\": \"1.15.8\", \"name\": \"Go 1.15.8\", \"variants\": [" +
+            "  {\"url\": \"https://go.dev/dl/go1.15.8.linux-amd64.tar.gz\", \"os\": \"linux\", \"arch\": \"amd64\"}]}" +
+            "]}";
+
+    @Test
+    public void testReleasesAreParsedInOrder() {
+        // Given we have received release information from the update centre
+        ReleaseCatalogue catalogue = ReleaseCatalogue.parse(JSONObject.fromObject(JSON), 1L);
+
+        // Then all of the releases should be available, in their original order
+        assertEquals(2, catalogue.releases.size());
+        assertEquals("1.16", catalogue.releases.get(0).id);
+        assertEquals("1.15.8", catalogue.releases.get(1).id);
+        assertEquals(2, catalogue.releases.get(0).variants.length);
+    }
+
+    @Test
+    public void testReleaseLookupById() {
+        // Given we have received release information from the update centre
+        ReleaseCatalogue catalogue = ReleaseCatalogue.parse(JSONObject.fromObject(JSON), 1L);
+
+        // When we look up a release by its ID
+        GolangRelease release = catalogue.getRelease("1.15.8");
+
+        // Then we should get the matching release
+        assertEquals("Go 1.15.8", release.name);
+        assertNull(catalogue.getRelease("1.14"));
+        assertNull(catalogue.getRelease(null));
+    }
+
+    @Test
+    public void testFullCatalogueHasCandidateForEveryPlatform() throws Exception {
+        // Given a catalogue the size of the full upstream one, as used by the benchmarks
+        ReleaseCatalogue catalogue = ReleaseCatalogue.parse(SyntheticCatalogue.create(), 1L);
+        GolangRelease latest = catalogue.releases.get(0);
+
+        // Then the latest release should be installable on nodes of every platform
+        for (String[] node : SyntheticCatalogue.NODES) {
+            assertNotNull(GolangInstaller.getInstallCandidate(latest, node[0], node[1], node[2]));
+        }
+    }
+
+    @Test
+    public void testReleasesCanBeFiltered() {
+        // Given a catalogue the size of the full upstream one
+        ReleaseCatalogue catalogue = ReleaseCatalogue.parse(SyntheticCatalogue.create(), 1L);
+
+        // Then pre-releases should only be included when all releases are requested
+        assertEquals(catalogue.releases, catalogue.getReleases(ReleaseFilter.ALL));
+        assertEquals("1.23rc2", catalogue.releases.get(3).id);
+        for (GolangRelease r : catalogue.getReleases(ReleaseFilter.STABLE)) {
+            assertFalse(r.id, r.id.contains("rc") || r.id.contains("beta"));
+        }
+
+        // And the latest patch of each minor version should be available, newest first
+        List<GolangRelease> latest = catalogue.getReleases(ReleaseFilter.LATEST_PATCHES);
+        assertEquals(SyntheticCatalogue.LATEST_MINOR - 1, latest.size());
+        assertEquals("1.23.2", latest.get(0).id);
+        assertEquals("1.22.10", latest.get(1).id);
+
+        // And all stable releases of the latest minor versions should be available
+        List<GolangRelease> recent = catalogue.getReleases(ReleaseFilter.RECENT_MINORS);
+        assertEquals("1.23.2", recent.get(0).id);
+        assertEquals("1.21.0", recent.get(recent.size() - 1).id);
+        assertEquals(3 + 11 + 10, recent.size());
+    }
+
+    @Test
+    public void testAliasesResolveToLatestStableRelease() {
+        // Given a catalogue the size of the full upstream one
+        ReleaseCatalogue catalogue = ReleaseCatalogue.parse(SyntheticCatalogue.create(), 1L);
+
+        // Then aliases should refer to the latest stable release of their minor version, or overall
+        assertEquals("1.22.10", catalogue.resolveAlias("1.22.x").id);
+        assertEquals("1.20.8", catalogue.resolveAlias("1.20.x").id);
+        assertEquals("1.23.2", catalogue.resolveAlias("stable").id);
+        assertEquals("1.23.2", catalogue.resolveAlias("latest-stable").id);
+
+        // And anything else should not be resolved
+        assertNull(catalogue.resolveAlias("1.99.x"));
+        assertNull(catalogue.resolveAlias("1.22.10"));
+    }
+
+    @Test
+    public void testCatalogueIsOnlyParsedAgainWhenDataChanges() {
+        // Given a source whose release data was last modified at a particular time
+        CountingSource source = new CountingSource();
+        source.lastModified = 1000;
+        ReleaseCatalogue first = source.getCatalogue();
+
+        // When the catalogue is requested again, without the data changing
+        ReleaseCatalogue second = source.getCatalogue();
+
+        // Then the same parsed catalogue should be returned, without reading the data again
+        assertSame(first, second);
+        assertEquals(1, source.reads);
+
+        // When the data file's timestamp changes
+        source.lastModified = 2000;
+        ReleaseCatalogue third = source.getCatalogue();
+
+        // Then the data should be parsed again
+        assertEquals(2, source.reads);
+        assertEquals(2000, third.timestamp);
+        assertEquals("1.16", third.releases.get(0).id);
+    }
+
+    @Test
+    public void testNoCatalogueBeforeDataIsDownloaded() {
+        // Given a source which has no data yet
+        CountingSource source = new CountingSource();
+
+        // Then no catalogue should be available, and the data should not be read
+        assertNull(source.getCatalogue());
+        assertEquals(0, source.reads);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReleaseListIsImmutable() {
+        ReleaseCatalogue catalogue = ReleaseCatalogue.parse(JSONObject.fromObject(JSON), 1L);
+        catalogue.releases.clear();
+    }
+
+    /** Release source which counts how often its data is read. */
+    private static final class CountingSource extends GolangReleaseSource {
+
+        long lastModified;
+
+        int reads;
+
+        @Override
+        protected long getLastModified() {
+            return lastModified;
+        }
+
+        @Override
+        protected JSONObject getData() {
+            reads++;
+            return JSONObject.fromObject(JSON);
+        }
+
+    }
+
+}
@@ -0,0 +1,213 @@
+package org.jenkinsci.plugins.golang;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ResumableDownloadTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private ArchiveServer server;
+    private long originalRetryDelay;
+
+    @Before
+    public void startServer() throws Exception {
+        server = new ArchiveServer();
+        originalRetryDelay = ResumableDownload.RETRY_DELAY_MILLIS;
+        ResumableDownload.RETRY_DELAY_MILLIS = 0;
+    }
+
+    @After
+    public void stopServer() {
+        server.close();
+        ResumableDownload.RETRY_DELAY_MILLIS = originalRetryDelay;
+    }
+
+    @Test
+    public void testStreamResumesAfterConnectionDrops() throws Exception {
+        // Given the connection drops every 16 KB
+        byte[] content = createContent(100 * 1024);
+        URL url = server.add("go1.16.linux-amd64.tar.gz", content);
+        server.setDropAfter(16 * 1024);
+
+        // When we read the archive
+        byte[] actual;
+        try (InputStream in = ResumableDownload.open(url, ResumableDownload.DIRECT)) {
+            actual = IOUtils.toByteArray(in);
+        }
+
+        // Then we should get the whole archive, having continued from where each connection dropped
+        assertArrayEquals(content, actual);
+        assertEquals(Arrays.asList("", "bytes=16384-", "bytes=32768-", "bytes=49152-", "bytes=65536-",
+                "bytes=81920-", "bytes=98304-"), server.getRequestedRanges("go1.16.linux-amd64.tar.gz"));
+    }
+
+    @Test
+    public void testInterruptedDownloadIsResumedFromPartialFile() throws Exception {
+        // Given the server becomes unavailable part-way through a download
+        byte[] content = createContent(100 * 1024);
+        URL url = server.add("go1.16.linux-amd64.tar.gz", content);
+        File partial = new File(tmp.getRoot(), "go1.16.linux-amd64.tar.gz.part");
+        server.setFailAfter(40 * 1024);
+        try {
+            ResumableDownload.toFile(url, partial, ResumableDownload.DIRECT, 1, null);
+            fail("Expected the download to fail");
+        } catch (IOException e) {
+            // Expected
+        }
+        assertEquals(40 * 1024, partial.length());
+
+        // When we try again, once the server has recovered
+        server.setFailAfter(-1);
+        ResumableDownload.toFile(url, partial, ResumableDownload.DIRECT, 1, null);
+
+        // Then only the remainder of the file should have been requested
+        assertArrayEquals(content, FileUtils.readFileToByteArray(partial));
+        assertEquals(Arrays.asList("", "bytes=40960-"), server.getRequestedRanges("go1.16.linux-amd64.tar.gz"));
+        assertEquals(content.length, server.getBytesServed());
+
+        // And no download state should have been left behind
+        assertArrayEquals(new String[] { partial.getName() }, tmp.getRoot().list());
+    }
+
+    @Test
+    public void testChangedFileIsDownloadedAgainFromStart() throws Exception {
+        // Given a download was interrupted
+        URL url = server.add("go1.16.linux-amd64.tar.gz", createContent(100 * 1024));
+        File partial = new File(tmp.getRoot(), "go1.16.linux-amd64.tar.gz.part");
+        server.setFailAfter(40 * 1024);
+        try {
+            ResumableDownload.toFile(url, partial, ResumableDownload.DIRECT, 1, null);
+            fail("Expected the download to fail");
+        } catch (IOException e) {
+            // Expected
+        }
+
+        // When the file changes on the server before we try again
+        byte[] changed = createContent(90 * 1024);
+        server.add("go1.16.linux-amd64.tar.gz", changed);
+        server.setFailAfter(-1);
+        ResumableDownload.toFile(url, partial, ResumableDownload.DIRECT, 1, null);
+
+        // Then we should have only the new file
+        assertArrayEquals(changed, FileUtils.readFileToByteArray(partial));
+    }
+
+    @Test
+    public void testParallelDownloadUsesSeveralRangesAndSurvivesDrops() throws Exception {
+        // Given a large file, on a server which drops connections every 1 MB
+        byte[] content = createContent((int) ResumableDownload.MIN_PARALLEL_SIZE + 1024 * 1024);
+        URL url = server.add("go1.16.linux-amd64.tar.gz", content);
+        server.setDropAfter(1024 * 1024);
+        File partial = new File(tmp.getRoot(), "go1.16.linux-amd64.tar.gz.part");
+
+        // When we download it over four connections
+        ResumableDownload.toFile(url, partial, ResumableDownload.DIRECT, 4, null);
+
+        // Then the file should have been downloaded in separate ranges, and joined back together correctly
+        assertArrayEquals(content, FileUtils.readFileToByteArray(partial));
+        for (String range : server.getRequestedRanges("go1.16.linux-amd64.tar.gz")) {
+            assertTrue(range, range.matches("bytes=\\d+-\\d+"));
+        }
+        assertArrayEquals(new String[] { partial.getName() }, tmp.getRoot().list());
+    }
+
+    @Test
+    public void testParallelDownloadIsResumedEvenIfServerCannotBeCheckedAgain() throws Exception {
+        // Given a parallel download was interrupted part-way through
+        byte[] content = createContent((int) ResumableDownload.MIN_PARALLEL_SIZE + 1024 * 1024);
+        URL url = server.add("go1.16.linux-amd64.tar.gz", content);
+        File partial = new File(tmp.getRoot(), "go1.16.linux-amd64.tar.gz.part");
+        server.setFailAfter(4 * 1024 * 1024);
+        try {
+            ResumableDownload.toFile(url, partial, ResumableDownload.DIRECT, 4, null);
+            fail("Expected the download to fail");
+        } catch (IOException e) {
+            // Expected
+        }
+
+        // When we try again, while the server can serve the file, but not tell us about it
+        server.setFailAfter(-1);
+        server.setFailHeadRequests(true);
+        ResumableDownload.toFile(url, partial, ResumableDownload.DIRECT, 4, null);
+
+        // Then the download should have carried on from where each connection left off
+        assertArrayEquals(content, FileUtils.readFileToByteArray(partial));
+        assertEquals(content.length, server.getBytesServed());
+        assertArrayEquals(new String[] { partial.getName() }, tmp.getRoot().list());
+    }
+
+    @Test
+    public void testChangedFileIsDownloadedAgainInParallel() throws Exception {
+        // Given a parallel download was interrupted part-way through
+        URL url = server.add("go1.16.linux-amd64.tar.gz",
+                createContent((int) ResumableDownload.MIN_PARALLEL_SIZE + 1024 * 1024));
+        File partial = new File(tmp.getRoot(), "go1.16.linux-amd64.tar.gz.part");
+        server.setFailAfter(4 * 1024 * 1024);
+        try {
+            ResumableDownload.toFile(url, partial, ResumableDownload.DIRECT, 4, null);
+            fail("Expected the download to fail");
+        } catch (IOException e) {
+            // Expected
+        }
+
+        // When the file changes on the server before we try again, and the server can't be checked first
+        byte[] changed = createContent((int) ResumableDownload.MIN_PARALLEL_SIZE + 2 * 1024 * 1024);
+        server.add("go1.16.linux-amd64.tar.gz", changed);
+        server.setFailAfter(-1);
+        server.setFailHeadRequests(true);
+        ResumableDownload.toFile(url, partial, ResumableDownload.DIRECT, 4, null);
+
+        // Then we should have only the new file
+        assertArrayEquals(changed, FileUtils.readFileToByteArray(partial));
+        assertArrayEquals(new String[] { partial.getName() }, tmp.getRoot().list());
+    }
+
+    @Test
+    public void testUnresponsiveServerTimesOut() throws Exception {
+        // Given a server which doesn't respond for a long time
+        URL url = server.add("go1.16.linux-amd64.tar.gz", createContent(1024));
+        server.setDelayMillis(10000);
+        int originalReadTimeout = ResumableDownload.READ_TIMEOUT_MILLIS;
+        ResumableDownload.READ_TIMEOUT_MILLIS = 200;
+
+        // When we try to download from it
+        long started = System.currentTimeMillis();
+        try {
+            ResumableDownload.open(url, ResumableDownload.DIRECT).close();
+            fail("Expected the download to time out");
+        } catch (IOException e) {
+            // Expected
+        } finally {
+            ResumableDownload.READ_TIMEOUT_MILLIS = originalReadTimeout;
+        }
+
+        // Then we should have given up, rather than waiting for it
+        assertTrue(System.currentTimeMillis() - started < 5000);
+    }
+
+    private static byte[] createContent(int length) {
+        byte[] content = new byte[length];
+        new Random(length).nextBytes(content);
+        return content;
+    }
+
+}
@@ -0,0 +1,136 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SharedCachesTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testCachesAreKeptOutsideOfInstallation() {
+        // Given a Go installation directory
+        File home = new File("/jenkins/tools/org.jenkinsci.plugins.golang.GolangInstallation/go1.22");
+
+        // Then its caches should be alongside it, so that replacing the installation doesn't remove them
+        File root = new File(GolangCachesProperty.getCacheRoot(home.getPath()));
+        assertEquals(new File(home.getParentFile(), ".golang-caches/go1.22"), root);
+        assertEquals(new File(root, "build"), new File(GolangCachesProperty.getBuildCache(home.getPath())));
+        assertEquals(new File(root, "mod"), new File(GolangCachesProperty.getModuleCache(home.getPath())));
+    }
+
+    @Test
+    public void testCachePathsUseTheNodesSeparator() {
+        // Given Go installations on Windows and Unix agents, whichever platform the controller is on
+        String windows = "C:\\jenkins\\tools\\org.jenkinsci.plugins.golang.GolangInstallation\\go1.22\\";
+        String unix = "/jenkins/tools/org.jenkinsci.plugins.golang.GolangInstallation/go1.22";
+
+        // Then their caches should be alongside them, using the agent's path separator
+        assertEquals("C:\\jenkins\\tools\\org.jenkinsci.plugins.golang.GolangInstallation\\.golang-caches\\go1.22\\mod",
+                GolangCachesProperty.getModuleCache(windows));
+        assertEquals("/jenkins/tools/org.jenkinsci.plugins.golang.GolangInstallation/.golang-caches/go1.22/build",
+                GolangCachesProperty.getBuildCache(unix));
+    }
+
+    @Test
+    public void testCachesAreTrimmedOnceLastBuildReleasesThem() throws Exception {
+        // Given two builds are using caches which have grown beyond 1 MB
+        Node node = j.jenkins;
+        String home = new File(j.jenkins.getRootDir(), "tools/go1.22").getPath();
+        File buildEntry = createFile(GolangCachesProperty.getBuildCache(home), "00/entry-d", 1024 * 1024);
+        File module = createFile(GolangCachesProperty.getModuleCache(home), "example.com/m@v1/m.go", 1024 * 1024);
+        SharedCaches.acquire(node, home);
+        SharedCaches.acquire(node, home);
+        assertEquals(2, SharedCaches.getUsers(node, home));
+
+        // When the first build finishes
+        SharedCaches.release(node, home, 1, TaskListener.NULL);
+
+        // Then the caches should be left alone, as the other build is still using them
+        assertTrue(buildEntry.exists() && module.exists());
+
+        // When the second build finishes
+        SharedCaches.release(node, home, 1, TaskListener.NULL);
+
+        // Then the least recently used build cache entries should have been removed to fit
+        assertEquals(0, SharedCaches.getUsers(node, home));
+        assertFalse(buildEntry.exists());
+        assertTrue(module.exists());
+    }
+
+    @Test
+    public void testUnusedCachesAreForgotten() throws Exception {
+        // Given one installation whose caches a build is using, and another whose caches are no longer used
+        Node node = j.jenkins;
+        String inUse = new File(j.jenkins.getRootDir(), "tools/go1.20").getPath();
+        String unused = new File(j.jenkins.getRootDir(), "tools/go1.19").getPath();
+        SharedCaches.acquire(node, inUse);
+        SharedCaches.acquire(node, unused);
+        SharedCaches.release(node, unused, 0, TaskListener.NULL);
+        int tracked = SharedCaches.getUsageCount();
+
+        // When the caches are trimmed periodically
+        SharedCaches.prune();
+
+        // Then only the unused caches should have been forgotten
+        assertTrue(SharedCaches.getUsageCount() < tracked);
+        assertEquals(1, SharedCaches.getUsers(node, inUse));
+        SharedCaches.release(node, inUse, 0, TaskListener.NULL);
+    }
+
+    @Test
+    public void testModuleCacheIsOnlyClearedPeriodicallyIfInstallationIsIdle() throws Exception {
+        // Given caches whose module cache alone exceeds the limit, for an installation which was just used
+        Node node = j.jenkins;
+        String home = new File(j.jenkins.getRootDir(), "tools/go1.21").getPath();
+        File buildEntry = createFile(GolangCachesProperty.getBuildCache(home), "00/entry-d", 1024);
+        File module = createFile(GolangCachesProperty.getModuleCache(home), "example.com/m@v1/m.go", 2 * 1024 * 1024);
+        InstallationUsage.used(node, home);
+
+        // When the caches are trimmed periodically
+        SharedCaches.trimIdle(node, home, 1, TaskListener.NULL);
+
+        // Then only the build cache should have been trimmed, as builds via `tool` may be using the module cache
+        assertFalse(buildEntry.exists());
+        assertTrue(module.exists());
+
+        // And when a build has registered its use of the caches, they should not be trimmed at all
+        File newEntry = createFile(GolangCachesProperty.getBuildCache(home), "01/entry-d", 1024);
+        SharedCaches.acquire(node, home);
+        SharedCaches.trimIdle(node, home, 1, TaskListener.NULL);
+        assertTrue(newEntry.exists());
+        SharedCaches.release(node, home, 0, TaskListener.NULL);
+    }
+
+    @Test
+    public void testTrimmingOnlyClearsModuleCacheIfAllowed() throws Exception {
+        // Given caches whose module cache alone exceeds the limit
+        File root = new File(j.jenkins.getRootDir(), "caches");
+        File module = createFile(new File(root, "mod").getPath(), "example.com/m@v1/m.go", 2048);
+
+        // Then the module cache should only be cleared when no build can be using it
+        assertEquals(0L, (long) new TrimGoCaches(1024, false).invoke(root, null));
+        assertTrue(module.exists());
+        assertEquals(2048L, (long) new TrimGoCaches(1024, true).invoke(root, null));
+        assertFalse(module.exists());
+    }
+
+    private static File createFile(String dir, String name, int size) throws IOException {
+        File f = new File(dir, name);
+        FileUtils.writeByteArrayToFile(f, new byte[size]);
+        return f;
+    }
+
+}
@@ -0,0 +1,96 @@
+package org.jenkinsci.plugins.golang;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+/**
+ * Generates release data shaped like the full upstream Go catalogue published via the update centre, i.e. every
+ * minor version since Go 1.2 with its patch releases and pre-releases, each with a variant per supported platform.
+ */
+final class SyntheticCatalogue {
+
+    /** Latest minor version in the generated catalogue. */
+    static final int LATEST_MINOR = 23;
+
+    /** Every {@code os}/{@code arch} combination for which Go archives are published. */
+    static final String[][] PLATFORMS = {
+            {"darwin", "amd64"}, {"darwin", "arm64"}, {"darwin", "386"},
+            {"freebsd", "386"}, {"freebsd", "amd64"}, {"freebsd", "arm64"},
+            {"linux", "386"}, {"linux", "amd64"}, {"linux", "arm64"}, {"linux", "armv6l"},
+            {"linux", "ppc64le"}, {"linux", "s390x"},
+            {"windows", "386"}, {"windows", "amd64"}, {"windows", "arm64"},
+    };
+
+    /**
+     * Java {@code os.name}, {@code os.arch} and {@code os.version} values of typical nodes, for each platform which
+     * the installer recognises, and which is supported by the latest release.
+     */
+    static final String[][] NODES = {
+            {"Mac OS X", "x86_64", "13.4"}, {"Mac OS X", "aarch64", "14.1"},
+            {"FreeBSD", "i386", "13.2-RELEASE"}, {"FreeBSD", "amd64", "13.2-RELEASE"},
+            {"FreeBSD", "aarch64", "14.0-RELEASE"},
+            {"Linux", "i386", "5.10.0"}, {"Linux", "amd64", "6.1.0"}, {"Linux", "aarch64", "6.1.0"},
+            {"Linux", "arm", "5.15.0"}, {"Linux", "s390x", "5.14.0"},
+            {"Windows Server 2019", "x86", "10.0"}, {"Windows 10", "amd64", "10.0"}, {"Windows 11", "aarch64", "10.0"},
+    };
+
+    private SyntheticCatalogue() {
+    }
+
+    /** @return JSON in the same format as the update centre's {@code org.jenkinsci.plugins.golang.GolangInstaller}. */
+    static JSONObject create() {
+        JSONArray releases = new JSONArray();
+        for (int minor = LATEST_MINOR; minor >= 2; minor--) {
+            // Releases are listed newest first, as upstream
+            int patches = minor == LATEST_MINOR ? 2 : 8 + minor % 5;
+            for (int patch = patches; patch >= 0; patch--) {
+                String version = patch == 0 && minor < 21 ? "1." + minor : "1." + minor + "." + patch;
+                releases.add(createRelease(minor, version));
+            }
+            for (String pre : new String[] { "rc2", "rc1", "beta1" }) {
+                releases.add(createRelease(minor, "1." + minor + pre));
+            }
+        }
+        JSONObject root = new JSONObject();
+        root.put("releases", releases);
+        return root;
+    }
+
+    private static JSONObject createRelease(int minor, String version) {
+        JSONArray variants = new JSONArray();
+        for (String[] platform : PLATFORMS) {
+            String os = platform[0];
+            String arch = platform[1];
+            // Older releases only supported a subset of platforms
+            if ((arch.equals("arm64") && minor < 16) || (arch.equals("386") && os.equals("darwin") && minor > 14)) {
+                continue;
+            }
+            String extension = os.equals("windows") ? ".zip" : ".tar.gz";
+            JSONObject variant = new JSONObject();
+            variant.put("url", String.format("https://go.dev/dl/go%s.%s-%s%s", version, os, arch, extension));
+            variant.put("os", os);
+            variant.put("arch", arch);
+            variant.put("sha256", String.format("%064x", (long) (version + os + arch).hashCode() & 0xffffffffL));
+
+            // Early macOS releases were published separately per minimum OS version
+            if (os.equals("darwin") && minor < 5) {
+                JSONObject legacy = JSONObject.fromObject(variant);
+                legacy.put("url", String.format("https://go.dev/dl/go%s.%s-%s-osx10.6%s", version, os, arch,
+                        extension));
+                legacy.put("osxversion", "10.6");
+                variant.put("osxversion", "10.8");
+                variants.add(variant);
+                variants.add(legacy);
+            } else {
+                variants.add(variant);
+            }
+        }
+
+        JSONObject release = new JSONObject();
+        release.put("id", version);
+        release.put("name", "Go " + version);
+        release.put("variants", variants);
+        return release;
+    }
+
+}
@@ -0,0 +1,79 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Util;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/** Creates archives laid out like the official Go distributions, i.e. with everything inside a {@code go/} directory. */
+final class TestArchives {
+
+    private TestArchives() {
+    }
+
+    /** @param files Map of file paths, relative to the {@code go/} directory, to their contents. */
+    static byte[] tarGz(Map<String, String> files) throws IOException {
+        return tarGz(Collections.<String, String>emptyMap(), files);
+    }
+
+    /**
+     * @param symlinks Map of symbolic link paths, relative to the {@code go/} directory, to their targets; these come
+     * before the files in the archive.
+     * @param files Map of file paths, relative to the {@code go/} directory, to their contents.
+     */
+    static byte[] tarGz(Map<String, String> symlinks, Map<String, String> files) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GZIPOutputStream(bytes))) {
+            tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            TarArchiveEntry dir = new TarArchiveEntry("go/");
+            tar.putArchiveEntry(dir);
+            tar.closeArchiveEntry();
+            for (Map.Entry<String, String> link : symlinks.entrySet()) {
+                TarArchiveEntry entry = new TarArchiveEntry("go/" + link.getKey(), TarArchiveEntry.LF_SYMLINK);
+                entry.setLinkName(link.getValue());
+                tar.putArchiveEntry(entry);
+                tar.closeArchiveEntry();
+            }
+            for (Map.Entry<String, String> file : files.entrySet()) {
+                byte[] content = file.getValue().getBytes(StandardCharsets.UTF_8);
+                TarArchiveEntry entry = new TarArchiveEntry("go/" + file.getKey());
+                entry.setSize(content.length);
+                entry.setMode(file.getKey().startsWith("bin/") ? 0755 : 0644);
+                tar.putArchiveEntry(entry);
+                tar.write(content);
+                tar.closeArchiveEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /** @param files Map of file paths, relative to the {@code go/} directory, to their contents. */
+    static byte[] zip(Map<String, String> files) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("go/"));
+            zip.closeEntry();
+            for (Map.Entry<String, String> file : files.entrySet()) {
+                zip.putNextEntry(new ZipEntry("go/" + file.getKey()));
+                zip.write(file.getValue().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    static String sha256(byte[] content) throws NoSuchAlgorithmException {
+        return Util.toHexString(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+
+}
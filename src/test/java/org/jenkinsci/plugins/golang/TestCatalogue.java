@@ -0,0 +1,49 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.tools.InstallSourceProperty;
+import hudson.tools.ToolProperty;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+/** Sets up Go release information, as would normally be downloaded from the update centre. */
+final class TestCatalogue {
+
+    private final JSONArray releases = new JSONArray();
+
+    /** Adds a release, with a single variant matching the platform which the tests are running on. */
+    TestCatalogue add(String id, URL url) throws IOException {
+        JSONObject variant = new JSONObject()
+                .element("url", url.toString())
+                .element("os", GolangInstaller.getPlatform(System.getProperty("os.name")))
+                .element("arch", GolangInstaller.getArchitecture(System.getProperty("os.arch")));
+        releases.add(new JSONObject()
+                .element("id", id)
+                .element("name", "Go " + id)
+                .element("variants", new JSONArray().element(variant)));
+        return this;
+    }
+
+    /** Writes the release information to where Jenkins expects to find the downloaded update centre data. */
+    void install(Jenkins jenkins) throws IOException {
+        File file = new File(jenkins.getRootDir(), "updates/" + GolangInstaller.class.getName());
+        FileUtils.writeStringToFile(file, new JSONObject().element("releases", releases).toString(),
+                StandardCharsets.UTF_8);
+    }
+
+    /** @return A Go installation which will be automatically installed with the given release. */
+    static GolangInstallation createInstallation(String name, String releaseId) throws IOException {
+        List<? extends ToolProperty<?>> properties = Collections.singletonList(
+                new InstallSourceProperty(Collections.singletonList(new GolangInstaller(releaseId))));
+        return new GolangInstallation(name, null, properties);
+    }
+
+}
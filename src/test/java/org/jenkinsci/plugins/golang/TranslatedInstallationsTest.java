@@ -0,0 +1,91 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import hudson.slaves.DumbSlave;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.net.URL;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TranslatedInstallationsTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private ArchiveServer server;
+
+    @Before
+    public void startServer() throws Exception {
+        server = new ArchiveServer();
+    }
+
+    @After
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void testTranslationIsReusedUntilInstallationsChange() throws Exception {
+        // Given a Go installation is defined
+        URL url = server.add("go1.16.tar.gz", TestArchives.tarGz(Collections.singletonMap("VERSION", "go1.16")));
+        new TestCatalogue().add("1.16", url).install(j.jenkins);
+        GolangInstallation installation = TestCatalogue.createInstallation("go1.16", "1.16");
+        GolangBuildWrapper.DescriptorImpl descriptor =
+                j.jenkins.getDescriptorByType(GolangBuildWrapper.DescriptorImpl.class);
+        descriptor.setInstallations(installation);
+        assertSame(installation, descriptor.getInstallation("go1.16"));
+
+        // When it's translated for the same agent more than once
+        DumbSlave agent = j.createOnlineSlave();
+        GolangInstallation first = TranslatedInstallations.forNode(installation, agent, TaskListener.NULL);
+        GolangInstallation second = TranslatedInstallations.forNode(installation, agent, TaskListener.NULL);
+
+        // Then the same translation should be reused, and no environment is needed to expand its location
+        assertSame(first, second);
+        assertSame(first, first.forEnvironment(new EnvVars()));
+
+        // And the translation should be discarded once the installations are reconfigured
+        descriptor.setInstallations(installation);
+        assertNotSame(first, TranslatedInstallations.forNode(installation, agent, TaskListener.NULL));
+        assertEquals(1, server.getFetchCount("go1.16.tar.gz"));
+    }
+
+    @Test
+    public void testTranslationIsNotReusedOnceInstallationIsRemoved() throws Exception {
+        // Given a Go installation has been translated for an agent
+        URL url = server.add("go1.16.tar.gz", TestArchives.tarGz(Collections.singletonMap("VERSION", "go1.16")));
+        new TestCatalogue().add("1.16", url).install(j.jenkins);
+        GolangInstallation installation = TestCatalogue.createInstallation("go1.16", "1.16");
+        DumbSlave agent = j.createOnlineSlave();
+        GolangInstallation first = TranslatedInstallations.forNode(installation, agent, TaskListener.NULL);
+
+        // Then reusing the translation should still record that the installation was used
+        long installedAt = InstallationUsage.getLastUsed(agent).get(first.getHome());
+        Thread.sleep(10);
+        assertSame(first, TranslatedInstallations.forNode(installation, agent, TaskListener.NULL));
+        assertTrue(InstallationUsage.getLastUsed(agent).get(first.getHome()) > installedAt);
+
+        // When the installation is then removed from the agent
+        FilePath home = new FilePath(agent.getChannel(), first.getHome());
+        home.deleteRecursive();
+        InstallationRecords.invalidate(agent, home);
+
+        // Then it should be installed again, rather than the removed installation being reused
+        GolangInstallation second = TranslatedInstallations.forNode(installation, agent, TaskListener.NULL);
+        assertNotSame(first, second);
+        assertEquals(first.getHome(), second.getHome());
+        assertTrue(home.child("VERSION").exists());
+    }
+
+}
@@ -0,0 +1,216 @@
+package org.jenkinsci.plugins.golang;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.jenkinsci.plugins.golang.GolangInstaller.ChecksumMismatchException;
+import static org.jenkinsci.plugins.golang.GolangInstaller.GolangInstallable;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+public class UnpackGoArchiveTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private ArchiveServer server;
+
+    @Before
+    public void startServer() throws Exception {
+        server = new ArchiveServer();
+    }
+
+    @After
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void testTarArchiveWithMatchingChecksumIsUnpacked() throws Exception {
+        // Given a Go archive is available, along with its checksum
+        byte[] archive = TestArchives.tarGz(createFiles());
+        URL url = server.add("go1.16.linux-amd64.tar.gz", archive);
+        File dir = new File(tmp.getRoot(), "go1.16");
+
+        // When we unpack it
+        new UnpackGoArchive(createInstallable(url, TestArchives.sha256(archive)), url).invoke(dir, null);
+
+        // Then its contents should have been unpacked
+        assertEquals("go1.16", FileUtils.readFileToString(new File(dir, "VERSION"), StandardCharsets.UTF_8));
+        assertTrue(new File(dir, "bin/go").canExecute());
+
+        // And the top-level `go` directory should have been stripped
+        assertFalse(new File(dir, "go").exists());
+    }
+
+    @Test
+    public void testTimingsAndSizeAreReported() throws Exception {
+        // Given a Go archive is available
+        byte[] archive = TestArchives.tarGz(createFiles());
+        URL url = server.add("go1.16.linux-amd64.tar.gz", archive);
+        File dir = new File(tmp.getRoot(), "go1.16");
+
+        // When we unpack it
+        UnpackGoArchive.Result result = new UnpackGoArchive(createInstallable(url, null), url).invoke(dir, null);
+
+        // Then the whole archive should have been read, and the phases should add up to the total time taken
+        assertEquals(archive.length, result.bytes);
+        assertTrue(result.readNanos > 0);
+        assertEquals(result.totalNanos, result.readNanos + result.extractNanos + result.pullUpNanos);
+    }
+
+    @Test
+    public void testZipArchiveWithMatchingChecksumIsUnpacked() throws Exception {
+        // Given a Go archive is available, along with its checksum
+        byte[] archive = TestArchives.zip(createFiles());
+        URL url = server.add("go1.16.windows-amd64.zip", archive);
+        File dir = new File(tmp.getRoot(), "go1.16");
+
+        // When we unpack it
+        new UnpackGoArchive(createInstallable(url, TestArchives.sha256(archive)), url).invoke(dir, null);
+
+        // Then its contents should have been unpacked
+        assertEquals("go1.16", FileUtils.readFileToString(new File(dir, "VERSION"), StandardCharsets.UTF_8));
+        assertEquals("package fmt",
+                FileUtils.readFileToString(new File(dir, "src/fmt/print.go"), StandardCharsets.UTF_8));
+
+        // And the top-level `go` directory should have been stripped
+        assertFalse(new File(dir, "go").exists());
+    }
+
+    @Test
+    public void testArchiveWithMismatchingChecksumIsRemoved() throws Exception {
+        // Given a Go archive is available, but its checksum does not match
+        byte[] archive = TestArchives.tarGz(createFiles());
+        URL url = server.add("go1.16.linux-amd64.tar.gz", archive);
+        File dir = new File(tmp.getRoot(), "go1.16");
+
+        // When we unpack it
+        try {
+            new UnpackGoArchive(createInstallable(url, TestArchives.sha256(new byte[0])), url).invoke(dir, null);
+            fail("Expected installation to fail");
+        } catch (ChecksumMismatchException e) {
+            // Expected
+        }
+
+        // Then nothing should have been left behind
+        assertArrayEquals(new String[0], tmp.getRoot().list());
+    }
+
+    @Test
+    public void testExistingInstallationIsReplaced() throws Exception {
+        // Given an older version of Go is already installed
+        File dir = new File(tmp.getRoot(), "go");
+        URL oldUrl = server.add("go1.15.linux-amd64.tar.gz", TestArchives.tarGz(createFiles("go1.15", "old.txt")));
+        new UnpackGoArchive(createInstallable(oldUrl, null), oldUrl).invoke(dir, null);
+        assertTrue(new File(dir, "old.txt").exists());
+
+        // When we install a new version into the same location
+        URL newUrl = server.add("go1.16.linux-amd64.tar.gz", TestArchives.tarGz(createFiles()));
+        new UnpackGoArchive(createInstallable(newUrl, null), newUrl).invoke(dir, null);
+
+        // Then only the new version should be present, along with a record of where it came from
+        assertEquals("go1.16", FileUtils.readFileToString(new File(dir, "VERSION"), StandardCharsets.UTF_8));
+        assertFalse(new File(dir, "old.txt").exists());
+        assertEquals(newUrl.toString(),
+                FileUtils.readFileToString(new File(dir, ".installedFrom"), StandardCharsets.UTF_8));
+
+        // And no temporary directories should have been left behind
+        assertArrayEquals(new String[] { "go" }, tmp.getRoot().list());
+    }
+
+    @Test
+    public void testPatchUpgradeOnlyReplacesChangedFiles() throws Exception {
+        // Given a Go release is already installed
+        File dir = new File(tmp.getRoot(), "go");
+        URL oldUrl = server.add("go1.16.linux-amd64.tar.gz", TestArchives.tarGz(createFiles("go1.16", "old.txt")));
+        new UnpackGoArchive(createInstallable(oldUrl, null), oldUrl).invoke(dir, null);
+        Object unchangedFile = fileKey(new File(dir, "bin/go"));
+        Object changedFile = fileKey(new File(dir, "VERSION"));
+
+        // When we install the next patch release into the same location
+        URL newUrl = server.add("go1.16.1.linux-amd64.tar.gz", TestArchives.tarGz(createFiles("go1.16.1", "new.txt")));
+        new UnpackGoArchive(createInstallable(newUrl, null), newUrl).invoke(dir, null);
+
+        // Then unchanged files should have been kept as they were
+        assertEquals(unchangedFile, fileKey(new File(dir, "bin/go")));
+        assertTrue(new File(dir, "bin/go").canExecute());
+
+        // And changed, added and removed files should have been updated
+        assertNotEquals(changedFile, fileKey(new File(dir, "VERSION")));
+        assertEquals("go1.16.1", FileUtils.readFileToString(new File(dir, "VERSION"), StandardCharsets.UTF_8));
+        assertTrue(new File(dir, "new.txt").exists());
+        assertFalse(new File(dir, "old.txt").exists());
+        assertEquals(newUrl.toString(),
+                FileUtils.readFileToString(new File(dir, ".installedFrom"), StandardCharsets.UTF_8));
+        assertArrayEquals(new String[] { "go" }, tmp.getRoot().list());
+    }
+
+    @Test
+    public void testDeduplicatedUpgradeDoesNotReuseFilesOutsideStore() throws Exception {
+        // Given a Go release was installed without deduplication, and has some cache content inside it
+        assumeTrue("Hard link counts are only available on Unix", File.pathSeparatorChar == ':');
+        File dir = new File(tmp.getRoot(), "go");
+        URL oldUrl = server.add("go1.16.linux-amd64.tar.gz", TestArchives.tarGz(createFiles("go1.16", "old.txt")));
+        new UnpackGoArchive(createInstallable(oldUrl, null), oldUrl).invoke(dir, null);
+        Object writableFile = fileKey(new File(dir, "bin/go"));
+        FileUtils.writeStringToFile(new File(dir, ".cache/entry"), "cached", StandardCharsets.UTF_8);
+
+        // When the next patch release is installed with deduplication
+        URL newUrl = server.add("go1.16.1.linux-amd64.tar.gz", TestArchives.tarGz(createFiles("go1.16.1", "new.txt")));
+        new UnpackGoArchive(createInstallable(newUrl, null), newUrl).deduplicate(true).invoke(dir, null);
+
+        // Then unchanged files should come from the store, rather than sharing the old writable file
+        File go = new File(dir, "bin/go");
+        assertNotEquals(writableFile, fileKey(go));
+        assertFalse(Files.getPosixFilePermissions(go.toPath()).contains(PosixFilePermission.OWNER_WRITE));
+
+        // And hidden directories should not have been carried over
+        assertFalse(new File(dir, ".cache").exists());
+    }
+
+    private static Object fileKey(File file) throws Exception {
+        return Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+    }
+
+    private static GolangInstallable createInstallable(URL url, String sha256) {
+        GolangInstallable installable = new GolangInstallable();
+        installable.url = url.toString();
+        installable.sha256 = sha256;
+        return installable;
+    }
+
+    private static Map<String, String> createFiles(String version, String extraFile) {
+        Map<String, String> files = createFiles();
+        files.put("VERSION", version);
+        files.put(extraFile, "");
+        return files;
+    }
+
+    private static Map<String, String> createFiles() {
+        Map<String, String> files = new LinkedHashMap<String, String>();
+        files.put("VERSION", "go1.16");
+        files.put("bin/go", "#!/bin/sh");
+        files.put("src/fmt/print.go", "package fmt");
+        return files;
+    }
+
+}
@@ -0,0 +1,77 @@
+package org.jenkinsci.plugins.golang;
+
+import hudson.Functions;
+import hudson.model.Result;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.net.URL;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeFalse;
+
+public class WithGoStepTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private ArchiveServer server;
+
+    @Before
+    public void startServer() throws Exception {
+        server = new ArchiveServer();
+    }
+
+    @After
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void testGoIsInstalledAndEnvironmentIsSetForBody() throws Exception {
+        assumeFalse(Functions.isWindows());
+
+        // Given a Go installation is defined
+        URL url = server.add("go1.16.tar.gz", TestArchives.tarGz(Collections.singletonMap("VERSION", "go1.16")));
+        new TestCatalogue().add("1.16", url).install(j.jenkins);
+        j.jenkins.getDescriptorByType(GolangInstallation.DescriptorImpl.class)
+                .setInstallations(TestCatalogue.createInstallation("go1.16", "1.16"));
+
+        // When a Pipeline uses it via the `withGo` step
+        WorkflowJob job = j.createProject(WorkflowJob.class);
+        job.setDefinition(new CpsFlowDefinition("node {\n" +
+                "  withGo(version: 'go1.16', goflags: '-mod=readonly', gocache: 'cache') {\n" +
+                "    sh 'echo \"version=$(cat $GOROOT/VERSION) flags=$GOFLAGS\"; echo \"cache=$GOCACHE\"'\n" +
+                "  }\n" +
+                "}", true));
+        WorkflowRun run = j.buildAndAssertSuccess(job);
+
+        // Then Go should have been installed, and the environment set up within the block
+        j.assertLogContains("version=go1.16 flags=-mod=readonly", run);
+        j.assertLogContains("cache=" + j.jenkins.getWorkspaceFor(job).child("cache").getRemote(), run);
+
+        // And running it again should not download the archive again
+        j.buildAndAssertSuccess(job);
+        assertEquals(1, server.getFetchCount("go1.16.tar.gz"));
+    }
+
+    @Test
+    public void testUnknownInstallationFailsBuild() throws Exception {
+        // Given no Go installations are defined
+        WorkflowJob job = j.createProject(WorkflowJob.class);
+        job.setDefinition(new CpsFlowDefinition("node { withGo(version: 'missing') { echo 'unreachable' } }", true));
+
+        // Then using one should fail the build
+        WorkflowRun run = j.assertBuildStatus(Result.FAILURE, job.scheduleBuild2(0));
+        j.assertLogContains(Messages.UnknownGoInstallation("missing"), run);
+        j.assertLogNotContains("unreachable", run);
+    }
+
+}